@@ -0,0 +1,84 @@
+/*
+ * GNU License.
+ */
+package br.com.brenov.chatbenchmark;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Compares two result files of {@link ServerBenchmarks} (for example, of two
+ * versions of the server). For each benchmark found in both files it prints
+ * the two scores and the change, and marks the change as significant when it
+ * is larger than the sum of the errors of the scores.
+ *
+ * Usage: BenchmarkCompare [before.csv] [after.csv]
+ *
+ * @author Breno Viana
+ * @version 17/10/2026
+ */
+public class BenchmarkCompare {
+
+    /**
+     * Compare the result files.
+     *
+     * @param args Result files (before and after)
+     *
+     * @throws IOException A file could not be read
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Usage: BenchmarkCompare before.csv after.csv");
+            return;
+        }
+        Map<String, double[]> before = read(args[0]);
+        Map<String, double[]> after = read(args[1]);
+        System.out.println("benchmark,threads,params,before,after,change_pct,"
+                + "significant");
+        for (Map.Entry<String, double[]> result : after.entrySet()) {
+            double[] old = before.get(result.getKey());
+            if (old == null) {
+                continue;
+            }
+            double[] now = result.getValue();
+            double change = (now[0] - old[0]) * 100 / old[0];
+            boolean significant = Math.abs(now[0] - old[0])
+                    > now[1] + old[1];
+            System.out.println(String.format(Locale.ROOT,
+                    "%s,%.3f,%.3f,%.1f,%s", result.getKey(), old[0], now[0],
+                    change, significant));
+        }
+    }
+
+    /**
+     * Read a result file.
+     *
+     * @param file Result file
+     *
+     * @return Score and error, by benchmark, threads and parameters
+     *
+     * @throws IOException The file could not be read
+     */
+    private static Map<String, double[]> read(String file) throws IOException {
+        Map<String, double[]> results = new LinkedHashMap<String, double[]>();
+        List<String> lines = Files.readAllLines(Paths.get(file),
+                StandardCharsets.UTF_8);
+        for (String line : lines) {
+            String[] fields = line.split(",", -1);
+            // Skip the header and other output
+            if (fields.length != 8 || fields[0].equals("benchmark")) {
+                continue;
+            }
+            results.put(fields[0] + "," + fields[2] + "," + fields[7],
+                    new double[]{Double.parseDouble(fields[4]),
+                        Double.parseDouble(fields[5])});
+        }
+        return results;
+    }
+}
@@ -0,0 +1,173 @@
+/*
+ * GNU License.
+ */
+package br.com.brenov.chatbenchmark;
+
+import br.com.brenov.chatserver.protocol.Compression;
+import br.com.brenov.chatserver.protocol.Frame;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Random;
+
+/**
+ * Measures the bytes on the wire and the CPU cost of the per-connection
+ * compression, at several message sizes. The messages are the chat message
+ * frames the server sends to a client ("name: text"), from a few senders,
+ * with text made of common chat words; they are written to one compressed
+ * stream, as the server writes them to one connection:
+ *
+ * - "none": the frames, uncompressed;
+ * - "deflate-N": compressed at level N, with a flush after each message (a
+ * quiet room, the worst case) or after each batch of 16 messages (a busy
+ * room, whose messages the writer flushes together).
+ *
+ * The CPU time of the compression is the cost for the server, for each
+ * connection that asked for it; the CPU time of the decompression is the cost
+ * for the client.
+ *
+ * Usage: CompressionCost [messages] [sizes...]
+ *
+ * @author Breno Viana
+ * @version 17/10/2026
+ */
+public class CompressionCost {
+
+    // Common chat words
+    private static final String[] WORDS = ("hi hello hey how are you doing "
+            + "today good fine thanks thank great ok okay yes no maybe sure "
+            + "what when where why who the a an and or but so to of in on at "
+            + "for with from is was it this that there here I me my we our "
+            + "they them see later tomorrow tonight morning meeting lunch "
+            + "dinner coffee work home time now soon please sorry lol nice "
+            + "cool love miss need want know think going come back call "
+            + "message send translate language english portuguese spanish "
+            + "weekend game movie music friend family happy sad tired busy "
+            + "late early again really very much more less new old").split(" ");
+    // Sender names
+    private static final String[] NAMES = {"alice", "bob", "carol", "dave",
+        "erin", "frank", "grace", "heidi"};
+    // Messages flushed together in a busy room
+    private static final int BATCH = 16;
+
+    /**
+     * Run the benchmark.
+     *
+     * @param args Number of messages and message sizes (characters)
+     *
+     * @throws Exception Benchmark error
+     */
+    public static void main(String[] args) throws Exception {
+        int messages = args.length > 0 ? Integer.parseInt(args[0]) : 20000;
+        int[] sizes = {16, 64, 256, 1024};
+        if (args.length > 1) {
+            sizes = new int[args.length - 1];
+            for (int i = 1; i < args.length; i++) {
+                sizes[i - 1] = Integer.parseInt(args[i]);
+            }
+        }
+        System.out.println("size,mode,flush,messages,frame_bytes,"
+                + "wire_bytes_per_message,ratio,deflate_ns_per_message,"
+                + "inflate_ns_per_message");
+        // The first round warms up the JIT
+        for (int round = 0; round < 2; round++) {
+            for (int size : sizes) {
+                byte[][] frames = frames(messages, size);
+                run(round, size, frames, 0, 1);
+                for (int level : new int[]{1, 6, 9}) {
+                    run(round, size, frames, level, 1);
+                    run(round, size, frames, level, BATCH);
+                }
+            }
+        }
+    }
+
+    /**
+     * Build the message frames of a conversation.
+     *
+     * @param messages Number of messages
+     * @param size Length of the text of each message
+     *
+     * @return Frames
+     */
+    private static byte[][] frames(int messages, int size) {
+        Random random = new Random(42);
+        byte[][] frames = new byte[messages][];
+        for (int i = 0; i < messages; i++) {
+            StringBuilder text = new StringBuilder(size + 16);
+            while (text.length() < size) {
+                text.append(WORDS[random.nextInt(WORDS.length)]).append(' ');
+            }
+            text.setLength(size);
+            frames[i] = Frame.encode(Frame.MESSAGE,
+                    NAMES[random.nextInt(NAMES.length)] + ": " + text);
+        }
+        return frames;
+    }
+
+    /**
+     * Write the frames to one connection stream and print the result.
+     *
+     * @param round Round (only the second one is printed)
+     * @param size Length of the text of each message
+     * @param frames Message frames
+     * @param level Compression level (0 for none)
+     * @param batch Messages written between two flushes
+     *
+     * @throws IOException Compression error
+     */
+    private static void run(int round, int size, byte[][] frames, int level,
+            int batch) throws IOException {
+        ThreadMXBean beans = ManagementFactory.getThreadMXBean();
+        long total = 0;
+        for (byte[] frame : frames) {
+            total += frame.length;
+        }
+        ByteArrayOutputStream wire = new ByteArrayOutputStream(
+                (int) Math.min(Integer.MAX_VALUE - 8, total + 1024));
+        OutputStream out = level == 0 ? wire
+                : Compression.deflate(wire, level);
+        long start = beans.getCurrentThreadCpuTime();
+        for (int i = 0; i < frames.length; i++) {
+            out.write(frames[i]);
+            if ((i + 1) % batch == 0 || i == frames.length - 1) {
+                out.flush();
+            }
+        }
+        long deflate = beans.getCurrentThreadCpuTime() - start;
+        Compression.end(out);
+        long inflate = 0;
+        if (level != 0) {
+            // Read it back as the client does
+            byte[] buffer = new byte[8192];
+            InputStream in = Compression.inflate(
+                    new ByteArrayInputStream(wire.toByteArray()));
+            long read = 0;
+            start = beans.getCurrentThreadCpuTime();
+            int n;
+            while (read < total && (n = in.read(buffer)) > 0) {
+                read += n;
+            }
+            inflate = beans.getCurrentThreadCpuTime() - start;
+            in.close();
+            if (read != total) {
+                throw new IOException("Read " + read + " of " + total
+                        + " bytes.");
+            }
+        }
+        if (round == 0) {
+            return;
+        }
+        int count = frames.length;
+        System.out.println(size + "," + (level == 0 ? "none" : "deflate-"
+                + level) + "," + (level == 0 ? "-" : batch == 1 ? "message"
+                : "batch" + batch) + "," + count + "," + total / count + ","
+                + String.format("%.1f,%.2f", (double) wire.size() / count,
+                        (double) wire.size() / total) + ","
+                + deflate / count + "," + inflate / count);
+    }
+}
@@ -0,0 +1,152 @@
+/*
+ * GNU License.
+ */
+package br.com.brenov.chatbenchmark;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Measures how many idle clients a running chat server can hold. Clients are
+ * logged in step by step and, after each step, two probe clients exchange a
+ * message to check that the server still answers. The test stops when a client
+ * can not connect or log in, or when a probe message takes too long.
+ *
+ * Usage: ConnectionCapacity [host] [port] [max clients] [step] [max probe ms]
+ *
+ * @author Breno Viana
+ * @version 17/10/2026
+ */
+public class ConnectionCapacity {
+
+    /**
+     * A logged in client.
+     */
+    private static class Session {
+
+        // Socket
+        private final Socket socket;
+        // Receive server messages
+        private final BufferedReader in;
+        // Send messages
+        private final PrintWriter out;
+
+        /**
+         * Connect and log in, following the chat protocol.
+         *
+         * @param host Server address
+         * @param port Server port
+         * @param name Client name
+         *
+         * @throws IOException The client could not log in
+         */
+        Session(String host, int port, String name) throws IOException {
+            this.socket = new Socket(host, port);
+            this.socket.setSoTimeout(30000);
+            this.in = new BufferedReader(new InputStreamReader(
+                    this.socket.getInputStream()));
+            this.out = new PrintWriter(this.socket.getOutputStream(), true);
+            this.out.println("LOGIN\n" + name + "\nEN");
+            // Login attempts
+            for (int i = 0; i < 5; i++) {
+                String line = this.in.readLine();
+                if (line == null) {
+                    break;
+                } else if (line.startsWith("SUBMITNAME")) {
+                    this.out.println("LOGIN\n" + name + "\nEN");
+                } else if (line.startsWith("NAMEACCEPTED")) {
+                    return;
+                }
+            }
+            this.socket.close();
+            throw new IOException("Login failed: " + name);
+        }
+
+        /**
+         * Close the client.
+         */
+        void close() {
+            try {
+                this.socket.close();
+            } catch (IOException e) {
+            }
+        }
+    }
+
+    /**
+     * Runs the capacity test.
+     *
+     * @param args Host, port, max clients, step and max probe time (ms)
+     */
+    public static void main(String[] args) {
+        String host = args.length > 0 ? args[0] : "localhost";
+        int port = args.length > 1 ? Integer.parseInt(args[1]) : 9001;
+        int max = args.length > 2 ? Integer.parseInt(args[2]) : 10000;
+        int step = args.length > 3 ? Integer.parseInt(args[3]) : 500;
+        long maxProbe = args.length > 4 ? Long.parseLong(args[4]) : 1000;
+
+        List<Session> sessions = new ArrayList<Session>();
+        System.out.println("clients,login_ms,probe_ms");
+        try {
+            while (sessions.size() < max) {
+                // Log in a new step of idle clients
+                long start = System.nanoTime();
+                for (int i = 0; i < step; i++) {
+                    sessions.add(new Session(host, port, "idle-"
+                            + sessions.size()));
+                }
+                long login = (System.nanoTime() - start) / 1000000;
+                // Probe the server
+                long probe = probe(host, port, sessions.size());
+                System.out.println(sessions.size() + "," + login + ","
+                        + probe);
+                if (probe > maxProbe) {
+                    System.out.println("Probe too slow, stopping.");
+                    break;
+                }
+            }
+        } catch (IOException e) {
+            System.out.println("Stopped at " + sessions.size()
+                    + " clients: " + e);
+        } finally {
+            for (Session s : sessions) {
+                s.close();
+            }
+        }
+    }
+
+    /**
+     * Log in two clients and measure the time for a message sent by one of
+     * them to reach the other.
+     *
+     * @param host Server address
+     * @param port Server port
+     * @param id Probe id
+     *
+     * @return Delivery time in milliseconds
+     *
+     * @throws IOException Probe error
+     */
+    private static long probe(String host, int port, int id)
+            throws IOException {
+        Session sender = new Session(host, port, "probe-a-" + id);
+        Session receiver = new Session(host, port, "probe-b-" + id);
+        try {
+            long start = System.nanoTime();
+            sender.out.println("MESSAGE\nping");
+            String line;
+            do {
+                line = receiver.in.readLine();
+            } while (line != null && !line.startsWith("MESSAGE"));
+            return (System.nanoTime() - start) / 1000000;
+        } finally {
+            sender.close();
+            receiver.close();
+        }
+    }
+}
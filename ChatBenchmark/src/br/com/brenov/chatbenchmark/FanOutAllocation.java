@@ -0,0 +1,308 @@
+/*
+ * GNU License.
+ */
+package br.com.brenov.chatbenchmark;
+
+import br.com.brenov.chatserver.ChatServer;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Measures the garbage produced by the server to deliver a message to many
+ * clients. The server runs in this JVM with the local translator; one client
+ * sends messages to a room of receivers that speak its language, and the bytes
+ * allocated by the server threads are divided by the number of deliveries.
+ *
+ * Usage: FanOutAllocation [mode] [receivers,...] [messages] [lines|frames]
+ *
+ * Run it with a fixed heap (-Xms512m -Xmx512m) so the collections are
+ * comparable between runs.
+ *
+ * @author Breno Viana
+ * @version 17/10/2026
+ */
+public class FanOutAllocation {
+
+    // Messages sent before the previous ones are delivered
+    private static final int WINDOW = 32;
+
+    // Bytes received by all the receivers
+    private static final AtomicLong received = new AtomicLong();
+
+    /**
+     * Run the benchmark.
+     *
+     * @param args Server mode, room sizes, messages per room and protocol
+     *
+     * @throws Exception Benchmark error
+     */
+    public static void main(String[] args) throws Exception {
+        String mode = args.length > 0 ? args[0] : "nio";
+        String[] rooms = (args.length > 1 ? args[1] : "10,100,1000")
+                .split(",");
+        int messages = args.length > 2 ? Integer.parseInt(args[2]) : 2000;
+        boolean framed = args.length > 3 && args[3].equals("frames");
+
+        // Start the server in this JVM
+        int port;
+        try (ServerSocket free = new ServerSocket(0)) {
+            port = free.getLocalPort();
+        }
+        System.setProperty("understandme.port", String.valueOf(port));
+        System.setProperty("understandme.mode", mode);
+        System.setProperty("understandme.translator", "local");
+        Thread server = new Thread(() -> ChatServer.main(new String[0]),
+                "bench-server");
+        server.setDaemon(true);
+        server.start();
+        Thread.sleep(1000);
+
+        // Drain the receivers in one thread
+        Selector selector = Selector.open();
+        Thread drain = new Thread(() -> drain(selector), "bench-drain");
+        drain.setDaemon(true);
+        drain.start();
+
+        System.out.println("mode,protocol,receivers,messages,deliveries,"
+                + "bytes_per_delivery,gc_count,gc_ms");
+        int room = 0;
+        for (String size : rooms) {
+            int receivers = Integer.parseInt(size.trim());
+            // Warm up, then measure
+            run(port, selector, "warm" + room, receivers, messages, framed);
+            long[] result = run(port, selector, "room" + room, receivers,
+                    messages, framed);
+            long deliveries = (long) receivers * messages;
+            System.out.println(mode + "," + (framed ? "frames" : "lines")
+                    + "," + receivers + "," + messages + "," + deliveries
+                    + "," + result[0] / deliveries + "," + result[1] + ","
+                    + result[2]);
+            room++;
+        }
+        System.exit(0);
+    }
+
+    /**
+     * Log in a room of receivers, send the messages and close the room.
+     *
+     * @param port Server port
+     * @param selector Drain selector
+     * @param prefix Client names prefix
+     * @param receivers Number of receivers
+     * @param messages Number of messages
+     * @param framed True to use the framed protocol
+     *
+     * @return Bytes allocated by the server, collections and collection time
+     *
+     * @throws IOException Connection error
+     * @throws InterruptedException Interrupted while waiting
+     */
+    private static long[] run(int port, Selector selector, String prefix,
+            int receivers, int messages, boolean framed)
+            throws IOException, InterruptedException {
+        List<SocketChannel> room = new ArrayList<SocketChannel>();
+        for (int i = 0; i < receivers; i++) {
+            SocketChannel channel = SocketChannel.open(new InetSocketAddress(
+                    "localhost", port));
+            login(channel.socket().getInputStream(),
+                    channel.socket().getOutputStream(), prefix + "-" + i,
+                    framed);
+            channel.configureBlocking(false);
+            room.add(channel);
+        }
+        for (SocketChannel channel : room) {
+            register(selector, channel);
+        }
+        Socket sender = new Socket("localhost", port);
+        sender.setTcpNoDelay(true);
+        InputStream senderIn = sender.getInputStream();
+        OutputStream out = sender.getOutputStream();
+        String name = prefix + "-sender";
+        login(senderIn, out, name, framed);
+
+        // Every message has the same size
+        int size = framed ? 5 + (name + ": m0000000").length()
+                : ("MESSAGE " + name + ": m0000000\n").length();
+        long start = received.get();
+        long allocated = allocated();
+        long[] gc = collections();
+        for (int i = 0; i < messages; i++) {
+            // Keep a window of messages on their way
+            long expected = start + (long) (i - WINDOW) * receivers * size;
+            while (received.get() < expected) {
+                Thread.sleep(0, 100000);
+            }
+            String body = String.format("m%07d", i);
+            out.write(framed ? frame(body) : ("MESSAGE\n" + body + "\n")
+                    .getBytes(StandardCharsets.UTF_8));
+            out.flush();
+        }
+        long expected = start + (long) messages * receivers * size;
+        while (received.get() < expected) {
+            Thread.sleep(1);
+        }
+        allocated = allocated() - allocated;
+        long[] after = collections();
+
+        sender.close();
+        for (SocketChannel channel : room) {
+            channel.close();
+        }
+        Thread.sleep(500);
+        return new long[]{allocated, after[0] - gc[0], after[1] - gc[1]};
+    }
+
+    /**
+     * Log in, following the chat protocol.
+     *
+     * @param in Input stream (read without buffering)
+     * @param out Output stream
+     * @param name Client name
+     * @param framed True to use the framed protocol
+     *
+     * @throws IOException The client could not log in
+     */
+    private static void login(InputStream in, OutputStream out, String name,
+            boolean framed) throws IOException {
+        String login = framed ? "LOGIN FRAMED" : "LOGIN";
+        out.write((login + "\n" + name + "\nEN\n")
+                .getBytes(StandardCharsets.UTF_8));
+        out.flush();
+        while (true) {
+            StringBuilder line = new StringBuilder();
+            int b;
+            while ((b = in.read()) != '\n') {
+                if (b < 0) {
+                    throw new IOException("Connection closed.");
+                }
+                line.append((char) b);
+            }
+            if (line.toString().startsWith("NAMEACCEPTED")) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Encode a chat message frame.
+     *
+     * @param body Message
+     *
+     * @return Frame bytes
+     */
+    private static byte[] frame(String body) {
+        byte[] payload = body.getBytes(StandardCharsets.UTF_8);
+        ByteBuffer frame = ByteBuffer.allocate(5 + payload.length);
+        frame.put((byte) 1).putInt(payload.length).put(payload);
+        return frame.array();
+    }
+
+    /**
+     * Register a receiver in the drain selector.
+     *
+     * @param selector Drain selector
+     * @param channel Receiver channel
+     *
+     * @throws IOException The channel is closed
+     */
+    private static void register(Selector selector, SocketChannel channel)
+            throws IOException {
+        synchronized (FanOutAllocation.class) {
+            selector.wakeup();
+            channel.register(selector, SelectionKey.OP_READ);
+        }
+    }
+
+    /**
+     * Read and count the bytes received by all the receivers.
+     *
+     * @param selector Drain selector
+     */
+    private static void drain(Selector selector) {
+        ByteBuffer buffer = ByteBuffer.allocateDirect(65536);
+        try {
+            while (true) {
+                selector.select();
+                // Let the registrations in
+                synchronized (FanOutAllocation.class) {
+                }
+                Iterator<SelectionKey> keys = selector.selectedKeys()
+                        .iterator();
+                while (keys.hasNext()) {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+                    SocketChannel channel = (SocketChannel) key.channel();
+                    try {
+                        int read;
+                        while ((read = channel.read(buffer)) > 0) {
+                            received.addAndGet(read);
+                            buffer.clear();
+                        }
+                        if (read < 0) {
+                            key.cancel();
+                        }
+                    } catch (IOException e) {
+                        key.cancel();
+                    }
+                }
+            }
+        } catch (IOException e) {
+            System.err.println(e);
+        }
+    }
+
+    /**
+     * Get the bytes allocated so far by the server threads (all the threads
+     * but the ones of the benchmark).
+     *
+     * @return Allocated bytes
+     */
+    private static long allocated() {
+        com.sun.management.ThreadMXBean threads
+                = (com.sun.management.ThreadMXBean) ManagementFactory
+                        .getThreadMXBean();
+        long total = 0;
+        for (Thread thread : Thread.getAllStackTraces().keySet()) {
+            if (thread == Thread.currentThread()
+                    || thread.getName().startsWith("bench-")) {
+                continue;
+            }
+            long bytes = threads.getThreadAllocatedBytes(thread.getId());
+            if (bytes > 0) {
+                total += bytes;
+            }
+        }
+        return total;
+    }
+
+    /**
+     * Get the number of collections and the collection time so far.
+     *
+     * @return Collections and milliseconds
+     */
+    private static long[] collections() {
+        long count = 0;
+        long time = 0;
+        for (GarbageCollectorMXBean gc
+                : ManagementFactory.getGarbageCollectorMXBeans()) {
+            count += Math.max(0, gc.getCollectionCount());
+            time += Math.max(0, gc.getCollectionTime());
+        }
+        return new long[]{count, time};
+    }
+}
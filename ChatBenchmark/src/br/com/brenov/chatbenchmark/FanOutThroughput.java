@@ -0,0 +1,288 @@
+/*
+ * GNU License.
+ */
+package br.com.brenov.chatbenchmark;
+
+import br.com.brenov.chatserver.ChatServer;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+/**
+ * Measures how many messages per second the server delivers to a busy room,
+ * and how many socket writes it needs. The server runs in this JVM with the
+ * local translator; one client sends messages as fast as the room reads them
+ * (keeping a window of messages on their way), and the CPU time of the server
+ * threads gives the deliveries per second of one core. The socket writes are
+ * read from the flush metrics of the server (-1 if it has none).
+ *
+ * Usage: FanOutThroughput [mode] [receivers,...] [messages] [window]
+ *
+ * @author Breno Viana
+ * @version 17/10/2026
+ */
+public class FanOutThroughput {
+
+    // Bytes received by all the receivers
+    private static final AtomicLong received = new AtomicLong();
+
+    /**
+     * Run the benchmark.
+     *
+     * @param args Server mode, room sizes, messages per room and window
+     *
+     * @throws Exception Benchmark error
+     */
+    public static void main(String[] args) throws Exception {
+        String mode = args.length > 0 ? args[0] : "nio";
+        String[] rooms = (args.length > 1 ? args[1] : "10,100,1000")
+                .split(",");
+        int messages = args.length > 2 ? Integer.parseInt(args[2]) : 5000;
+        int window = args.length > 3 ? Integer.parseInt(args[3]) : 256;
+
+        // Start the server in this JVM
+        int port;
+        try (ServerSocket free = new ServerSocket(0)) {
+            port = free.getLocalPort();
+        }
+        System.setProperty("understandme.port", String.valueOf(port));
+        System.setProperty("understandme.mode", mode);
+        System.setProperty("understandme.translator", "local");
+        Thread server = new Thread(() -> ChatServer.main(new String[0]),
+                "bench-server");
+        server.setDaemon(true);
+        server.start();
+        Thread.sleep(1000);
+
+        // Drain the receivers in one thread
+        Selector selector = Selector.open();
+        Thread drain = new Thread(() -> drain(selector), "bench-drain");
+        drain.setDaemon(true);
+        drain.start();
+
+        System.out.println("mode,receivers,messages,deliveries_per_s,"
+                + "deliveries_per_cpu_s,writes,messages_per_write");
+        int room = 0;
+        for (String size : rooms) {
+            int receivers = Integer.parseInt(size.trim());
+            // Warm up, then measure
+            run(port, selector, "warm" + room, receivers, messages, window);
+            long[] result = run(port, selector, "room" + room, receivers,
+                    messages, window);
+            long deliveries = (long) receivers * messages;
+            System.out.println(mode + "," + receivers + "," + messages + ","
+                    + deliveries * 1000000000L / result[0] + ","
+                    + (result[1] > 0 ? deliveries * 1000000000L / result[1]
+                            : -1) + "," + result[2] + ","
+                    + (result[2] > 0 ? String.format("%.2f",
+                            (double) deliveries / result[2]) : "-1"));
+            room++;
+        }
+        System.exit(0);
+    }
+
+    /**
+     * Log in a room of receivers, send the messages and close the room.
+     *
+     * @param port Server port
+     * @param selector Drain selector
+     * @param prefix Client names prefix
+     * @param receivers Number of receivers
+     * @param messages Number of messages
+     * @param window Messages sent before the previous ones are delivered
+     *
+     * @return Elapsed time, server CPU time (ns) and socket writes
+     *
+     * @throws IOException Connection error
+     * @throws InterruptedException Interrupted while waiting
+     */
+    private static long[] run(int port, Selector selector, String prefix,
+            int receivers, int messages, int window)
+            throws IOException, InterruptedException {
+        List<SocketChannel> room = new ArrayList<SocketChannel>();
+        for (int i = 0; i < receivers; i++) {
+            SocketChannel channel = SocketChannel.open(new InetSocketAddress(
+                    "localhost", port));
+            login(channel.socket().getInputStream(),
+                    channel.socket().getOutputStream(), prefix + "-" + i);
+            channel.configureBlocking(false);
+            room.add(channel);
+        }
+        for (SocketChannel channel : room) {
+            register(selector, channel);
+        }
+        Socket sender = new Socket("localhost", port);
+        sender.setTcpNoDelay(true);
+        OutputStream out = sender.getOutputStream();
+        String name = prefix + "-sender";
+        login(sender.getInputStream(), out, name);
+
+        // Every message has the same size
+        int size = ("MESSAGE " + name + ": m0000000\n").length();
+        long start = received.get();
+        long cpu = cpu();
+        long writes = writes();
+        long time = System.nanoTime();
+        for (int i = 0; i < messages; i++) {
+            // Keep a window of messages on their way
+            long expected = start + (long) (i - window) * receivers * size;
+            while (received.get() < expected) {
+                Thread.sleep(0, 100000);
+            }
+            out.write(("MESSAGE\n" + String.format("m%07d", i) + "\n")
+                    .getBytes(StandardCharsets.UTF_8));
+            out.flush();
+        }
+        long expected = start + (long) messages * receivers * size;
+        while (received.get() < expected) {
+            Thread.sleep(0, 100000);
+        }
+        time = System.nanoTime() - time;
+        cpu = cpu() - cpu;
+        writes = writes < 0 ? -1 : writes() - writes;
+
+        sender.close();
+        for (SocketChannel channel : room) {
+            channel.close();
+        }
+        Thread.sleep(500);
+        return new long[]{time, cpu, writes};
+    }
+
+    /**
+     * Log in, following the chat protocol.
+     *
+     * @param in Input stream (read without buffering)
+     * @param out Output stream
+     * @param name Client name
+     *
+     * @throws IOException The client could not log in
+     */
+    private static void login(InputStream in, OutputStream out, String name)
+            throws IOException {
+        out.write(("LOGIN\n" + name + "\nEN\n")
+                .getBytes(StandardCharsets.UTF_8));
+        out.flush();
+        while (true) {
+            StringBuilder line = new StringBuilder();
+            int b;
+            while ((b = in.read()) != '\n') {
+                if (b < 0) {
+                    throw new IOException("Connection closed.");
+                }
+                line.append((char) b);
+            }
+            if (line.toString().startsWith("NAMEACCEPTED")) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Register a receiver in the drain selector.
+     *
+     * @param selector Drain selector
+     * @param channel Receiver channel
+     *
+     * @throws IOException The channel is closed
+     */
+    private static void register(Selector selector, SocketChannel channel)
+            throws IOException {
+        synchronized (FanOutThroughput.class) {
+            selector.wakeup();
+            channel.register(selector, SelectionKey.OP_READ);
+        }
+    }
+
+    /**
+     * Read and count the bytes received by all the receivers.
+     *
+     * @param selector Drain selector
+     */
+    private static void drain(Selector selector) {
+        ByteBuffer buffer = ByteBuffer.allocateDirect(65536);
+        try {
+            while (true) {
+                selector.select();
+                // Let the registrations in
+                synchronized (FanOutThroughput.class) {
+                }
+                Iterator<SelectionKey> keys = selector.selectedKeys()
+                        .iterator();
+                while (keys.hasNext()) {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+                    SocketChannel channel = (SocketChannel) key.channel();
+                    try {
+                        int read;
+                        while ((read = channel.read(buffer)) > 0) {
+                            received.addAndGet(read);
+                            buffer.clear();
+                        }
+                        if (read < 0) {
+                            key.cancel();
+                        }
+                    } catch (IOException e) {
+                        key.cancel();
+                    }
+                }
+            }
+        } catch (IOException e) {
+            System.err.println(e);
+        }
+    }
+
+    /**
+     * Get the CPU time used so far by the server threads (all the threads but
+     * the ones of the benchmark).
+     *
+     * @return CPU time in nanoseconds
+     */
+    private static long cpu() {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        long total = 0;
+        for (Thread thread : Thread.getAllStackTraces().keySet()) {
+            if (thread == Thread.currentThread()
+                    || thread.getName().startsWith("bench-")) {
+                continue;
+            }
+            long time = threads.getThreadCpuTime(thread.getId());
+            if (time > 0) {
+                total += time;
+            }
+        }
+        return total;
+    }
+
+    /**
+     * Get the socket writes done so far by the server.
+     *
+     * @return Number of writes, or -1 if the server has no flush metrics
+     */
+    private static long writes() {
+        try {
+            return (Long) ManagementFactory.getPlatformMBeanServer()
+                    .getAttribute(new ObjectName(
+                            "br.com.brenov.chatserver:type=Flushes"),
+                            "Flushes");
+        } catch (JMException e) {
+            return -1;
+        }
+    }
+}
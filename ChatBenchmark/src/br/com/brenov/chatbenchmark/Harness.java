@@ -0,0 +1,172 @@
+/*
+ * GNU License.
+ */
+package br.com.brenov.chatbenchmark;
+
+import java.io.PrintStream;
+import java.util.Locale;
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * Small benchmark harness, in the spirit of JMH throughput mode: a benchmark
+ * runs an operation in a loop, in one or more threads, for a number of warmup
+ * iterations (not reported) and then of measured iterations of a fixed time.
+ * The score is the mean number of operations per second and the error is the
+ * half-width of its 99.9% confidence interval (normal approximation).
+ *
+ * Each result is printed as one CSV row:
+ *
+ * benchmark,mode,threads,samples,score,error,unit,params
+ *
+ * where params holds the benchmark parameters as "name=value" pairs separated
+ * by ";". {@link BenchmarkCompare} compares two result files.
+ *
+ * @author Breno Viana
+ * @version 17/10/2026
+ */
+public class Harness {
+
+    // CSV header
+    public static final String HEADER
+            = "benchmark,mode,threads,samples,score,error,unit,params";
+
+    /**
+     * A benchmarked operation.
+     */
+    public interface Operation {
+
+        /**
+         * Run the operation once.
+         *
+         * @param thread Index of the thread that runs it
+         *
+         * @return Any value computed by the operation (it is consumed, so the
+         * work is not optimized away)
+         *
+         * @throws Exception Operation error
+         */
+        long run(int thread) throws Exception;
+    }
+
+    // Consumes the values computed by the operations
+    private static volatile long sink;
+
+    // Number of warmup iterations
+    private final int warmups;
+    // Number of measured iterations
+    private final int iterations;
+    // Time of each iteration, in milliseconds
+    private final long time;
+    // Output
+    private final PrintStream out;
+    // True when the current iteration is over
+    private volatile boolean stop;
+
+    /**
+     * Construct a harness.
+     *
+     * @param warmups Number of warmup iterations
+     * @param iterations Number of measured iterations
+     * @param time Time of each iteration, in milliseconds
+     * @param out Output of the results
+     */
+    public Harness(int warmups, int iterations, long time, PrintStream out) {
+        this.warmups = warmups;
+        this.iterations = Math.max(2, iterations);
+        this.time = time;
+        this.out = out;
+    }
+
+    /**
+     * Run a benchmark and print its result.
+     *
+     * @param benchmark Benchmark name
+     * @param params Benchmark parameters ("name=value;...")
+     * @param threads Number of threads that run the operation
+     * @param operation Operation
+     *
+     * @return Score (operations per second)
+     *
+     * @throws Exception Operation error
+     */
+    public double run(String benchmark, String params, int threads,
+            Operation operation) throws Exception {
+        for (int i = 0; i < this.warmups; i++) {
+            iteration(threads, operation);
+        }
+        double[] scores = new double[this.iterations];
+        double sum = 0;
+        for (int i = 0; i < scores.length; i++) {
+            scores[i] = iteration(threads, operation);
+            sum += scores[i];
+        }
+        double mean = sum / scores.length;
+        double variance = 0;
+        for (double score : scores) {
+            variance += (score - mean) * (score - mean);
+        }
+        variance /= scores.length - 1;
+        double error = 3.291 * Math.sqrt(variance / scores.length);
+        this.out.println(String.format(Locale.ROOT,
+                "%s,thrpt,%d,%d,%.3f,%.3f,ops/s,%s", benchmark, threads,
+                scores.length, mean, error, params));
+        this.out.flush();
+        return mean;
+    }
+
+    /**
+     * Run one iteration.
+     *
+     * @param threads Number of threads
+     * @param operation Operation
+     *
+     * @return Operations per second
+     *
+     * @throws Exception Operation error
+     */
+    private double iteration(int threads, Operation operation)
+            throws Exception {
+        final CountDownLatch start = new CountDownLatch(1);
+        final long[] counts = new long[threads];
+        final Exception[] errors = new Exception[1];
+        Thread[] workers = new Thread[threads];
+        for (int t = 0; t < threads; t++) {
+            final int index = t;
+            workers[t] = new Thread(() -> {
+                long count = 0;
+                long value = 0;
+                try {
+                    start.await();
+                    while (!this.stop) {
+                        value += operation.run(index);
+                        count++;
+                    }
+                } catch (Exception e) {
+                    synchronized (errors) {
+                        errors[0] = e;
+                    }
+                }
+                counts[index] = count;
+                sink += value;
+            }, "bench-" + t);
+            workers[t].start();
+        }
+        this.stop = false;
+        long begin = System.nanoTime();
+        start.countDown();
+        Thread.sleep(this.time);
+        this.stop = true;
+        long elapsed = System.nanoTime() - begin;
+        long total = 0;
+        for (int t = 0; t < threads; t++) {
+            workers[t].join();
+            total += counts[t];
+        }
+        synchronized (errors) {
+            if (errors[0] != null) {
+                throw errors[0];
+            }
+        }
+        return total * 1e9 / elapsed;
+    }
+}
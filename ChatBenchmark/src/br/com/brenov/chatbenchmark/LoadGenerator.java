@@ -0,0 +1,393 @@
+/*
+ * GNU License.
+ */
+package br.com.brenov.chatbenchmark;
+
+import br.com.brenov.chatclient.protocol.ChatConnection;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Load generator: drives thousands of simulated users against a running chat
+ * server, through the same protocol code as the chat client
+ * ({@link ChatConnection}), without any user interface.
+ *
+ * The users log in with a mix of languages ("EN:50,PT:30,ES:20" means half of
+ * them in English, 30% in Portuguese and 20% in Spanish) and take turns to
+ * send messages, at a fixed total rate and of a fixed size. Each message
+ * carries its send time, so every recipient measures the end-to-end delivery
+ * latency (from the send to the receipt of the message, translated or not).
+ * Sender and recipients share the clock of this process, so the server should
+ * run on the same machine. With a room size, the users are spread over rooms
+ * of that size (and of all the languages), so each message only reaches the
+ * members of the room of its sender; without, everyone chats in the lobby.
+ *
+ * The port may be a list ("9001,9002,9003") of the nodes of a cluster: the
+ * users are spread over the nodes, and the members of each room too, so the
+ * messages are relayed between the nodes.
+ *
+ * Every interval a CSV row is printed with the messages sent, the deliveries
+ * received and the latency percentiles of the interval, followed by a total
+ * row (time "total") for the whole run:
+ *
+ * time_s,users,sent,received,deliveries_per_s,p50_ms,p90_ms,p99_ms,p999_ms,
+ * max_ms
+ *
+ * Usage: LoadGenerator [host] [port(s)] [users] [messages per second]
+ * [message size] [seconds] [language mix] [room size]
+ *
+ * @author Breno Viana
+ * @version 17/10/2026
+ */
+public class LoadGenerator {
+
+    // CSV header
+    private static final String HEADER = "time_s,users,sent,received,"
+            + "deliveries_per_s,p50_ms,p90_ms,p99_ms,p999_ms,max_ms";
+    // Prefix of the send time carried by the messages
+    private static final String STAMP = "t=";
+    // Stack size of the reader threads
+    private static final long STACK = 128 * 1024;
+
+    /**
+     * Latency histogram, in microseconds. Values below 64 have a bucket each;
+     * above, each power of two is split into 32 buckets, so the percentiles
+     * are within about 3% of the measured values.
+     */
+    static class Latencies {
+
+        // Sub-buckets of each power of two
+        private static final int SUB = 32;
+        // Number of buckets (up to 2^40 microseconds)
+        private static final int BUCKETS = 64 + 35 * SUB;
+
+        // Counts
+        private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+        // Maximum value
+        private volatile long max;
+
+        /**
+         * Get the bucket of a value.
+         *
+         * @param value Value
+         *
+         * @return Bucket index
+         */
+        private static int index(long value) {
+            if (value < 64) {
+                return (int) Math.max(0, value);
+            }
+            int msb = 63 - Long.numberOfLeadingZeros(value);
+            int shift = msb - 5;
+            return Math.min(BUCKETS - 1, 64 + (shift - 1) * SUB
+                    + (int) ((value >>> shift) & (SUB - 1)));
+        }
+
+        /**
+         * Get the highest value of a bucket.
+         *
+         * @param index Bucket index
+         *
+         * @return Highest value
+         */
+        private static long upper(int index) {
+            if (index < 64) {
+                return index;
+            }
+            int shift = (index - 64) / SUB + 1;
+            long sub = (index - 64) % SUB;
+            return ((SUB + sub + 1) << shift) - 1;
+        }
+
+        /**
+         * Record a value.
+         *
+         * @param value Value
+         */
+        void record(long value) {
+            this.counts.incrementAndGet(index(value));
+            if (value > this.max) {
+                synchronized (this) {
+                    this.max = Math.max(this.max, value);
+                }
+            }
+        }
+
+        /**
+         * Move the counts of this histogram into another one.
+         *
+         * @param total Histogram that receives the counts
+         */
+        synchronized void drainTo(Latencies total) {
+            for (int i = 0; i < BUCKETS; i++) {
+                long count = this.counts.getAndSet(i, 0);
+                if (count > 0) {
+                    total.counts.addAndGet(i, count);
+                }
+            }
+            total.max = Math.max(total.max, this.max);
+            this.max = 0;
+        }
+
+        /**
+         * Get the number of values.
+         *
+         * @return Count
+         */
+        long count() {
+            long count = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                count += this.counts.get(i);
+            }
+            return count;
+        }
+
+        /**
+         * Get a percentile.
+         *
+         * @param percentile Percentile (0 to 100)
+         *
+         * @return Highest value of the bucket of the percentile
+         */
+        long percentile(double percentile) {
+            long rank = (long) Math.ceil(count() * percentile / 100);
+            long seen = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                seen += this.counts.get(i);
+                if (seen >= Math.max(1, rank)) {
+                    return Math.min(upper(i), this.max);
+                }
+            }
+            return 0;
+        }
+
+        /**
+         * Get the maximum value.
+         *
+         * @return Maximum value
+         */
+        long max() {
+            return this.max;
+        }
+    }
+
+    /**
+     * Run the load.
+     *
+     * @param args Server address and ports, number of users, messages per
+     * second, message size, seconds, language mix and room size
+     *
+     * @throws Exception Load error
+     */
+    public static void main(String[] args) throws Exception {
+        String host = args.length > 0 ? args[0] : "localhost";
+        String[] ports = (args.length > 1 ? args[1] : "9001").split(",");
+        int users = args.length > 2 ? Integer.parseInt(args[2]) : 1000;
+        double rate = args.length > 3 ? Double.parseDouble(args[3]) : 10;
+        int size = args.length > 4 ? Integer.parseInt(args[4]) : 64;
+        int seconds = args.length > 5 ? Integer.parseInt(args[5]) : 30;
+        String[] languages = mix(args.length > 6 ? args[6] : "EN:100",
+                users);
+        int roomSize = args.length > 7 ? Integer.parseInt(args[7]) : 0;
+        int rooms = roomSize > 0 ? (users + roomSize - 1) / roomSize : 1;
+        int[] members = new int[rooms];
+
+        LongAdder received = new LongAdder();
+        Latencies interval = new Latencies();
+        List<ChatConnection> connections = new ArrayList<ChatConnection>();
+        String id = Long.toString(System.nanoTime() % 100000, 36);
+        long begin = System.nanoTime();
+        for (int i = 0; i < users; i++) {
+            ChatConnection connection = new ChatConnection(host,
+                    Integer.parseInt(ports[(i / rooms) % ports.length]));
+            if (!connection.login("load" + id + "-" + i, languages[i])) {
+                throw new IOException("Name refused: load" + id + "-" + i);
+            }
+            members[i % rooms]++;
+            if (roomSize > 0) {
+                connection.join("room-" + (i % rooms));
+            }
+            connections.add(connection);
+            receive(connection, i, received, interval);
+        }
+        System.err.println(String.format(Locale.ROOT,
+                "%d users logged in in %.1f s", users,
+                (System.nanoTime() - begin) / 1e9));
+        // Wait for the login messages of the last users
+        Thread.sleep(1000);
+        received.reset();
+        interval.drainTo(new Latencies());
+
+        System.out.println(HEADER);
+        String padding = padding(size);
+        Latencies total = new Latencies();
+        long sent = 0;
+        long reported = 0;
+        long totalReceived = 0;
+        long expected = 0;
+        long period = (long) (1e9 / rate);
+        begin = System.nanoTime();
+        long end = begin + seconds * 1000000000L;
+        long next = begin;
+        long report = begin + 1000000000L;
+        while (true) {
+            long now = System.nanoTime();
+            if (now >= report) {
+                long count = received.sumThenReset();
+                totalReceived += count;
+                Latencies current = new Latencies();
+                interval.drainTo(current);
+                print(String.format(Locale.ROOT, "%.0f",
+                        (report - begin) / 1e9), users, sent - reported,
+                        count, count, current);
+                current.drainTo(total);
+                reported = sent;
+                report += 1000000000L;
+                if (report > end) {
+                    break;
+                }
+            } else if (now >= next && now < end) {
+                int user = (int) (sent % users);
+                connections.get(user).send(STAMP + System.nanoTime() + " "
+                        + padding);
+                expected += members[user % rooms] - 1;
+                sent++;
+                next += period;
+            } else {
+                LockSupport.parkNanos(Math.min(next, report) - now);
+            }
+        }
+        // Wait for the last deliveries
+        Thread.sleep(2000);
+        totalReceived += received.sumThenReset();
+        interval.drainTo(total);
+        print("total", users, sent, totalReceived,
+                (double) totalReceived / seconds, total);
+        System.err.println("Lost deliveries: " + Math.max(0,
+                expected - totalReceived) + " of " + expected);
+        for (ChatConnection connection : connections) {
+            connection.close();
+        }
+        System.exit(0);
+    }
+
+    /**
+     * Split the users by language.
+     *
+     * @param mix Language mix ("EN:50,PT:30,ES:20")
+     * @param users Number of users
+     *
+     * @return Language of each user
+     */
+    private static String[] mix(String mix, int users) {
+        String[] parts = mix.split(",");
+        String[] ids = new String[parts.length];
+        double[] weights = new double[parts.length];
+        double sum = 0;
+        for (int i = 0; i < parts.length; i++) {
+            String[] part = parts[i].split(":");
+            ids[i] = part[0].trim().toUpperCase(Locale.ROOT);
+            weights[i] = part.length > 1 ? Double.parseDouble(part[1]) : 1;
+            sum += weights[i];
+        }
+        String[] languages = new String[users];
+        double share = 0;
+        int user = 0;
+        for (int i = 0; i < parts.length; i++) {
+            share += weights[i] / sum;
+            int last = i == parts.length - 1 ? users
+                    : (int) Math.round(share * users);
+            while (user < last) {
+                languages[user++] = ids[i];
+            }
+        }
+        return languages;
+    }
+
+    /**
+     * Build the padding of the messages, so each message has the given size.
+     *
+     * @param size Message size
+     *
+     * @return Padding
+     */
+    private static String padding(int size) {
+        // Send time stamp and separator
+        int length = Math.max(1, size - STAMP.length() - 20);
+        StringBuilder padding = new StringBuilder(length);
+        String words = "the quick brown fox jumps over the lazy dog ";
+        while (padding.length() < length) {
+            padding.append(words);
+        }
+        padding.setLength(length);
+        return padding.toString().trim();
+    }
+
+    /**
+     * Start the reader of a user: it records the latency of the messages that
+     * carry a send time and counts them.
+     *
+     * @param connection Connection of the user
+     * @param user User index
+     * @param received Counter of the received messages
+     * @param latencies Latency histogram
+     */
+    private static void receive(ChatConnection connection, int user,
+            LongAdder received, Latencies latencies) {
+        Thread reader = new Thread(null, () -> {
+            try {
+                while (true) {
+                    String message = connection.readMessage();
+                    long now = System.nanoTime();
+                    if (message == null) {
+                        continue;
+                    }
+                    // "name: t=<nanos> ..." (translated or not)
+                    int start = message.indexOf(STAMP);
+                    if (start < 0) {
+                        continue;
+                    }
+                    int end = message.indexOf(' ', start);
+                    try {
+                        long sent = Long.parseLong(message.substring(
+                                start + STAMP.length(), end < 0
+                                ? message.length() : end));
+                        latencies.record((now - sent) / 1000);
+                        received.increment();
+                    } catch (NumberFormatException ex) {
+                        // Not a stamp (changed by the translation)
+                    }
+                }
+            } catch (IOException ex) {
+                // Connection closed
+            }
+        }, "load-reader-" + user, STACK);
+        reader.setDaemon(true);
+        reader.start();
+    }
+
+    /**
+     * Print a CSV row.
+     *
+     * @param time Time of the row
+     * @param users Number of users
+     * @param sent Messages sent
+     * @param received Deliveries received
+     * @param rate Deliveries per second
+     * @param latencies Latency histogram
+     */
+    private static void print(String time, int users, long sent,
+            long received, double rate, Latencies latencies) {
+        System.out.println(String.format(Locale.ROOT,
+                "%s,%d,%d,%d,%.0f,%.3f,%.3f,%.3f,%.3f,%.3f", time, users, sent,
+                received, rate, latencies.percentile(50) / 1e3,
+                latencies.percentile(90) / 1e3, latencies.percentile(99) / 1e3,
+                latencies.percentile(99.9) / 1e3, latencies.max() / 1e3));
+        System.out.flush();
+    }
+}
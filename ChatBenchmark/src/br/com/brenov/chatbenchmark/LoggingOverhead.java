@@ -0,0 +1,148 @@
+/*
+ * GNU License.
+ */
+package br.com.brenov.chatbenchmark;
+
+import br.com.brenov.chatserver.log.LogLevel;
+import br.com.brenov.chatserver.log.ServerLog;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Measures the cost of logging the events of each message, from several
+ * threads at once, as the server threads do. The events of one message are the
+ * message received and its translation to one language:
+ *
+ * - "println": the lines the server used to print to the standard output
+ * ("Sent by", "Original message" and "Message translated");
+ * - "info", "debug" and "warn": the server log at that level (at INFO level
+ * one message in 100 is logged, without its text; at WARN level none is).
+ *
+ * The standard output is redirected to a file. The CPU time of the threads
+ * that log is the cost on the message path; the total CPU time also counts
+ * the log writer, once it has written everything.
+ *
+ * Usage: LoggingOverhead [threads] [messages per thread] [file]
+ *
+ * @author Breno Viana
+ * @version 17/10/2026
+ */
+public class LoggingOverhead {
+
+    // Message text
+    private static final String TEXT = "Hello, how are you doing today?";
+
+    /**
+     * Run the benchmark.
+     *
+     * @param args Number of threads, messages per thread and output file
+     *
+     * @throws Exception Benchmark error
+     */
+    public static void main(String[] args) throws Exception {
+        int threads = args.length > 0 ? Integer.parseInt(args[0]) : 4;
+        int messages = args.length > 1 ? Integer.parseInt(args[1]) : 200000;
+        File file = args.length > 2 ? new File(args[2])
+                : File.createTempFile("understandme", ".log");
+        file.deleteOnExit();
+
+        PrintStream console = System.out;
+        // The same kind of stream as the standard output
+        System.setOut(new PrintStream(new FileOutputStream(file), true));
+        ServerLog.start(LogLevel.INFO, 100, 8192);
+
+        console.println("mode,threads,messages,caller_ns_per_message,"
+                + "total_cpu_ns_per_message,log_bytes_per_message");
+        for (String mode : new String[]{"println", "info", "debug", "warn",
+            "println", "info", "debug", "warn"}) {
+            switch (mode) {
+                case "info":
+                    ServerLog.start(LogLevel.INFO, 100, 8192);
+                    break;
+                case "debug":
+                    ServerLog.start(LogLevel.DEBUG, 100, 8192);
+                    break;
+                case "warn":
+                    ServerLog.start(LogLevel.WARN, 100, 8192);
+                    break;
+                default:
+                    break;
+            }
+            long size = file.length();
+            long total = cpu();
+            long caller = run(mode, threads, messages);
+            // Wait for the log writer
+            long written;
+            do {
+                written = file.length();
+                Thread.sleep(200);
+            } while (file.length() != written);
+            total = cpu() - total;
+            long count = (long) threads * messages;
+            console.println(mode + "," + threads + "," + messages + ","
+                    + caller / count + "," + total / count + ","
+                    + (written - size) / count);
+        }
+        System.exit(0);
+    }
+
+    /**
+     * Log the events of the messages from several threads.
+     *
+     * @param mode Logging mode
+     * @param threads Number of threads
+     * @param messages Messages logged by each thread
+     *
+     * @return CPU time of the threads (ns)
+     *
+     * @throws InterruptedException Interrupted while waiting
+     */
+    private static long run(String mode, int threads, int messages)
+            throws InterruptedException {
+        ThreadMXBean beans = ManagementFactory.getThreadMXBean();
+        long[] times = new long[threads];
+        List<Thread> workers = new ArrayList<Thread>();
+        for (int t = 0; t < threads; t++) {
+            final int index = t;
+            final String name = "client" + t;
+            Thread worker = new Thread(() -> {
+                long start = beans.getCurrentThreadCpuTime();
+                for (int i = 0; i < messages; i++) {
+                    if (mode.equals("println")) {
+                        System.out.println("Sent by: " + name);
+                        System.out.println("Original message: " + TEXT);
+                        System.out.println("Message translated (PT, 10 "
+                                + "clients): " + TEXT);
+                    } else {
+                        ServerLog.received(name, TEXT);
+                        ServerLog.translated("PT", 10, TEXT);
+                    }
+                }
+                times[index] = beans.getCurrentThreadCpuTime() - start;
+            }, "bench-" + t);
+            workers.add(worker);
+            worker.start();
+        }
+        long total = 0;
+        for (int t = 0; t < threads; t++) {
+            workers.get(t).join();
+            total += times[t];
+        }
+        return total;
+    }
+
+    /**
+     * Get the CPU time used so far by the process.
+     *
+     * @return CPU time in nanoseconds
+     */
+    private static long cpu() {
+        return ((com.sun.management.OperatingSystemMXBean) ManagementFactory
+                .getOperatingSystemMXBean()).getProcessCpuTime();
+    }
+}
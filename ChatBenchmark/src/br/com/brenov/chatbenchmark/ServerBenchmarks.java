@@ -0,0 +1,308 @@
+/*
+ * GNU License.
+ */
+package br.com.brenov.chatbenchmark;
+
+import br.com.brenov.chatserver.control.MessagePipeline;
+import br.com.brenov.chatserver.control.SessionRegistry;
+import br.com.brenov.chatserver.log.LogLevel;
+import br.com.brenov.chatserver.log.ServerLog;
+import br.com.brenov.chatserver.metrics.ServerMetrics;
+import br.com.brenov.chatserver.protocol.BufferPool;
+import br.com.brenov.chatserver.protocol.Frame;
+import br.com.brenov.chatserver.protocol.ProtocolReader;
+import br.com.brenov.chatserver.protocol.SharedBuffer;
+import br.com.brenov.chatserver.translation.LocalTranslator;
+import br.com.brenov.chatserver.translation.TranslationBatcher;
+import br.com.brenov.chatserver.translation.TranslationCache;
+import br.com.brenov.chatserver.translation.Translator;
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Pattern;
+
+/**
+ * Benchmarks of the server paths, without sockets, run with {@link Harness}:
+ *
+ * - login: clients logging in to and out of the session registry at the same
+ * time, with unique names or with the same names (refused logins);
+ * - parse and encode: reading messages with the protocol reader, as lines and
+ * as frames, and encoding the messages sent to the recipients;
+ * - fanout: messages going through the message pipeline to N recipients of M
+ * languages (one operation is one message, queued to all its recipients);
+ * - translate: translation lookups through the translation batcher, found in
+ * the cache or sent to a stubbed translator (the local translator, without
+ * latency).
+ *
+ * The results are printed as CSV (see {@link Harness}), so the output of two
+ * versions can be compared with {@link BenchmarkCompare}.
+ *
+ * Usage: ServerBenchmarks [benchmark regex] [warmups] [iterations]
+ * [milliseconds]
+ *
+ * @author Breno Viana
+ * @version 17/10/2026
+ */
+public class ServerBenchmarks {
+
+    // Languages of the clients
+    private static final String[] LANGUAGES = {"EN", "PT", "ES", "DE", "FR",
+        "IT", "NL", "JA"};
+    // Short message
+    private static final String SHORT = "Hello, how are you doing today?";
+    // Long message
+    private static final String LONG = repeat(SHORT + " ", 32);
+    // Maximum size of a protocol line or frame payload
+    private static final int MAX = 65536;
+    // Messages on their way in the fan-out benchmark
+    private static final int WINDOW = 64;
+
+    /**
+     * Run the benchmarks.
+     *
+     * @param args Benchmark filter, warmup and measured iterations, and time
+     * of each iteration
+     *
+     * @throws Exception Benchmark error
+     */
+    public static void main(String[] args) throws Exception {
+        Pattern filter = Pattern.compile(args.length > 0 ? args[0] : ".*");
+        int warmups = args.length > 1 ? Integer.parseInt(args[1]) : 3;
+        int iterations = args.length > 2 ? Integer.parseInt(args[2]) : 5;
+        long time = args.length > 3 ? Long.parseLong(args[3]) : 1000;
+
+        // Only the server problems are logged
+        ServerLog.start(LogLevel.WARN, 0, 1024);
+        Harness harness = new Harness(warmups, iterations, time, System.out);
+        System.out.println(Harness.HEADER);
+        for (int threads : new int[]{1, 4}) {
+            for (boolean shared : new boolean[]{false, true}) {
+                if (filter.matcher("login").find()) {
+                    login(harness, threads, shared);
+                }
+            }
+        }
+        for (boolean framed : new boolean[]{false, true}) {
+            if (filter.matcher("parse").find()) {
+                parse(harness, framed);
+            }
+            for (String text : new String[]{SHORT, LONG}) {
+                if (filter.matcher("encode").find()) {
+                    encode(harness, framed, text);
+                }
+            }
+        }
+        for (int recipients : new int[]{10, 100, 1000}) {
+            for (int languages : new int[]{1, 4}) {
+                if (filter.matcher("fanout").find()) {
+                    fanOut(harness, recipients, languages);
+                }
+            }
+        }
+        for (int threads : new int[]{1, 4}) {
+            for (boolean cached : new boolean[]{true, false}) {
+                if (filter.matcher("translate").find()) {
+                    translate(harness, threads, cached);
+                }
+            }
+        }
+        System.exit(0);
+    }
+
+    /**
+     * Repeat a text.
+     *
+     * @param text Text
+     * @param times Number of times
+     *
+     * @return Repeated text
+     */
+    private static String repeat(String text, int times) {
+        StringBuilder repeated = new StringBuilder();
+        for (int i = 0; i < times; i++) {
+            repeated.append(text);
+        }
+        return repeated.toString();
+    }
+
+    /**
+     * Log in and out of the session registry. Each operation is one login and
+     * one logout.
+     *
+     * @param harness Harness
+     * @param threads Number of threads
+     * @param shared True if the threads use the same names
+     *
+     * @throws Exception Benchmark error
+     */
+    private static void login(Harness harness, int threads, boolean shared)
+            throws Exception {
+        SessionRegistry registry = new SessionRegistry();
+        LongAdder received = new LongAdder();
+        StubSession[][] sessions = new StubSession[threads][256];
+        for (int t = 0; t < threads; t++) {
+            for (int i = 0; i < sessions[t].length; i++) {
+                sessions[t][i] = new StubSession(shared ? "client" + i
+                        : "client" + t + "-" + i, LANGUAGES[0], received);
+            }
+        }
+        // One padded counter for each thread
+        int[] next = new int[threads * 16];
+        harness.run("login", "names=" + (shared ? "shared" : "unique"),
+                threads, thread -> {
+                    StubSession session = sessions[thread][next[thread * 16]++
+                            & 255];
+                    if (!registry.register(session)) {
+                        return 0;
+                    }
+                    registry.unregister(session);
+                    return 1;
+                });
+    }
+
+    /**
+     * Read messages with the protocol reader. Each operation is one message
+     * ("MESSAGE" and the message lines, or one frame).
+     *
+     * @param harness Harness
+     * @param framed True to read frames
+     *
+     * @throws Exception Benchmark error
+     */
+    private static void parse(Harness harness, boolean framed)
+            throws Exception {
+        ByteArrayOutputStream stream = new ByteArrayOutputStream();
+        for (int i = 0; i < 4096; i++) {
+            String text = SHORT + " " + i;
+            stream.write(framed ? Frame.encode(Frame.MESSAGE, text)
+                    : ("MESSAGE\n" + text + "\n")
+                            .getBytes(StandardCharsets.UTF_8));
+        }
+        byte[] data = stream.toByteArray();
+        ProtocolReader[] readers = new ProtocolReader[1];
+        harness.run("parse", "protocol=" + (framed ? "frames" : "lines"), 1,
+                thread -> {
+                    String message = read(readers[0], framed);
+                    if (message == null) {
+                        readers[0] = new ProtocolReader(new BufferedInputStream(
+                                new ByteArrayInputStream(data)), MAX);
+                        message = read(readers[0], framed);
+                    }
+                    return message.length();
+                });
+    }
+
+    /**
+     * Read a message.
+     *
+     * @param reader Protocol reader (null if there is none yet)
+     * @param framed True to read a frame
+     *
+     * @return Message, or null at the end of the stream
+     *
+     * @throws IOException Read error
+     */
+    private static String read(ProtocolReader reader, boolean framed)
+            throws IOException {
+        if (reader == null) {
+            return null;
+        }
+        if (framed) {
+            return reader.readFrame() < 0 ? null : reader.getPayload();
+        }
+        return reader.readLine() == null ? null : reader.readLine();
+    }
+
+    /**
+     * Encode the messages sent to the recipients into pooled buffers. Each
+     * operation is one message.
+     *
+     * @param harness Harness
+     * @param framed True to encode frames
+     * @param text Message
+     *
+     * @throws Exception Benchmark error
+     */
+    private static void encode(Harness harness, boolean framed, String text)
+            throws Exception {
+        BufferPool pool = new BufferPool(MAX + Frame.HEADER, 256, false, 0);
+        harness.run("encode", "protocol=" + (framed ? "frames" : "lines")
+                + ";length=" + text.length(), 1, thread -> {
+                    SharedBuffer buffer = Frame.encodeMessage(pool, "client",
+                            text, framed, MAX);
+                    int size = buffer.size();
+                    buffer.release();
+                    return size;
+                });
+    }
+
+    /**
+     * Send messages through the message pipeline to a room of recipients.
+     * Each operation is one message, queued to all the recipients.
+     *
+     * @param harness Harness
+     * @param recipients Number of recipients
+     * @param languages Number of languages of the recipients
+     *
+     * @throws Exception Benchmark error
+     */
+    private static void fanOut(Harness harness, int recipients, int languages)
+            throws Exception {
+        SessionRegistry registry = new SessionRegistry();
+        LongAdder received = new LongAdder();
+        for (int i = 0; i < recipients; i++) {
+            registry.register(new StubSession("client" + i,
+                    LANGUAGES[i % languages], received));
+        }
+        StubSession from = new StubSession("sender", LANGUAGES[0], received);
+        Translator translator = new LocalTranslator(null, 0, 0, 0);
+        MessagePipeline pipeline = new MessagePipeline(
+                new TranslationBatcher(translator, null, 2, 1, 0), 2,
+                new BufferPool(MAX + Frame.HEADER, 256, false, 0), MAX,
+                new ServerMetrics(registry, null));
+        MessagePipeline.Sender sender = pipeline.newSender();
+        long[] sent = new long[1];
+        harness.run("fanout", "recipients=" + recipients + ";languages="
+                + languages, 1, thread -> {
+                    // Keep a window of messages on their way
+                    long expected = (sent[0] - WINDOW) * recipients;
+                    while (received.sum() < expected) {
+                        Thread.yield();
+                    }
+                    sender.send(from, SHORT, registry.byLanguage());
+                    sent[0]++;
+                    return 0;
+                });
+    }
+
+    /**
+     * Translate messages through the translation batcher and wait for them.
+     * Each operation is one message.
+     *
+     * @param harness Harness
+     * @param threads Number of threads
+     * @param cached True if the translations are in the cache
+     *
+     * @throws Exception Benchmark error
+     */
+    private static void translate(Harness harness, int threads,
+            boolean cached) throws Exception {
+        Translator translator = new LocalTranslator(null, 0, 0, 0);
+        TranslationBatcher batcher = new TranslationBatcher(translator,
+                cached ? new TranslationCache(10000, 0) : null, 2, 1, 0);
+        String[] texts = new String[1024];
+        for (int i = 0; i < texts.length; i++) {
+            texts[i] = SHORT + " " + i;
+            batcher.translate(texts[i], "EN", "PT").join();
+        }
+        // One padded counter for each thread
+        int[] next = new int[threads * 16];
+        harness.run("translate", "cache=" + (cached ? "hit" : "none"),
+                threads, thread -> batcher.translate(
+                        texts[next[thread * 16]++ & 1023], "EN", "PT").join()
+                        .length());
+    }
+}
@@ -0,0 +1,88 @@
+/*
+ * GNU License.
+ */
+package br.com.brenov.chatbenchmark;
+
+import br.com.brenov.chatserver.model.Session;
+import br.com.brenov.chatserver.protocol.SharedBuffer;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A client without a connection: it only counts the messages sent to it, in a
+ * counter that may be shared by many sessions.
+ *
+ * @author Breno Viana
+ * @version 17/10/2026
+ */
+class StubSession implements Session {
+
+    // Client name
+    private final String name;
+    // Client language
+    private final String language;
+    // Messages sent to the clients
+    private final LongAdder received;
+
+    /**
+     * Construct a session.
+     *
+     * @param name Client name
+     * @param language Client language
+     * @param received Counter of the messages sent to the clients
+     */
+    StubSession(String name, String language, LongAdder received) {
+        this.name = name;
+        this.language = language;
+        this.received = received;
+    }
+
+    /**
+     * Get client name.
+     *
+     * @return Client name
+     */
+    @Override
+    public String getName() {
+        return this.name;
+    }
+
+    /**
+     * Get client language.
+     *
+     * @return Client language
+     */
+    @Override
+    public String getLanguage() {
+        return this.language;
+    }
+
+    /**
+     * Check if the client uses the framed protocol.
+     *
+     * @return False (the messages are sent as lines)
+     */
+    @Override
+    public boolean isFramed() {
+        return false;
+    }
+
+    /**
+     * Get the number of messages waiting to be sent to the client.
+     *
+     * @return 0 (the messages are not queued)
+     */
+    @Override
+    public int getQueued() {
+        return 0;
+    }
+
+    /**
+     * Count a message sent to the client.
+     *
+     * @param message Encoded message
+     */
+    @Override
+    public void send(SharedBuffer message) {
+        this.received.increment();
+    }
+}
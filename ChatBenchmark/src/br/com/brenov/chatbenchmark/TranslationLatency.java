@@ -0,0 +1,197 @@
+/*
+ * GNU License.
+ */
+package br.com.brenov.chatbenchmark;
+
+import br.com.brenov.chatserver.translation.GoogleTranslator;
+import com.google.api.client.http.javanet.NetHttpTransport;
+import com.sun.net.httpserver.HttpsConfigurator;
+import com.sun.net.httpserver.HttpsServer;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.security.KeyStore;
+import java.util.Arrays;
+import javax.net.ssl.KeyManagerFactory;
+import javax.net.ssl.SSLContext;
+
+/**
+ * Measures the latency of a translation call against a local HTTPS stand-in of
+ * the Google Cloud Translation API, in two ways:
+ *
+ * - "per-call": a new transport and translator for each call, as the chat
+ * handlers used to do (new trust store, new connection and TLS handshake);
+ * - "shared": one translator with a pool of keep-alive connections, as the
+ * server does now.
+ *
+ * Usage: TranslationLatency [calls] [warmup calls]
+ *
+ * @author Breno Viana
+ * @version 17/10/2026
+ */
+public class TranslationLatency {
+
+    // Key store password
+    private static final char[] PASSWORD = "understandme".toCharArray();
+
+    /**
+     * Runs the benchmark.
+     *
+     * @param args Number of calls and number of warmup calls
+     *
+     * @throws Exception Benchmark error
+     */
+    public static void main(String[] args) throws Exception {
+        int calls = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+        int warmup = args.length > 1 ? Integer.parseInt(args[1]) : 200;
+
+        // Answer without waiting for delayed ACKs
+        System.setProperty("sun.net.httpserver.nodelay", "true");
+        KeyStore keys = createKeyStore();
+        HttpsServer server = startStandIn(keys);
+        String rootUrl = "https://localhost:" + server.getAddress().getPort()
+                + "/";
+        try {
+            System.out.println("mode,calls,mean_us,p50_us,p99_us");
+            // A new transport and translator for each call
+            Call perCall = () -> new GoogleTranslator("KEY",
+                    new NetHttpTransport.Builder().trustCertificates(keys)
+                            .build(), rootUrl).translate("hello", "en", "pt");
+            run(perCall, warmup);
+            print("per-call", run(perCall, calls));
+            // One translator shared by all the calls
+            GoogleTranslator shared = new GoogleTranslator("KEY",
+                    GoogleTranslator.newTransport(keys, 20), rootUrl);
+            Call sharedCall = () -> shared.translate("hello", "en", "pt");
+            run(sharedCall, warmup);
+            print("shared", run(sharedCall, calls));
+        } finally {
+            server.stop(0);
+        }
+    }
+
+    /**
+     * A translation call.
+     */
+    private interface Call {
+
+        /**
+         * Run the call.
+         *
+         * @throws Exception Call error
+         */
+        void run() throws Exception;
+    }
+
+    /**
+     * Run a call many times.
+     *
+     * @param call Call
+     * @param calls Number of calls
+     *
+     * @return Latency of each call, in nanoseconds
+     *
+     * @throws Exception Call error
+     */
+    private static long[] run(Call call, int calls)
+            throws Exception {
+        long[] latencies = new long[calls];
+        for (int i = 0; i < calls; i++) {
+            long start = System.nanoTime();
+            call.run();
+            latencies[i] = System.nanoTime() - start;
+        }
+        return latencies;
+    }
+
+    /**
+     * Print the latency summary as a CSV line.
+     *
+     * @param mode Benchmark mode
+     * @param latencies Latency of each call, in nanoseconds
+     */
+    private static void print(String mode, long[] latencies) {
+        long[] sorted = latencies.clone();
+        Arrays.sort(sorted);
+        long sum = 0;
+        for (long l : sorted) {
+            sum += l;
+        }
+        System.out.println(mode + "," + sorted.length + ","
+                + (sum / sorted.length / 1000) + ","
+                + (sorted[sorted.length / 2] / 1000) + ","
+                + (sorted[(int) (sorted.length * 0.99)] / 1000));
+    }
+
+    /**
+     * Create a key store with a self-signed certificate for "localhost".
+     *
+     * @return Key store
+     *
+     * @throws Exception The key store could not be created
+     */
+    private static KeyStore createKeyStore() throws Exception {
+        File file = File.createTempFile("understandme", ".jks");
+        file.delete();
+        file.deleteOnExit();
+        String keytool = System.getProperty("java.home") + File.separator
+                + "bin" + File.separator + "keytool";
+        Process p = new ProcessBuilder(keytool, "-genkeypair", "-alias",
+                "localhost", "-keyalg", "RSA", "-keysize", "2048", "-validity",
+                "1", "-dname", "CN=localhost", "-ext", "SAN=dns:localhost",
+                "-storetype", "JKS", "-keystore", file.getPath(), "-storepass",
+                new String(PASSWORD), "-keypass", new String(PASSWORD))
+                .inheritIO().start();
+        if (p.waitFor() != 0) {
+            throw new IOException("keytool failed");
+        }
+        KeyStore keys = KeyStore.getInstance("JKS");
+        try (InputStream in = new FileInputStream(file)) {
+            keys.load(in, PASSWORD);
+        }
+        return keys;
+    }
+
+    /**
+     * Start an HTTPS server that answers every request as the translation API,
+     * returning the text unchanged.
+     *
+     * @param keys Server key store
+     *
+     * @return Server
+     *
+     * @throws Exception The server could not be started
+     */
+    private static HttpsServer startStandIn(KeyStore keys) throws Exception {
+        KeyManagerFactory kmf = KeyManagerFactory.getInstance(
+                KeyManagerFactory.getDefaultAlgorithm());
+        kmf.init(keys, PASSWORD);
+        SSLContext ssl = SSLContext.getInstance("TLS");
+        ssl.init(kmf.getKeyManagers(), null, null);
+        HttpsServer server = HttpsServer.create(
+                new InetSocketAddress("localhost", 0), 0);
+        server.setHttpsConfigurator(new HttpsConfigurator(ssl));
+        server.createContext("/", exchange -> {
+            byte[] body = ("{\"data\":{\"translations\":"
+                    + "[{\"translatedText\":\"hello\"}]}}")
+                    .getBytes(StandardCharsets.UTF_8);
+            // Consume the request
+            try (InputStream in = exchange.getRequestBody()) {
+                while (in.read() != -1) {
+                }
+            }
+            exchange.getResponseHeaders().set("Content-Type",
+                    "application/json; charset=UTF-8");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        server.start();
+        return server;
+    }
+}
@@ -4,13 +4,12 @@
 package br.com.brenov.chatclient;
 
 import br.com.brenov.chatclient.control.ClientHandler;
-import br.com.brenov.chatclient.model.Client;
 
 /**
  * Chat main class.
  *
  * @author Breno Viana
- * @version 22/07/2017
+ * @version 17/10/2026
  */
 public class ChatClient {
 
@@ -21,6 +20,6 @@ public class ChatClient {
      */
     public static void main(String[] args) {
         // Create the client handler and starts client
-        (new ClientHandler(Client.getInstance())).run();
+        (new ClientHandler()).run();
     }
 }
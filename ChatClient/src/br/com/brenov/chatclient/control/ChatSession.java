@@ -0,0 +1,466 @@
+/*
+ * GNU License.
+ */
+package br.com.brenov.chatclient.control;
+
+import br.com.brenov.chatclient.model.Client;
+import br.com.brenov.chatclient.model.Language;
+import br.com.brenov.chatclient.protocol.ChatConnection;
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * A chat session, without any user interface: connect, log in, send messages,
+ * change rooms and receive the messages of the other clients through a
+ * listener. Each session has its own connection and one receiver thread, so
+ * many sessions can run in the same process (bots, tests, gateways).
+ *
+ * <pre>
+ * ChatSession session = new ChatSession("localhost", 9001, listener);
+ * if (session.login("bot", Language.ENGLISH)) {
+ *     session.send("Hello!");
+ * }
+ * </pre>
+ *
+ * The listener is called by the executor given to the session: the chat
+ * window uses the event dispatch thread; the default runs the listener in the
+ * receiver thread. Messages received while the executor is still busy with
+ * the previous ones are given to the listener together.
+ *
+ * When the connection is lost, the session connects again by itself, waiting
+ * a random time that doubles after each failed attempt (so the clients of a
+ * restarted server do not all come back at once), and logs in with the resume
+ * token sent by the server: if the server kept the session, the client gets
+ * back its room and the messages sent meanwhile; otherwise it joins its room
+ * again. {@link #close()} tells the server that the client leaves for good.
+ *
+ * @author Breno Viana
+ * @version 17/10/2026
+ */
+public class ChatSession implements Closeable {
+
+    /**
+     * Listener of a session. Its methods are called by the executor of the
+     * session.
+     */
+    public interface Listener {
+
+        /**
+         * Messages were received.
+         *
+         * @param messages Messages ("name: text"), in the order received
+         */
+        void received(List<String> messages);
+
+        /**
+         * The session was closed: by {@link ChatSession#close()}, or because
+         * it could not connect again.
+         *
+         * @param error Why the session could not connect again, or null if it
+         * was closed by the client
+         */
+        void closed(IOException error);
+
+        /**
+         * The connection was lost, and the session is connecting again.
+         *
+         * @param error Error that closed the connection
+         */
+        default void reconnecting(IOException error) {
+        }
+
+        /**
+         * The session is connected again.
+         *
+         * @param resumed True if the server kept the session (and the
+         * messages sent meanwhile), false if the client joined its room again
+         */
+        default void reconnected(boolean resumed) {
+        }
+    }
+
+    // Shortest wait before connecting again (ms)
+    private static final long BACKOFF_MIN = 250;
+    // Longest wait before connecting again (ms)
+    private static final long BACKOFF_MAX = 30000;
+    // How long the session waits for the server to free its name (ms)
+    private static final long USED_TIMEOUT = 60000;
+
+    // Client
+    private final Client client = new Client();
+    // Server port
+    private final int port;
+    // Listener
+    private final Listener listener;
+    // Runs the listener
+    private final Executor executor;
+    // Receiver of the messages (null until the login)
+    private volatile MessageReceiver receiver;
+    // Resume token
+    private volatile String token;
+    // Room of the client (null in the lobby)
+    private volatile String room;
+    // True if the session was closed
+    private volatile boolean closed = false;
+    // Why the last login was refused
+    private volatile String reason;
+    // True to ask for compressed connections
+    private volatile boolean compression = false;
+
+    /**
+     * Construct a session whose listener runs in the receiver thread.
+     *
+     * @param host Server address
+     * @param port Server port
+     * @param listener Listener
+     */
+    public ChatSession(String host, int port, Listener listener) {
+        this(host, port, listener, Runnable::run);
+    }
+
+    /**
+     * Construct a session.
+     *
+     * @param host Server address
+     * @param port Server port
+     * @param listener Listener
+     * @param executor Runs the listener
+     */
+    public ChatSession(String host, int port, Listener listener,
+            Executor executor) {
+        this.client.setServerAddress(host);
+        this.port = port;
+        this.listener = listener;
+        this.executor = executor;
+    }
+
+    /**
+     * Connect to the server, if not connected, and log in to the chat. If the
+     * name is used, another one may be tried with the same connection. Once
+     * logged in, the session starts receiving messages.
+     *
+     * @param name Client name
+     * @param language Client language
+     *
+     * @return True if the login was accepted, false if it was refused (see
+     * {@link #getReason()})
+     *
+     * @throws IOException Error on socket
+     */
+    public synchronized boolean login(String name, Language language)
+            throws IOException {
+        if (this.closed) {
+            throw new IllegalStateException("The session is closed.");
+        }
+        if (this.client.isReady()) {
+            throw new IllegalStateException("The session is logged in.");
+        }
+        // Make connection
+        if (this.client.getConnection() == null) {
+            this.client.setConnection(new ChatConnection(
+                    this.client.getServerAddress(), this.port));
+            this.client.getConnection().setCompression(this.compression);
+        }
+        try {
+            // Send your name and selected language to server
+            ChatConnection connection = this.client.getConnection();
+            if (!connection.login(name, language.getLanguageID(), true, "")) {
+                this.reason = connection.getReason();
+                if ("INVALID".equals(this.reason)) {
+                    // The server closed the connection
+                    disconnect();
+                }
+                return false;
+            }
+        } catch (IOException ex) {
+            // Connect again on the next login
+            disconnect();
+            throw ex;
+        }
+        // The client is ready
+        this.token = this.client.getConnection().getToken();
+        this.client.setName(name);
+        this.client.setLanguage(language);
+        this.client.setReady(true);
+        // Receive messages
+        this.receiver = new MessageReceiver(this,
+                this.client.getConnection(), this.listener, this.executor);
+        this.receiver.start();
+        return true;
+    }
+
+    /**
+     * Ask the server to compress the connections of the session (from the
+     * next login). The server may refuse it; see {@link #isCompressed()}.
+     *
+     * @param compression True to ask for compression
+     */
+    public void setCompression(boolean compression) {
+        this.compression = compression;
+    }
+
+    /**
+     * Check if the connection of the session is compressed.
+     *
+     * @return True if the server accepted compression
+     */
+    public boolean isCompressed() {
+        ChatConnection connection = this.client.getConnection();
+        return connection != null && connection.isCompressed();
+    }
+
+    /**
+     * Send a message to the clients of the room.
+     *
+     * @param message Message
+     *
+     * @throws IOException Error on socket
+     */
+    public void send(String message) throws IOException {
+        connection().send(message);
+    }
+
+    /**
+     * Join a room, leaving the current one. The server answers with a
+     * "JOINED" or "JOINFAILED" line, which is not given to the listener.
+     *
+     * @param room Room name
+     *
+     * @throws IOException Error on socket
+     */
+    public void join(String room) throws IOException {
+        connection().join(room);
+        this.room = room;
+    }
+
+    /**
+     * Leave the room and go back to the lobby.
+     *
+     * @throws IOException Error on socket
+     */
+    public void leave() throws IOException {
+        connection().leave();
+        this.room = null;
+    }
+
+    /**
+     * Get the connection of a logged in session.
+     *
+     * @return Connection
+     *
+     * @throws IOException The session is connecting again
+     */
+    private ChatConnection connection() throws IOException {
+        if (this.receiver == null || this.closed) {
+            throw new IllegalStateException("The session is not logged in.");
+        }
+        ChatConnection connection = this.client.getConnection();
+        if (!this.client.isReady() || connection == null) {
+            throw new IOException("The session is connecting again.");
+        }
+        return connection;
+    }
+
+    /**
+     * Connect again after losing the connection, until the login is accepted
+     * or the session is closed. Runs in the receiver thread; the listener is
+     * told about the reconnection, or that the session was closed.
+     *
+     * @param lost Connection lost
+     * @param error Error that closed the connection
+     *
+     * @return New connection, or null if the session was closed
+     */
+    ChatConnection reconnect(ChatConnection lost, IOException error) {
+        synchronized (this) {
+            if (this.client.getConnection() == lost) {
+                this.client.setReady(false);
+                this.client.setConnection(null);
+            }
+        }
+        try {
+            lost.close();
+        } catch (IOException ex) {
+        }
+        if (!this.closed) {
+            this.executor.execute(() -> this.listener.reconnecting(error));
+        }
+        IOException cause = error;
+        long backoff = BACKOFF_MIN;
+        long deadline = 0;
+        while (!this.closed && pause(backoff)) {
+            backoff = Math.min(2 * backoff, BACKOFF_MAX);
+            ChatConnection connection = null;
+            try {
+                connection = new ChatConnection(this.client.getServerAddress(),
+                        this.port);
+                connection.setCompression(this.compression);
+                if (connection.login(this.client.getName(),
+                        this.client.getLanguage().getLanguageID(), true,
+                        this.token)) {
+                    boolean resumed = connection.getRoom() != null;
+                    if (!resumed && this.room != null) {
+                        connection.join(this.room);
+                    }
+                    if (attach(connection)) {
+                        this.executor.execute(
+                                () -> this.listener.reconnected(resumed));
+                        return connection;
+                    }
+                } else if (!"USED".equals(connection.getReason())) {
+                    cause = new IOException("Login refused: "
+                            + connection.getReason());
+                    break;
+                } else if (deadline == 0) {
+                    // The server may still hold the lost connection
+                    deadline = System.nanoTime() + USED_TIMEOUT * 1000000;
+                } else if (System.nanoTime() > deadline) {
+                    cause = new IOException("Login refused: USED");
+                    break;
+                }
+                connection.close();
+            } catch (IOException ex) {
+                cause = ex;
+                if (connection != null) {
+                    try {
+                        connection.close();
+                    } catch (IOException e) {
+                    }
+                }
+            }
+        }
+        // The session is over
+        IOException closing = this.closed ? null : cause;
+        this.closed = true;
+        this.executor.execute(() -> this.listener.closed(closing));
+        return null;
+    }
+
+    /**
+     * Wait a random time, up to the backoff, before connecting again.
+     *
+     * @param backoff Longest wait (ms)
+     *
+     * @return False if the wait was interrupted by {@link #close()}
+     */
+    private synchronized boolean pause(long backoff) {
+        long wait = 1 + ThreadLocalRandom.current().nextLong(backoff);
+        try {
+            wait(wait);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+        return !this.closed;
+    }
+
+    /**
+     * Make a new connection the connection of the session, unless the
+     * session was closed meanwhile.
+     *
+     * @param connection Connection, logged in
+     *
+     * @return True if the connection is used, false if it was closed
+     *
+     * @throws IOException Error closing the connection
+     */
+    private synchronized boolean attach(ChatConnection connection)
+            throws IOException {
+        if (this.closed) {
+            connection.quit();
+            connection.close();
+            return false;
+        }
+        this.token = connection.getToken();
+        this.client.setConnection(connection);
+        this.client.setReady(true);
+        return true;
+    }
+
+    /**
+     * Check if the session is logged in.
+     *
+     * @return True if the client is ready
+     */
+    public boolean isReady() {
+        return this.client.isReady();
+    }
+
+    /**
+     * Get client name.
+     *
+     * @return Client name (null before the login)
+     */
+    public String getName() {
+        return this.client.getName();
+    }
+
+    /**
+     * Get client language.
+     *
+     * @return Client language
+     */
+    public Language getLanguage() {
+        return this.client.getLanguage();
+    }
+
+    /**
+     * Get why the last login was refused: USED (the name is used), CLUSTER
+     * (refused by the cluster) or INVALID (empty name or language).
+     *
+     * @return Reason (null if no login was refused)
+     */
+    public String getReason() {
+        return this.reason;
+    }
+
+    /**
+     * Get the latency of the received messages: the time from their receipt
+     * to the end of the work queued by the listener on the executor.
+     *
+     * @return Latency statistics (empty before the login)
+     */
+    public String getLatency() {
+        MessageReceiver receiver = this.receiver;
+        return receiver == null ? "" : receiver.toString();
+    }
+
+    /**
+     * Close the session, telling the server that the client leaves for good.
+     * The listener is told when the receiver stops.
+     *
+     * @throws IOException Error closing the socket
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        this.closed = true;
+        // Stop waiting to connect again
+        notifyAll();
+        ChatConnection connection = this.client.getConnection();
+        if (connection != null && connection.isReady()) {
+            try {
+                connection.quit();
+            } catch (IOException ex) {
+                // The connection is lost already
+            }
+        }
+        disconnect();
+    }
+
+    /**
+     * Close the connection, so the next login connects again.
+     *
+     * @throws IOException Error closing the socket
+     */
+    private synchronized void disconnect() throws IOException {
+        ChatConnection connection = this.client.getConnection();
+        this.client.setReady(false);
+        this.client.setConnection(null);
+        if (connection != null) {
+            connection.close();
+        }
+    }
+}
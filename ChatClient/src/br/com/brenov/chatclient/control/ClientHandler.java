@@ -3,49 +3,43 @@
  */
 package br.com.brenov.chatclient.control;
 
-import br.com.brenov.chatclient.model.Client;
 import br.com.brenov.chatclient.model.Language;
+import br.com.brenov.chatclient.protocol.ChatConnection;
 import br.com.brenov.chatclient.view.ChatWindow;
-import java.io.BufferedReader;
+import java.awt.EventQueue;
 import java.io.IOException;
-import java.io.InputStreamReader;
-import java.io.PrintWriter;
-import java.net.Socket;
-import java.util.concurrent.TimeUnit;
-import java.util.concurrent.locks.Lock;
-import java.util.concurrent.locks.ReentrantLock;
+import java.util.List;
 import java.util.logging.Level;
 import java.util.logging.Logger;
-import javax.swing.text.BadLocationException;
 
 /**
  * Client Handler. This class is responsible for handling the client
- * application.
+ * application: the chat window on top of a {@link ChatSession}.
  *
  * @author Breno Viana
- * @version 23/07/2017
+ * @version 17/10/2026
  */
-public class ClientHandler {
+public class ClientHandler implements ChatSession.Listener {
+
+    // Server port
+    private static final int PORT = 9001;
+    // True to ask the server to compress the connection
+    private static final boolean COMPRESSION = Boolean.parseBoolean(
+            System.getProperty("understandme.compression", "true"));
 
-    // Client
-    private final Client client;
     // Chat GUI
     private ChatWindow frame;
-
-    // If the chat needs to update the conversation
-    private boolean update;
-
-    // Lock
-    private Lock lock = new ReentrantLock();
+    // Server Address
+    private String serverAddress;
+    // Client language
+    private Language language = Language.UNKNOW;
+    // Chat session (null until the first login)
+    private ChatSession session;
 
     /**
      * Constructor of client handler.
-     *
-     * @param client client
      */
-    public ClientHandler(Client client) {
-        this.client = client;
-        this.update = false;
+    public ClientHandler() {
     }
 
     /**
@@ -74,9 +68,19 @@ public class ClientHandler {
         java.awt.EventQueue.invokeLater(() -> {
             frame.setVisible(true);
         });
-        // Get reveived messages
-        receiveMessages();
-        printReceivedMessages();
+        // Print the display latency and leave the chat on exit
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            if (this.session != null && this.session.isReady()) {
+                System.out.println("Display latency: "
+                        + this.session.getLatency());
+            }
+            if (this.session != null) {
+                try {
+                    this.session.close();
+                } catch (IOException ex) {
+                }
+            }
+        }));
     }
 
     /**
@@ -85,7 +89,7 @@ public class ClientHandler {
      * @return True if the client is ready
      */
     public boolean isReady() {
-        return this.client.isReady();
+        return this.session != null && this.session.isReady();
     }
 
     /**
@@ -94,7 +98,7 @@ public class ClientHandler {
      * @param serverAddress Server address
      */
     public void setServerIPAddress(String serverAddress) {
-        this.client.setServerAddress(serverAddress);
+        this.serverAddress = serverAddress;
     }
 
     /**
@@ -103,7 +107,7 @@ public class ClientHandler {
      * @param language Client language
      */
     public void setLanguage(Language language) {
-        this.client.setLanguage(language);
+        this.language = language;
     }
 
     /**
@@ -112,63 +116,58 @@ public class ClientHandler {
      * @return Client name
      */
     public String getName() {
-        return this.client.getName();
+        return this.session == null ? null : this.session.getName();
+    }
+
+    /**
+     * Get why the last login was refused.
+     *
+     * @return Reason (null if no login was refused)
+     */
+    public String getReason() {
+        return this.session == null ? null : this.session.getReason();
     }
 
     /**
      * Connects to the server and logs in the chat user. The login is done by
-     * sending a message to the server containing the word "LOGIN", the name and
-     * language of the user. So the client waits for 10 milliseconds to respond
-     * to the server. (Chat Protocol) If the client receives the message
-     * "SUBMITNAME" means that the login could not be done, or the server did
-     * not receive the data or the name is not available. When the server sends
-     * "NAMEACCEPTED" it means that the login was successful and the client can
-     * start to chat.
+     * sending a message to the server containing the words "RESUME FRAMED
+     * DEFLATE" (without "DEFLATE" if compression is disabled), the name and
+     * language of the user, and an empty resume token, without waiting for
+     * the "SUBMITNAME" of the server. (Chat Protocol) If the
+     * client receives "NAMEREJECTED" it means that the login could not be
+     * done, and why: the name is not available (USED, or CLUSTER) or is not
+     * valid (INVALID). When the server sends "NAMEACCEPTED" it means that the
+     * login was successful and the client can start to chat: with
+     * "NAMEACCEPTED FRAMED" the messages are sent as frames (type, length and
+     * text), otherwise as text lines, and with " DEFLATE" the connection is
+     * compressed. The protocol itself is implemented by
+     * {@link ChatConnection}; a refused name may be tried again with the same
+     * connection, and a lost connection is made again by the session. The
+     * messages of the session are shown by the event dispatch thread.
      *
      * @param name Client name
      *
-     * @throws java.lang.InterruptedException Thread was interrupted
      * @throws java.io.IOException Error on socket
      */
-    public void login(String name) throws InterruptedException, IOException {
-        // Make connection
-        Socket socket = new Socket(this.client.getServerAddress(), 9001);
-        // Initialize streams
-        this.client.setIn(new BufferedReader(new InputStreamReader(
-                socket.getInputStream())));
-        this.client.setOut(new PrintWriter(socket.getOutputStream(), true));
-        // Set name
-        this.client.setName(name);
-        // Send your name and selected language to server
-        this.client.getOut().println("LOGIN\n" + getName() + "\n"
-                + this.client.getLanguage().getLanguageID());
-        // Login attempts
-        for (int i = 0; ((i < 5) && (!this.client.isReady())); i++) {
-            // Wait
-            TimeUnit.MILLISECONDS.sleep(10);
-            // Get server message
-            String line = this.client.getIn().readLine();
-            // Check protocol
-            if (line.startsWith("SUBMITNAME")) {
-                // Send your name and selected language to server
-                this.client.getOut().println("LOGIN\n" + getName() + "\n"
-                        + this.client.getLanguage().getLanguageID());
-            } else if (line.startsWith("NAMEACCEPTED")) {
-                // The client is ready
-                this.client.setReady(true);
-            }
+    public void login(String name) throws IOException {
+        if (this.session == null) {
+            this.session = new ChatSession(this.serverAddress, PORT, this,
+                    EventQueue::invokeLater);
+            this.session.setCompression(COMPRESSION);
         }
+        // Send your name and selected language to server
+        this.session.login(name, this.language);
     }
 
     /**
-     * Send message.
+     * Send message and add it to the conversation. Must be called by the
+     * event dispatch thread.
      *
      * @param message Message to be sent
      */
     public void send(String message) {
         sendMessage(message);
-        frame.getJConversation().setText(client.getConversation());
-        align();
+        this.frame.getConversation().append("You: " + message, true);
     }
 
     /**
@@ -177,109 +176,68 @@ public class ClientHandler {
      * @param message Message to be sent
      */
     public void sendMessage(String message) {
-        this.client.setConversation(this.client.getConversation()
-                .concat("<html><b>You: " + message + "</b><br>"));
-        this.client.getOut().println("MESSAGE\n" + message);
+        try {
+            this.session.send(message);
+        } catch (IOException ex) {
+            System.err.println("Error in running Understand Me. "
+                    + "The message could not be sent.");
+            Logger.getLogger(ClientHandler.class.getName())
+                    .log(Level.SEVERE, null, ex);
+        }
+    }
+
+    /**
+     * Show received messages. When the client is logged in to the chat, he
+     * is then able to receive messages. Messages sent by the server must be
+     * preceded by the word "MESSAGE" (or be "MESSAGE" frames) and all
+     * subsequent characters form the message of another client.
+     *
+     * @param messages Received messages
+     */
+    @Override
+    public void received(List<String> messages) {
+        for (String message : messages) {
+            this.frame.getConversation().append(message, false);
+        }
     }
 
     /**
-     * Receive messages. When the client is already logged in to the chat, he is
-     * then able to receive messages. Messages sent by the server must be
-     * preceded by the word "MESSAGE" and all subsequent characters form the
-     * message of another client.
+     * The connection was lost: tell the user that the chat is connecting
+     * again.
+     *
+     * @param error Error that closed the connection
      */
-    public void receiveMessages() {
-        Thread getMessages = new Thread(new Runnable() {
-            @Override
-            public void run() {
-                // Receive messages
-                while (true) {
-                    try {
-                        // Wait
-                        TimeUnit.MILLISECONDS.sleep(10);
-                    } catch (InterruptedException ex) {
-                        System.err.println("Error in running Understand Me. "
-                                + "Waiting time error.");
-                        Logger.getLogger(Client.class.getName())
-                                .log(Level.SEVERE, null, ex);
-                    }
-                    // Check if the client is ready
-                    if (client.isReady()) {
-                        try {
-                            // Get server message
-                            String line = client.getIn().readLine();
-                            // Check protocol
-                            if (line.startsWith("MESSAGE")) {
-                                lock.lock();
-                                // Print received messages
-                                client.setConversation(client.getConversation()
-                                        .concat(line.substring(8) + "<br>"));
-                                update = true;
-                                lock.unlock();
-                            }
-                        } catch (IOException ex) {
-                            System.err.println("Error in running Understand Me. "
-                                    + "The socket could not be created.");
-                            Logger.getLogger(Client.class.getName())
-                                    .log(Level.SEVERE, null, ex);
-                        }
-                    }
-                }
-            }
-        });
-        getMessages.start();
+    @Override
+    public void reconnecting(IOException error) {
+        this.frame.getConversation().append("Connection lost, "
+                + "reconnecting...", false);
     }
 
     /**
-     * Print received messages.
+     * The chat is connected again.
+     *
+     * @param resumed True if the messages sent meanwhile were kept
      */
-    private void printReceivedMessages() {
-        Thread receivedMessages = new Thread(() -> {
-            // Print received messages
-            while (true) {
-                try {
-                    // Wait
-                    TimeUnit.MILLISECONDS.sleep(500);
-                } catch (InterruptedException ex) {
-                    System.err.println("Error in running Understand Me."
-                            + " Waiting time error.");
-                    Logger.getLogger(Client.class.getName())
-                            .log(Level.SEVERE, null, ex);
-                }
-                lock.lock();
-                // Check conversation
-                if (update && !client.getConversation().equals("")) {
-                    frame.getJConversation().setText(client.getConversation());
-                    update = false;
-                    align();
-                }
-                lock.unlock();
-            }
-        });
-        receivedMessages.start();
+    @Override
+    public void reconnected(boolean resumed) {
+        this.frame.getConversation().append(resumed ? "Reconnected."
+                : "Reconnected, messages may have been missed.", false);
     }
 
     /**
-     * Align the conversation so the user does not miss new messages.
+     * The session was closed.
+     *
+     * @param error Error, or null if the client closed the session
      */
-    private void align() {
-        try {
-            // Wait
-            TimeUnit.MILLISECONDS.sleep(10);
-        } catch (InterruptedException ex) {
-            System.err.println("Error in running Understand Me."
-                    + " Waiting time error.");
-            Logger.getLogger(Client.class.getName())
-                    .log(Level.SEVERE, null, ex);
-        }
-        int end = this.frame.getJConversation().getDocument().getLength();
-        try {
-            this.frame.getJConversation()
-                    .scrollRectToVisible(this.frame
-                            .getJConversation().modelToView(end));
-        } catch (BadLocationException ex) {
-            Logger.getLogger(ChatWindow.class.getName())
-                    .log(Level.SEVERE, null, ex);
+    @Override
+    public void closed(IOException error) {
+        if (error == null) {
+            System.err.println("Understand Me session closed.");
+        } else {
+            System.err.println("Error in running Understand Me. "
+                    + "The connection was lost.");
+            Logger.getLogger(ClientHandler.class.getName())
+                    .log(Level.SEVERE, null, error);
         }
     }
 }
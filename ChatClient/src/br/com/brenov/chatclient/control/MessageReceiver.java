@@ -0,0 +1,168 @@
+/*
+ * GNU License.
+ */
+package br.com.brenov.chatclient.control;
+
+import br.com.brenov.chatclient.protocol.ChatConnection;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+/**
+ * Receiver of the messages of a chat session. Its thread blocks on the
+ * connection and hands the received messages to the executor of the
+ * listener: a message received while the previous ones are still waiting for
+ * the executor joins them, so the messages are delivered in batches, as fast
+ * as the listener can take them, without polling.
+ *
+ * It also measures the latency: the time from the receipt of a message to the
+ * end of the work queued by the listener on the executor (for the chat
+ * window, the repaint that shows the message).
+ *
+ * When the connection is lost, the receiver asks the session to connect
+ * again, and goes on with the new connection.
+ *
+ * @author Breno Viana
+ * @version 17/10/2026
+ */
+class MessageReceiver implements Runnable {
+
+    // Stack size of the receiver thread
+    private static final long STACK = 256 * 1024;
+
+    // Session
+    private final ChatSession session;
+    // Connection to the server (null once the session is closed)
+    private ChatConnection connection;
+    // Listener
+    private final ChatSession.Listener listener;
+    // Runs the listener
+    private final Executor executor;
+
+    // Messages waiting for the executor
+    private List<String> pending = new ArrayList<String>();
+    // Receipt time of the oldest message waiting (ns)
+    private long first;
+    // Number of batches delivered
+    private long batches = 0;
+    // Number of messages delivered
+    private long messages = 0;
+    // Sum of the latencies (ns)
+    private long total = 0;
+    // Maximum latency (ns)
+    private long max = 0;
+
+    /**
+     * Construct a receiver.
+     *
+     * @param session Session
+     * @param connection Connection to the server, logged in
+     * @param listener Listener
+     * @param executor Runs the listener
+     */
+    MessageReceiver(ChatSession session, ChatConnection connection,
+            ChatSession.Listener listener, Executor executor) {
+        this.session = session;
+        this.connection = connection;
+        this.listener = listener;
+        this.executor = executor;
+    }
+
+    /**
+     * Start the receiver thread.
+     */
+    void start() {
+        Thread receiver = new Thread(null, this, "chat-receiver-"
+                + this.connection.getName(), STACK);
+        receiver.setDaemon(true);
+        receiver.start();
+    }
+
+    /**
+     * Receive messages until the session is closed.
+     */
+    @Override
+    public void run() {
+        while (this.connection != null) {
+            try {
+                receive();
+            } catch (IOException ex) {
+                // Connect again, unless the session was closed
+                this.connection = this.session.reconnect(this.connection, ex);
+            }
+        }
+    }
+
+    /**
+     * Receive messages until the connection is lost.
+     *
+     * @throws IOException Error on socket, or connection closed
+     */
+    private void receive() throws IOException {
+        while (true) {
+            // Wait for a message
+            String message = this.connection.readMessage();
+            if (message == null) {
+                continue;
+            }
+            long now = System.nanoTime();
+            boolean idle;
+            synchronized (this) {
+                idle = this.pending.isEmpty();
+                if (idle) {
+                    this.first = now;
+                }
+                this.pending.add(message);
+            }
+            // Only the first message of a batch schedules its delivery
+            if (idle) {
+                this.executor.execute(this::deliver);
+            }
+        }
+    }
+
+    /**
+     * Deliver the messages waiting to the listener. Runs in the executor.
+     */
+    private void deliver() {
+        List<String> batch;
+        long since;
+        synchronized (this) {
+            batch = this.pending;
+            since = this.first;
+            this.pending = new ArrayList<String>();
+        }
+        this.listener.received(batch);
+        // The work queued by the listener (the repaint of the window) runs
+        // before this
+        this.executor.execute(() -> shown(batch.size(), since));
+    }
+
+    /**
+     * Record the latency of a batch.
+     *
+     * @param size Number of messages of the batch
+     * @param since Receipt time of the oldest message of the batch (ns)
+     */
+    private synchronized void shown(int size, long since) {
+        long latency = System.nanoTime() - since;
+        this.batches++;
+        this.messages += size;
+        this.total += latency;
+        this.max = Math.max(this.max, latency);
+    }
+
+    /**
+     * Get the latency statistics.
+     *
+     * @return Statistics
+     */
+    @Override
+    public synchronized String toString() {
+        return String.format("batches=%d, messages=%d, mean=%.2f ms, "
+                + "max=%.2f ms", this.batches, this.messages,
+                this.batches == 0 ? 0 : this.total / 1e6 / this.batches,
+                this.max / 1e6);
+    }
+}
@@ -3,34 +3,19 @@
  */
 package br.com.brenov.chatclient.model;
 
-import java.io.BufferedReader;
-import java.io.PrintWriter;
+import br.com.brenov.chatclient.protocol.ChatConnection;
 
 /**
  * A simple client for the chat server. This chat follows the Chat Protocol
  * which is explained in the documentation for the login and receiveMessages.
  *
  * @author Breno Viana
- * @version 23/07/2017
+ * @version 17/10/2026
  */
 public class Client {
 
-    // Client instance
-    private static Client instance = new Client();
-
-    /**
-     * Get client instance.
-     *
-     * @return Client
-     */
-    public static Client getInstance() {
-        return instance;
-    }
-
-    // Send messages
-    private BufferedReader in;
-    // Print messages
-    private PrintWriter out;
+    // Connection to the server
+    private volatile ChatConnection connection;
     // Server Address
     private String serverAddress;
 
@@ -39,53 +24,32 @@ public class Client {
     // Client language
     private Language language;
     // True if the client is ready
-    private boolean ready;
-    // Conversation
-    private String conversation;
+    private volatile boolean ready;
 
     /**
      * Constructs the client.
      */
-    private Client() {
+    public Client() {
         this.language = Language.UNKNOW;
         this.ready = false;
-        this.conversation = "";
-    }
-
-    /**
-     * Get input reader.
-     *
-     * @return Input reader
-     */
-    public BufferedReader getIn() {
-        return in;
-    }
-
-    /**
-     * Set input reader.
-     *
-     * @param in Input reader
-     */
-    public void setIn(BufferedReader in) {
-        this.in = in;
     }
 
     /**
-     * Get output writer.
+     * Get the connection to the server.
      *
-     * @return Output writer.
+     * @return Connection (null if the client is not connected)
      */
-    public PrintWriter getOut() {
-        return out;
+    public ChatConnection getConnection() {
+        return this.connection;
     }
 
     /**
-     * Set output writer.
+     * Set the connection to the server.
      *
-     * @param out Output writer
+     * @param connection Connection
      */
-    public void setOut(PrintWriter out) {
-        this.out = out;
+    public void setConnection(ChatConnection connection) {
+        this.connection = connection;
     }
 
     /**
@@ -159,22 +123,4 @@ public class Client {
     public void setReady(boolean ready) {
         this.ready = ready;
     }
-
-    /**
-     * Get conversation.
-     *
-     * @return Conversation
-     */
-    public String getConversation() {
-        return this.conversation;
-    }
-
-    /**
-     * Set conversation.
-     *
-     * @param conversation Conversation
-     */
-    public void setConversation(String conversation) {
-        this.conversation = conversation;
-    }
 }
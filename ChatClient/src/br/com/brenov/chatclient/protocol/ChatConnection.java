@@ -0,0 +1,409 @@
+/*
+ * GNU License.
+ */
+package br.com.brenov.chatclient.protocol;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * A connection to the chat server, without any user interface. It implements
+ * the client side of the Chat Protocol: the client logs in with "LOGIN
+ * FRAMED" (or "LOGIN"), its name and language, without waiting for the
+ * "SUBMITNAME" of the server, so the login takes one round trip.
+ * "NAMEREJECTED" and the reason means that the login was refused;
+ * "NAMEACCEPTED" means that the client can start to chat, with frames if the
+ * server answered "NAMEACCEPTED FRAMED" and with text lines otherwise. The
+ * client starts in the lobby and may then join another room ("JOIN" and the
+ * room name) or go back to the lobby ("LEAVE"); the messages only reach the
+ * clients of its room.
+ *
+ * Clients that log in with "RESUME" send a token too, and get a new one
+ * ("TOKEN") once accepted: logging in again with it after losing the
+ * connection gives back the session, with its room and the messages sent
+ * meanwhile. "QUIT" tells the server not to keep the session.
+ *
+ * A client may ask for a compressed connection (see {@link Compression}); it
+ * is compressed only if the server accepts it.
+ *
+ * A connection may be used by two threads at the same time: one that sends the
+ * messages and one that reads them.
+ *
+ * @author Breno Viana
+ * @version 17/10/2026
+ */
+public class ChatConnection implements Closeable {
+
+    // Socket
+    private final Socket socket;
+    // Input stream under the protocol reader
+    private InputStream input;
+    // Receive messages
+    private ProtocolReader in;
+    // Send messages
+    private OutputStream out;
+    // Lock of the output
+    private final Object lock = new Object();
+    // True to ask for compression on login
+    private boolean compression = false;
+    // True if the server accepted compression
+    private volatile boolean compressed = false;
+
+    // True if the server accepted the login
+    private volatile boolean ready = false;
+    // True if the server accepted the framed protocol
+    private volatile boolean framed = false;
+    // Client name
+    private String name;
+    // Why the last login was refused
+    private String reason;
+    // Resume token
+    private String token;
+    // Room of the resumed session (null if the session is new)
+    private String room;
+
+    /**
+     * Connect to the chat server.
+     *
+     * @param host Server address
+     * @param port Server port
+     *
+     * @throws IOException The server could not be reached
+     */
+    public ChatConnection(String host, int port) throws IOException {
+        this.socket = new Socket(host, port);
+        this.socket.setTcpNoDelay(true);
+        this.input = new BufferedInputStream(this.socket.getInputStream());
+        this.in = new ProtocolReader(this.input,
+                Frame.MAX + Frame.MARGIN);
+        this.out = new BufferedOutputStream(this.socket.getOutputStream());
+    }
+
+    /**
+     * Log in to the chat, asking for the framed protocol.
+     *
+     * @param name Client name
+     * @param language Client language ID
+     *
+     * @return True if the login was accepted, false if it was refused
+     *
+     * @throws IOException Error on socket
+     */
+    public boolean login(String name, String language) throws IOException {
+        return login(name, language, true);
+    }
+
+    /**
+     * Log in to the chat. If the name is used, the client may try another one
+     * with the same connection.
+     *
+     * @param name Client name
+     * @param language Client language ID
+     * @param framed True to ask for the framed protocol
+     *
+     * @return True if the login was accepted, false if it was refused
+     *
+     * @throws IOException Error on socket
+     */
+    public boolean login(String name, String language, boolean framed)
+            throws IOException {
+        return login(name, language, framed, null);
+    }
+
+    /**
+     * Log in to the chat, and get a resume token. If the token is the one of a
+     * session the client lost, the server gives it back (see
+     * {@link #getRoom()}). If the login is refused, the client may try again
+     * with the same connection (see {@link #getReason()}).
+     *
+     * @param name Client name
+     * @param language Client language ID
+     * @param framed True to ask for the framed protocol
+     * @param token Resume token (empty for a new session), or null to log in
+     * without one
+     *
+     * @return True if the login was accepted, false if it was refused
+     *
+     * @throws IOException Error on socket
+     */
+    public boolean login(String name, String language, boolean framed,
+            String token) throws IOException {
+        // Send your name and selected language to server, without waiting
+        // for the login request
+        String deflate = this.compression ? Compression.DEFLATE : "";
+        if (token == null) {
+            println((framed ? Frame.LOGIN : "LOGIN") + deflate + "\n" + name
+                    + "\n" + language);
+        } else {
+            println((framed ? Frame.RESUME : "RESUME") + deflate + "\n"
+                    + name + "\n" + language + "\n" + token);
+        }
+        while (true) {
+            String line = readLine();
+            // Check protocol
+            if (line.startsWith("NAMEACCEPTED")) {
+                this.name = name;
+                this.compressed = line.endsWith(Compression.DEFLATE);
+                if (this.compressed) {
+                    // The next bytes, in both directions, are compressed
+                    line = line.substring(0, line.length()
+                            - Compression.DEFLATE.length());
+                    this.input = Compression.inflate(this.input);
+                    this.in = new ProtocolReader(this.input,
+                            Frame.MAX + Frame.MARGIN);
+                    this.out = Compression.deflate(this.out);
+                }
+                this.framed = line.equals(Frame.ACCEPTED);
+                if (token != null) {
+                    readToken();
+                }
+                this.ready = true;
+                return true;
+            } else if (line.startsWith("NAMEREJECTED")) {
+                this.reason = line.length() > 13 ? line.substring(13) : "";
+                return false;
+            }
+        }
+    }
+
+    /**
+     * Read the resume token sent after the login, and the room of the session
+     * if it was resumed.
+     *
+     * @throws IOException Error on socket
+     */
+    private void readToken() throws IOException {
+        String reply;
+        if (this.framed) {
+            int type = this.in.readFrame();
+            if (type < 0) {
+                throw new EOFException("Connection closed by the server.");
+            }
+            if (type != Frame.TOKEN) {
+                throw new IOException("Unexpected frame " + type + ".");
+            }
+            reply = this.in.getPayload();
+        } else {
+            reply = readLine();
+            if (!reply.startsWith("TOKEN ")) {
+                throw new IOException("Unexpected line " + reply + ".");
+            }
+            reply = reply.substring(6);
+        }
+        int space = reply.indexOf(' ');
+        this.token = space < 0 ? reply : reply.substring(0, space);
+        this.room = space < 0 ? null : reply.substring(space + 1);
+    }
+
+    /**
+     * Tell the server that the client leaves the chat for good, so it does not
+     * keep the session.
+     *
+     * @throws IOException Error on socket
+     */
+    public void quit() throws IOException {
+        synchronized (this.lock) {
+            if (this.framed) {
+                this.out.write(Frame.encode(Frame.QUIT, ""));
+                this.out.flush();
+            } else {
+                println("QUIT");
+            }
+        }
+    }
+
+    /**
+     * Ask for a compressed connection on the next login.
+     *
+     * @param compression True to ask for compression
+     */
+    public void setCompression(boolean compression) {
+        this.compression = compression;
+    }
+
+    /**
+     * Check if the server accepted compression.
+     *
+     * @return True if the connection is compressed
+     */
+    public boolean isCompressed() {
+        return this.compressed;
+    }
+
+    /**
+     * Send a chat message.
+     *
+     * @param message Message to be sent
+     *
+     * @throws IOException Error on socket
+     */
+    public void send(String message) throws IOException {
+        synchronized (this.lock) {
+            if (this.framed) {
+                this.out.write(Frame.encode(Frame.MESSAGE, message));
+                this.out.flush();
+            } else {
+                println("MESSAGE\n" + message);
+            }
+        }
+    }
+
+    /**
+     * Join a room, leaving the current one. The server answers "JOINED" (or
+     * "JOINFAILED" if the name is not valid), which is not a chat message.
+     *
+     * @param room Room name
+     *
+     * @throws IOException Error on socket
+     */
+    public void join(String room) throws IOException {
+        synchronized (this.lock) {
+            if (this.framed) {
+                this.out.write(Frame.encode(Frame.JOIN, room));
+                this.out.flush();
+            } else {
+                println("JOIN\n" + room);
+            }
+        }
+    }
+
+    /**
+     * Leave the room and go back to the lobby.
+     *
+     * @throws IOException Error on socket
+     */
+    public void leave() throws IOException {
+        synchronized (this.lock) {
+            if (this.framed) {
+                this.out.write(Frame.encode(Frame.LEAVE, ""));
+                this.out.flush();
+            } else {
+                println("LEAVE");
+            }
+        }
+    }
+
+    /**
+     * Read the next message sent by the server.
+     *
+     * @return Message ("name: text"), or null if it was another protocol
+     *
+     * @throws IOException Error on socket, message too large, or connection
+     * closed by the server (EOFException)
+     */
+    public String readMessage() throws IOException {
+        if (this.framed) {
+            // Check frame type
+            int type = this.in.readFrame();
+            if (type < 0) {
+                throw new EOFException("Connection closed by the server.");
+            }
+            return type == Frame.MESSAGE ? this.in.getPayload() : null;
+        }
+        String line = readLine();
+        // Check protocol
+        return line.startsWith("MESSAGE") ? line.substring(8) : null;
+    }
+
+    /**
+     * Read a protocol line.
+     *
+     * @return Line
+     *
+     * @throws IOException Error on socket, or connection closed by the server
+     * (EOFException)
+     */
+    private String readLine() throws IOException {
+        String line = this.in.readLine();
+        if (line == null) {
+            throw new EOFException("Connection closed by the server.");
+        }
+        return line;
+    }
+
+    /**
+     * Send protocol lines to the server.
+     *
+     * @param lines Lines to be sent
+     *
+     * @throws IOException Error on socket
+     */
+    private void println(String lines) throws IOException {
+        synchronized (this.lock) {
+            this.out.write((lines + "\n").getBytes(StandardCharsets.UTF_8));
+            this.out.flush();
+        }
+    }
+
+    /**
+     * Check if the server accepted the login.
+     *
+     * @return True if the client can chat
+     */
+    public boolean isReady() {
+        return this.ready;
+    }
+
+    /**
+     * Check if the server accepted the framed protocol.
+     *
+     * @return True if the messages are sent as frames
+     */
+    public boolean isFramed() {
+        return this.framed;
+    }
+
+    /**
+     * Get the name accepted by the server.
+     *
+     * @return Client name (null before the login)
+     */
+    public String getName() {
+        return this.name;
+    }
+
+    /**
+     * Get why the last login was refused: USED (the name is used), CLUSTER
+     * (refused by the cluster) or INVALID (empty name or language).
+     *
+     * @return Reason (null if no login was refused)
+     */
+    public String getReason() {
+        return this.reason;
+    }
+
+    /**
+     * Get the resume token sent by the server.
+     *
+     * @return Token (null if the client logged in without one)
+     */
+    public String getToken() {
+        return this.token;
+    }
+
+    /**
+     * Get the room of the session given back by the server.
+     *
+     * @return Room name, or null if the session is new
+     */
+    public String getRoom() {
+        return this.room;
+    }
+
+    /**
+     * Close the connection.
+     *
+     * @throws IOException Error on socket
+     */
+    @Override
+    public void close() throws IOException {
+        this.socket.close();
+    }
+}
@@ -0,0 +1,159 @@
+/*
+ * GNU License.
+ */
+package br.com.brenov.chatclient.protocol;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Per-connection compression. The client asks for it by ending its login line
+ * with " DEFLATE"; if the server answers "NAMEACCEPTED DEFLATE" (or
+ * "NAMEACCEPTED FRAMED DEFLATE"), every following byte, in both directions,
+ * is part of one zlib stream, and each write ends with a sync flush.
+ * Otherwise the connection stays uncompressed.
+ *
+ * @author Breno Viana
+ * @version 17/10/2026
+ */
+public final class Compression {
+
+    // Suffix of the login and accept lines of compressed connections
+    public static final String DEFLATE = " DEFLATE";
+
+    // Size of the compressed stream buffers
+    private static final int BUFFER = 8192;
+
+    /**
+     * Not instantiable.
+     */
+    private Compression() {
+    }
+
+    /**
+     * Compress the bytes written to a stream. Each flush ends the deflate
+     * block, so the bytes written so far can be read by the server.
+     *
+     * @param out Stream of the connection
+     *
+     * @return Compressing stream
+     */
+    public static OutputStream deflate(OutputStream out) {
+        return new DeflaterOutputStream(out, new Deflater(), BUFFER, true);
+    }
+
+    /**
+     * Decompress the bytes read from a stream. The stream is buffered, and a
+     * read returns the bytes decompressed so far instead of waiting for more.
+     *
+     * @param in Stream of the connection
+     *
+     * @return Decompressing stream, buffered
+     */
+    public static InputStream inflate(InputStream in) {
+        return new Inflating(in);
+    }
+
+    /**
+     * A buffered decompressing stream whose reads do not wait for more input
+     * once some bytes were decompressed.
+     */
+    private static final class Inflating extends InflaterInputStream {
+
+        // Decompressed bytes
+        private final byte[] chunk = new byte[BUFFER];
+        // Next byte of the chunk
+        private int position = 0;
+        // Number of bytes of the chunk
+        private int count = 0;
+
+        /**
+         * Construct a decompressing stream.
+         *
+         * @param in Stream of the connection
+         */
+        Inflating(InputStream in) {
+            super(in, new Inflater(), BUFFER);
+        }
+
+        /**
+         * Read a byte.
+         *
+         * @return Byte, or -1 at the end of the stream
+         *
+         * @throws IOException Error on socket, or invalid stream
+         */
+        @Override
+        public int read() throws IOException {
+            if (this.position == this.count) {
+                int read = inflate(this.chunk, 0, this.chunk.length);
+                if (read < 0) {
+                    return -1;
+                }
+                this.position = 0;
+                this.count = read;
+            }
+            return this.chunk[this.position++] & 0xff;
+        }
+
+        /**
+         * Read bytes: the bytes of the chunk, if any, or the bytes that can be
+         * decompressed with the first input available.
+         *
+         * @param b Buffer
+         * @param off Offset in the buffer
+         * @param len Maximum number of bytes
+         *
+         * @return Number of bytes read, or -1 at the end of the stream
+         *
+         * @throws IOException Error on socket, or invalid stream
+         */
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (this.position == this.count) {
+                return inflate(b, off, len);
+            }
+            int read = Math.min(len, this.count - this.position);
+            System.arraycopy(this.chunk, this.position, b, off, read);
+            this.position += read;
+            return read;
+        }
+
+        /**
+         * Decompress bytes. The end of the connection is the end of the
+         * stream, as for an uncompressed connection (the zlib stream of a
+         * connection is never finished).
+         *
+         * @param b Buffer
+         * @param off Offset in the buffer
+         * @param len Maximum number of bytes
+         *
+         * @return Number of bytes read, or -1 at the end of the stream
+         *
+         * @throws IOException Error on socket, or invalid stream
+         */
+        private int inflate(byte[] b, int off, int len) throws IOException {
+            try {
+                return super.read(b, off, len);
+            } catch (EOFException ex) {
+                return -1;
+            }
+        }
+
+        /**
+         * Get the number of bytes that can be read without blocking.
+         *
+         * @return Bytes of the chunk
+         */
+        @Override
+        public int available() {
+            return this.count - this.position;
+        }
+    }
+}
@@ -0,0 +1,75 @@
+/*
+ * GNU License.
+ */
+package br.com.brenov.chatclient.protocol;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Framed protocol. The client logs in with "LOGIN FRAMED"; if the server
+ * accepts it with "NAMEACCEPTED FRAMED", every following message, in both
+ * directions, is a frame made of a type byte, the payload length (4 bytes,
+ * big-endian) and the UTF-8 payload. If the server accepts it with
+ * "NAMEACCEPTED", the client keeps using the line protocol. "RESUME FRAMED"
+ * logs in the same way, and is followed by a "TOKEN" frame that lets the
+ * client get its session back after a reconnect.
+ *
+ * @author Breno Viana
+ * @version 17/10/2026
+ */
+public final class Frame {
+
+    // Login line of the clients that want the framed protocol
+    public static final String LOGIN = "LOGIN FRAMED";
+    // Login confirmation of the framed clients
+    public static final String ACCEPTED = "NAMEACCEPTED FRAMED";
+    // Login line of the framed clients that may resume their session
+    public static final String RESUME = "RESUME FRAMED";
+
+    // Size of the frame header (type and length)
+    public static final int HEADER = 5;
+    // Maximum size of a line or frame payload of the server, in bytes
+    public static final int MAX = Integer.getInteger("understandme.frame.max",
+            65536);
+    // Bytes accepted above the maximum size, so that a message the server
+    // accepted is not refused here once the server added the sender name
+    public static final int MARGIN = 1024;
+
+    // Chat message (client to server: text; server to client: "name: text")
+    public static final byte MESSAGE = 1;
+    // Join a room (client to server: room name)
+    public static final byte JOIN = 2;
+    // Leave the room and go back to the lobby (client to server: empty)
+    public static final byte LEAVE = 3;
+    // Resume token (server to client: token, and the room if the session
+    // was resumed)
+    public static final byte TOKEN = 7;
+    // Leave the chat for good (client to server: empty)
+    public static final byte QUIT = 8;
+
+    /**
+     * Not instantiable.
+     */
+    private Frame() {
+    }
+
+    /**
+     * Encode a frame.
+     *
+     * @param type Frame type
+     * @param payload Frame payload
+     *
+     * @return Frame bytes
+     */
+    public static byte[] encode(byte type, String payload) {
+        byte[] bytes = payload.getBytes(StandardCharsets.UTF_8);
+        byte[] frame = new byte[HEADER + bytes.length];
+        frame[0] = type;
+        frame[1] = (byte) (bytes.length >>> 24);
+        frame[2] = (byte) (bytes.length >>> 16);
+        frame[3] = (byte) (bytes.length >>> 8);
+        frame[4] = (byte) bytes.length;
+        System.arraycopy(bytes, 0, frame, HEADER, bytes.length);
+        return frame;
+    }
+}
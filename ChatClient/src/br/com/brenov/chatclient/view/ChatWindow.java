@@ -18,7 +18,7 @@ import javax.swing.JTextPane;
  * Chat window. This class is responsible for the GUI.
  *
  * @author Breno Viana
- * @version 23/07/2017
+ * @version 17/10/2026
  */
 public class ChatWindow extends JFrame {
 
@@ -50,6 +50,8 @@ public class ChatWindow extends JFrame {
     private final ClientHandler handler;
     // Card layout
     private final CardLayout card;
+    // Conversation
+    private final Conversation conversation;
 
     /**
      * Creates new form ChatWindow.
@@ -72,6 +74,9 @@ public class ChatWindow extends JFrame {
         this.jMainPanel.add(this.jEnterTheLanguagePanel,
                 CHOOSE_CLIENT_LANGUAGE);
         this.jMainPanel.add(this.jChatPanel, CHAT);
+        // Init conversation
+        this.conversation = new Conversation(this.jConversation,
+                Conversation.SCROLLBACK);
     }
 
     /**
@@ -92,6 +97,15 @@ public class ChatWindow extends JFrame {
         return this.jConversation;
     }
 
+    /**
+     * Get the conversation.
+     *
+     * @return The conversation.
+     */
+    public Conversation getConversation() {
+        return this.conversation;
+    }
+
     /**
      * Set IP address of the server.
      */
@@ -130,16 +144,15 @@ public class ChatWindow extends JFrame {
                 setTitle("Understand Me: " + this.handler.getName());
                 this.card.show(this.jMainPanel, CHAT);
                 this.jMessageTextField.requestFocusInWindow();
+            } else if ("INVALID".equals(this.handler.getReason())) {
+                // Empty name error
+                JOptionPane.showMessageDialog(null, "This name is not "
+                        + "valid, please choose a new name.");
             } else {
                 // Name already chosen error
                 JOptionPane.showMessageDialog(null, "This name has already "
                         + "been chosen, please choose a new name.");
             }
-        } catch (InterruptedException ex) {
-            System.err.println("Error in running Understand Me. "
-                    + "Waiting time error.");
-            Logger.getLogger(ChatWindow.class.getName())
-                    .log(Level.SEVERE, null, ex);
         } catch (IOException ex) {
             System.err.println("Error in running Understand Me. "
                     + "The socket could not be created.");
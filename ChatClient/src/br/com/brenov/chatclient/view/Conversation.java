@@ -0,0 +1,92 @@
+/*
+ * GNU License.
+ */
+package br.com.brenov.chatclient.view;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.swing.JTextPane;
+import javax.swing.text.BadLocationException;
+import javax.swing.text.SimpleAttributeSet;
+import javax.swing.text.StyleConstants;
+import javax.swing.text.StyledDocument;
+import javax.swing.text.StyledEditorKit;
+
+/**
+ * Conversation of the chat window. Each message is appended to the document
+ * of the conversation pane as one line, and the oldest lines are removed
+ * above the scrollback limit, so the cost of a new message does not depend on
+ * the length of the conversation. Must only be used by the event dispatch
+ * thread.
+ *
+ * @author Breno Viana
+ * @version 17/10/2026
+ */
+public class Conversation {
+
+    // Maximum number of lines kept in the conversation
+    public static final int SCROLLBACK = Integer.getInteger(
+            "understandme.scrollback", 1000);
+
+    // Conversation pane
+    private final JTextPane pane;
+    // Document of the conversation pane
+    private final StyledDocument document;
+    // Maximum number of lines kept
+    private final int scrollback;
+    // Length of each line kept, oldest first
+    private final Deque<Integer> lines = new ArrayDeque<Integer>();
+    // Style of the messages of the client
+    private final SimpleAttributeSet own = new SimpleAttributeSet();
+    // Style of the messages of the other clients
+    private final SimpleAttributeSet others = new SimpleAttributeSet();
+
+    /**
+     * Construct the conversation of a pane. The pane shows styled text.
+     *
+     * @param pane Conversation pane
+     * @param scrollback Maximum number of lines kept
+     */
+    public Conversation(JTextPane pane, int scrollback) {
+        this.pane = pane;
+        this.pane.setEditorKit(new StyledEditorKit());
+        this.document = pane.getStyledDocument();
+        this.scrollback = Math.max(1, scrollback);
+        StyleConstants.setBold(this.own, true);
+    }
+
+    /**
+     * Append a message, remove the oldest lines above the scrollback limit
+     * and scroll to the new message.
+     *
+     * @param message Message
+     * @param own True if it is a message of the client
+     */
+    public void append(String message, boolean own) {
+        String line = message + "\n";
+        try {
+            this.document.insertString(this.document.getLength(), line,
+                    own ? this.own : this.others);
+            this.lines.addLast(line.length());
+            while (this.lines.size() > this.scrollback) {
+                this.document.remove(0, this.lines.removeFirst());
+            }
+        } catch (BadLocationException ex) {
+            Logger.getLogger(Conversation.class.getName())
+                    .log(Level.SEVERE, null, ex);
+        }
+        // Align the conversation so the user does not miss new messages
+        this.pane.setCaretPosition(this.document.getLength());
+    }
+
+    /**
+     * Get the number of lines kept.
+     *
+     * @return Number of lines
+     */
+    public int size() {
+        return this.lines.size();
+    }
+}
@@ -3,9 +3,31 @@
  */
 package br.com.brenov.chatserver;
 
+import br.com.brenov.chatserver.cluster.ClusterNode;
+import br.com.brenov.chatserver.journal.Journal;
 import br.com.brenov.chatserver.control.ChatServerHandler;
+import br.com.brenov.chatserver.control.MessagePipeline;
+import br.com.brenov.chatserver.control.ResumeRegistry;
+import br.com.brenov.chatserver.control.SessionRegistry;
+import br.com.brenov.chatserver.log.ServerLog;
+import br.com.brenov.chatserver.metrics.FlushMetrics;
+import br.com.brenov.chatserver.metrics.MeasuredTranslator;
+import br.com.brenov.chatserver.metrics.MetricsEndpoint;
+import br.com.brenov.chatserver.metrics.ServerMetrics;
+import br.com.brenov.chatserver.nio.NioChatServer;
+import br.com.brenov.chatserver.protocol.BufferPool;
+import br.com.brenov.chatserver.protocol.Frame;
+import br.com.brenov.chatserver.translation.GoogleTranslator;
+import br.com.brenov.chatserver.translation.LocalTranslator;
+import br.com.brenov.chatserver.translation.TranslationBatcher;
+import br.com.brenov.chatserver.translation.TranslationCache;
+import br.com.brenov.chatserver.translation.Translator;
 import java.io.IOException;
 import java.net.ServerSocket;
+import java.security.GeneralSecurityException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -13,31 +35,173 @@ import java.util.logging.Logger;
  * A multithreaded chat room server.
  *
  * @author Breno Viana
- * @version 07/07/2017
+ * @version 17/10/2026
  */
 public class ChatServer {
 
     /**
-     * The port that the server listens on.
+     * Create the executor that runs the chat handlers (or their writers).
+     *
+     * @param config Server configuration
+     *
+     * @return Executor, or null to start a new thread to each task
+     */
+    private static ExecutorService createExecutor(ServerConfig config) {
+        switch (config.getMode()) {
+            case VIRTUAL:
+                // Virtual threads are only available in Java 21 or greater
+                try {
+                    return (ExecutorService) Executors.class
+                            .getMethod("newVirtualThreadPerTaskExecutor")
+                            .invoke(null);
+                } catch (ReflectiveOperationException ex) {
+                    throw new UnsupportedOperationException("The virtual mode "
+                            + "requires Java 21 or greater.", ex);
+                }
+            case POOL:
+                return Executors.newFixedThreadPool(config.getPoolSize());
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * Create the translator chosen by the configuration.
+     *
+     * @param config Server configuration
+     * @param api Google API Key (only required by the "google" translator)
+     *
+     * @return Translator
+     *
+     * @throws GeneralSecurityException The Google translator could not be
+     * created
+     * @throws IOException The translator could not be created
      */
-    private static final int PORT = 9001;
+    private static Translator createTranslator(ServerConfig config, String api)
+            throws GeneralSecurityException, IOException {
+        switch (config.getTranslator()) {
+            case "local":
+                return new LocalTranslator(config.getLocalDictionary(),
+                        config.getLocalLatency(), config.getLocalJitter(),
+                        config.getLocalFailures());
+            case "google":
+                if (api == null) {
+                    throw new IllegalArgumentException("The Google translator "
+                            + "requires the Google API Key as argument.");
+                }
+                return new GoogleTranslator(api,
+                        config.getTranslateConnections());
+            default:
+                throw new IllegalArgumentException("Unknown translator: "
+                        + config.getTranslator());
+        }
+    }
 
     /**
      * The appplication main method, which just listens on a port and spawns
-     * chat handler threads.
+     * chat handlers, or runs the non-blocking server when the "nio" mode is
+     * chosen (-Dunderstandme.mode=nio). The chat handlers, and the writers of
+     * their outbound queues, run in new threads ("thread" mode), in virtual
+     * threads ("virtual" mode) or in bounded pools of threads ("pool" mode).
      *
      * @param args The first argument will be used to read the Google API Key
+     * (not required by the local translator, -Dunderstandme.translator=local)
      */
     public static void main(String[] args) {
         try {
+            // Server configuration
+            ServerConfig config = new ServerConfig();
+            // Server Log, written by its own thread
+            ServerLog.start(config.getLogLevel(), config.getLogSample(),
+                    config.getLogQueue());
+            ServerLog.info("started port=" + config.getPort() + " mode="
+                    + config.getMode());
+            // Translation cache
+            final TranslationCache cache = config.getCacheSize() > 0
+                    ? new TranslationCache(config.getCacheSize(),
+                            config.getCacheTtl())
+                    : null;
+            // Clients logged in to the chat
+            SessionRegistry registry = new SessionRegistry();
+            // Server metrics, read with JMX tools or from the local endpoint
+            final ServerMetrics metrics = new ServerMetrics(registry, cache);
+            metrics.register();
+            if (config.getMetricsPort() > 0) {
+                new MetricsEndpoint(metrics, config.getMetricsPort()).start();
+                // Server Log
+                ServerLog.info("metrics port=" + config.getMetricsPort());
+            }
+            // Server Log (the totals, when the server stops)
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                if (cache != null) {
+                    ServerLog.info("cache size=" + cache.size() + " hits="
+                            + cache.getHits() + " misses=" + cache.getMisses()
+                            + " evictions=" + cache.getEvictions()
+                            + " expirations=" + cache.getExpirations());
+                }
+                ServerLog.info("metrics logins=" + metrics.getLogins()
+                        + " in=" + metrics.getMessagesIn() + " out="
+                        + metrics.getMessagesOut() + " dropped="
+                        + metrics.getDroppedDeliveries() + " translations="
+                        + metrics.getTranslationCalls() + " errors="
+                        + metrics.getTranslationErrors());
+                FlushMetrics flushes = metrics.flushes();
+                ServerLog.info(String.format("flushes count=%d messages=%d"
+                        + " bytes=%d batch=%.2f", flushes.getFlushes(),
+                        flushes.getMessages(), flushes.getBytes(),
+                        flushes.getMeanBatch()));
+                ServerLog.flush();
+            }));
+            // Translator shared by all clients
+            Translator translator = new MeasuredTranslator(createTranslator(
+                    config, args.length > 0 ? args[0] : null), metrics);
             // Server Log
-            System.out.println("The Understand Me server is running on "
-                    + "port: " + PORT + ".");
+            ServerLog.info("translator name=" + config.getTranslator());
+            // Pipeline that translates and forwards the messages, with
+            // direct buffers and one view slot per event loop in NIO mode
+            boolean nio = config.getMode() == ServerMode.NIO;
+            MessagePipeline pipeline = new MessagePipeline(
+                    new TranslationBatcher(translator, cache,
+                            config.getTranslators(), config.getBatchSize(),
+                            config.getBatchWindow()),
+                    config.getDeliverers(),
+                    new BufferPool(config.getFrameMax() + Frame.HEADER,
+                            config.getBuffersPooled(),
+                            nio && config.isBuffersDirect(),
+                            nio ? config.getEventLoops() : 0),
+                    config.getFrameMax(), metrics);
+            // Cluster of servers, when nodes are configured
+            ClusterNode cluster = new ClusterNode(config, registry, pipeline);
+            cluster.start();
+            // Journal of the messages, when a directory is configured
+            Journal journal = new Journal(config);
+            journal.start();
+            // Sessions that clients may resume after a reconnect
+            ResumeRegistry resumes = new ResumeRegistry(config, registry,
+                    cluster);
+            // Non-blocking server
+            if (config.getMode() == ServerMode.NIO) {
+                new NioChatServer(config, registry, pipeline, metrics, cluster,
+                        journal, resumes).run();
+                return;
+            }
             // Initialize server
-            ServerSocket listener = new ServerSocket(PORT);
+            ServerSocket listener = new ServerSocket(config.getPort(),
+                    config.getAcceptBacklog());
+            ExecutorService handlers = createExecutor(config);
+            ExecutorService writers = createExecutor(config);
+            Executor writerExecutor = writers != null ? writers
+                    : task -> new Thread(task).start();
             // Run server and create a chat handler to each client
             while (true) {
-                new ChatServerHandler(listener.accept(), args[0]).start();
+                ChatServerHandler handler = new ChatServerHandler(
+                        listener.accept(), registry, pipeline, writerExecutor,
+                        config, metrics, cluster, journal, resumes);
+                if (handlers == null) {
+                    new Thread(handler).start();
+                } else {
+                    handlers.execute(handler);
+                }
             }
         } catch (IOException ex) {
             // Error message
@@ -45,6 +209,12 @@ public class ChatServer {
                     + "The socket could not be created.");
             Logger.getLogger(ChatServer.class.getName())
                     .log(Level.SEVERE, null, ex);
+        } catch (GeneralSecurityException ex) {
+            // Error message
+            System.err.println("Error in running Understand Me server. "
+                    + "The translator could not be created.");
+            Logger.getLogger(ChatServer.class.getName())
+                    .log(Level.SEVERE, null, ex);
         }
     }
 
@@ -0,0 +1,575 @@
+/*
+ * GNU License.
+ */
+package br.com.brenov.chatserver;
+
+import br.com.brenov.chatserver.log.LogLevel;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Server configuration. The values are read from the system properties, so
+ * they can be changed at startup with "-Dunderstandme.(property)=(value)".
+ *
+ * @author Breno Viana
+ * @version 17/10/2026
+ */
+public class ServerConfig {
+
+    // System properties prefix
+    private static final String PREFIX = "understandme.";
+
+    // The port that the server listens on
+    private final int port;
+    // Server execution mode
+    private final ServerMode mode;
+    // Number of selector event loops (NIO mode)
+    private final int eventLoops;
+    // Number of threads that translate messages
+    private final int translators;
+    // Maximum number of messages translated in a single request
+    private final int batchSize;
+    // Time a message waits for others to be translated with it (ms)
+    private final int batchWindow;
+    // Number of threads that deliver messages
+    private final int deliverers;
+    // Maximum number of clients served at the same time (POOL mode)
+    private final int poolSize;
+    // Maximum number of pooled connections to the translation API
+    private final int translateConnections;
+    // Maximum number of messages waiting to be sent to a client
+    private final int outboundLimit;
+    // Maximum time a message may wait to be sent to a client (ms)
+    private final int outboundLag;
+    // What to do with the clients over the outbound limits
+    private final SlowConsumerPolicy slowConsumerPolicy;
+    // Maximum number of cached translations (0 disables the cache)
+    private final int cacheSize;
+    // Time to live of a cached translation, in seconds (0 to never expire)
+    private final int cacheTtl;
+    // Maximum size of a protocol line or frame payload, in bytes
+    private final int frameMax;
+    // True to encode the messages into direct buffers (NIO mode)
+    private final boolean buffersDirect;
+    // Maximum number of free message buffers kept of each size
+    private final int buffersPooled;
+    // Translation backend ("google" or "local")
+    private final String translator;
+    // Dictionary of the local translator (null to pseudo-translate)
+    private final String localDictionary;
+    // Latency of a local translation request (ms)
+    private final int localLatency;
+    // Maximum random latency added to a local translation request (ms)
+    private final int localJitter;
+    // Rate of failed local translation requests (0 to 1)
+    private final double localFailures;
+    // Server log level
+    private final LogLevel logLevel;
+    // One message event in this many is logged at INFO level (0 for none)
+    private final int logSample;
+    // Maximum number of log events waiting to be written
+    private final int logQueue;
+    // Port of the local metrics endpoint (0 to disable)
+    private final int metricsPort;
+    // Cluster addresses of all the nodes (empty to run alone)
+    private final List<String> clusterNodes;
+    // Cluster address of this node
+    private final String clusterNode;
+    // Directory of the message journal (empty to disable)
+    private final String journalDir;
+    // Size of a journal segment (MB)
+    private final int journalSegment;
+    // Maximum size of the journal (MB, 0 for no limit)
+    private final int journalRetentionSize;
+    // Maximum age of the journal (hours, 0 for no limit)
+    private final int journalRetentionAge;
+    // True to force each journal commit to the disk
+    private final boolean journalSync;
+    // Maximum number of messages waiting to be written to the journal
+    private final int journalQueue;
+    // Time a disconnected client may resume its session (s, 0 to disable)
+    private final int resumeGrace;
+    // Maximum number of messages kept for a disconnected client
+    private final int resumeBuffer;
+    // Maximum number of connections waiting to be accepted
+    private final int acceptBacklog;
+    // True if the connections may be compressed
+    private final boolean compression;
+    // Compression level (1 to 9)
+    private final int compressionLevel;
+
+    /**
+     * Construct a server configuration from the system properties.
+     */
+    public ServerConfig() {
+        int cores = Runtime.getRuntime().availableProcessors();
+        this.port = getInt("port", 9001);
+        this.mode = ServerMode.of(System.getProperty(PREFIX + "mode",
+                ServerMode.THREAD.name()));
+        this.eventLoops = getInt("nio.loops", Math.max(1, cores / 2));
+        this.translators = getInt("pipeline.translators", cores * 4);
+        this.deliverers = getInt("pipeline.deliverers", cores * 2);
+        this.batchSize = getInt("batch.size", 32);
+        this.batchWindow = getInt("batch.window", 5);
+        this.poolSize = getInt("pool.size", 256);
+        this.translateConnections = getInt("translate.connections", 20);
+        this.outboundLimit = getInt("outbound.limit", 1024);
+        this.outboundLag = getInt("outbound.lag", 10000);
+        this.slowConsumerPolicy = SlowConsumerPolicy.of(System.getProperty(
+                PREFIX + "outbound.policy",
+                SlowConsumerPolicy.DISCONNECT.name()));
+        this.cacheSize = getInt("cache.size", 10000);
+        this.cacheTtl = getInt("cache.ttl", 0);
+        this.frameMax = getInt("frame.max", 65536);
+        this.buffersDirect = Boolean.parseBoolean(System.getProperty(
+                PREFIX + "buffers.direct", "true").trim());
+        this.buffersPooled = getInt("buffers.pooled", 256);
+        this.translator = System.getProperty(PREFIX + "translator", "google")
+                .trim().toLowerCase();
+        this.localDictionary = System.getProperty(PREFIX + "local.dictionary");
+        this.localLatency = getInt("local.latency", 0);
+        this.localJitter = getInt("local.jitter", 0);
+        this.localFailures = getDouble("local.failures", 0);
+        this.logLevel = LogLevel.of(System.getProperty(PREFIX + "log.level",
+                LogLevel.INFO.name()));
+        this.logSample = getInt("log.sample", 100);
+        this.logQueue = getInt("log.queue", 8192);
+        this.metricsPort = getInt("metrics.port", 0);
+        this.clusterNodes = getList("cluster.nodes");
+        this.clusterNode = System.getProperty(PREFIX + "cluster.node",
+                this.clusterNodes.isEmpty() ? "" : this.clusterNodes.get(0))
+                .trim();
+        if (!this.clusterNodes.isEmpty()
+                && !this.clusterNodes.contains(this.clusterNode)) {
+            throw new IllegalArgumentException("The cluster node "
+                    + this.clusterNode + " is not one of the cluster nodes.");
+        }
+        this.journalDir = System.getProperty(PREFIX + "journal.dir", "")
+                .trim();
+        this.journalSegment = getInt("journal.segment", 64);
+        this.journalRetentionSize = getInt("journal.retention.size", 1024);
+        this.journalRetentionAge = getInt("journal.retention.age", 168);
+        this.journalSync = Boolean.parseBoolean(System.getProperty(
+                PREFIX + "journal.sync", "true").trim());
+        this.journalQueue = getInt("journal.queue", 65536);
+        this.resumeGrace = getInt("resume.grace", 30);
+        this.resumeBuffer = getInt("resume.buffer", 1024);
+        this.acceptBacklog = getInt("accept.backlog", 1024);
+        this.compression = Boolean.parseBoolean(System.getProperty(
+                PREFIX + "compression", "true").trim());
+        this.compressionLevel = Math.max(1, Math.min(9,
+                getInt("compression.level", 1)));
+    }
+
+    /**
+     * Read an integer system property.
+     *
+     * @param key Property name (without prefix)
+     * @param def Default value
+     *
+     * @return Property value
+     */
+    private static int getInt(String key, int def) {
+        String value = System.getProperty(PREFIX + key);
+        if (value == null || value.trim().equals("")) {
+            return def;
+        }
+        return Integer.parseInt(value.trim());
+    }
+
+    /**
+     * Read a comma-separated list system property.
+     *
+     * @param key Property name (without prefix)
+     *
+     * @return Property values (empty if the property is not set)
+     */
+    private static List<String> getList(String key) {
+        List<String> values = new ArrayList<String>();
+        String value = System.getProperty(PREFIX + key, "");
+        for (String item : value.split(",")) {
+            if (!item.trim().equals("")) {
+                values.add(item.trim());
+            }
+        }
+        return Collections.unmodifiableList(values);
+    }
+
+    /**
+     * Read a decimal system property.
+     *
+     * @param key Property name (without prefix)
+     * @param def Default value
+     *
+     * @return Property value
+     */
+    private static double getDouble(String key, double def) {
+        String value = System.getProperty(PREFIX + key);
+        if (value == null || value.trim().equals("")) {
+            return def;
+        }
+        return Double.parseDouble(value.trim());
+    }
+
+    /**
+     * Get the port that the server listens on.
+     *
+     * @return Server port
+     */
+    public int getPort() {
+        return this.port;
+    }
+
+    /**
+     * Get the server execution mode.
+     *
+     * @return Server mode
+     */
+    public ServerMode getMode() {
+        return this.mode;
+    }
+
+    /**
+     * Get the number of selector event loops.
+     *
+     * @return Number of event loops
+     */
+    public int getEventLoops() {
+        return this.eventLoops;
+    }
+
+    /**
+     * Get the number of threads that translate messages.
+     *
+     * @return Number of translator threads
+     */
+    public int getTranslators() {
+        return this.translators;
+    }
+
+    /**
+     * Get the maximum number of messages translated in a single request.
+     *
+     * @return Batch size (1 if the messages are not batched)
+     */
+    public int getBatchSize() {
+        return this.batchSize;
+    }
+
+    /**
+     * Get the time a message waits for others to be translated with it.
+     *
+     * @return Batch window in milliseconds
+     */
+    public int getBatchWindow() {
+        return this.batchWindow;
+    }
+
+    /**
+     * Get the number of threads that deliver messages.
+     *
+     * @return Number of delivery threads
+     */
+    public int getDeliverers() {
+        return this.deliverers;
+    }
+
+    /**
+     * Get the maximum number of clients served at the same time.
+     *
+     * @return Pool size
+     */
+    public int getPoolSize() {
+        return this.poolSize;
+    }
+
+    /**
+     * Get the maximum number of pooled connections to the translation API.
+     *
+     * @return Number of connections
+     */
+    public int getTranslateConnections() {
+        return this.translateConnections;
+    }
+
+    /**
+     * Get the maximum number of messages waiting to be sent to a client.
+     *
+     * @return Outbound queue limit
+     */
+    public int getOutboundLimit() {
+        return this.outboundLimit;
+    }
+
+    /**
+     * Get the maximum time a message may wait to be sent to a client.
+     *
+     * @return Outbound lag limit in milliseconds
+     */
+    public int getOutboundLag() {
+        return this.outboundLag;
+    }
+
+    /**
+     * Get what to do with the clients over the outbound limits.
+     *
+     * @return Slow consumer policy
+     */
+    public SlowConsumerPolicy getSlowConsumerPolicy() {
+        return this.slowConsumerPolicy;
+    }
+
+    /**
+     * Get the maximum number of cached translations.
+     *
+     * @return Cache size (0 if the cache is disabled)
+     */
+    public int getCacheSize() {
+        return this.cacheSize;
+    }
+
+    /**
+     * Get the time to live of a cached translation.
+     *
+     * @return Time to live in seconds (0 to never expire)
+     */
+    public int getCacheTtl() {
+        return this.cacheTtl;
+    }
+
+    /**
+     * Get the maximum size of a protocol line or frame payload.
+     *
+     * @return Maximum size in bytes
+     */
+    public int getFrameMax() {
+        return this.frameMax;
+    }
+
+    /**
+     * Check if the messages are encoded into direct buffers (NIO mode).
+     *
+     * @return True to use direct buffers
+     */
+    public boolean isBuffersDirect() {
+        return this.buffersDirect;
+    }
+
+    /**
+     * Get the maximum number of free message buffers kept of each size.
+     *
+     * @return Number of pooled buffers
+     */
+    public int getBuffersPooled() {
+        return this.buffersPooled;
+    }
+
+    /**
+     * Get the translation backend.
+     *
+     * @return "google" or "local"
+     */
+    public String getTranslator() {
+        return this.translator;
+    }
+
+    /**
+     * Get the dictionary of the local translator.
+     *
+     * @return Dictionary file (null to pseudo-translate)
+     */
+    public String getLocalDictionary() {
+        return this.localDictionary;
+    }
+
+    /**
+     * Get the latency of a local translation request.
+     *
+     * @return Latency in milliseconds
+     */
+    public int getLocalLatency() {
+        return this.localLatency;
+    }
+
+    /**
+     * Get the maximum random latency added to a local translation request.
+     *
+     * @return Jitter in milliseconds
+     */
+    public int getLocalJitter() {
+        return this.localJitter;
+    }
+
+    /**
+     * Get the rate of failed local translation requests.
+     *
+     * @return Failure rate (0 to 1)
+     */
+    public double getLocalFailures() {
+        return this.localFailures;
+    }
+
+    /**
+     * Get the server log level.
+     *
+     * @return Log level
+     */
+    public LogLevel getLogLevel() {
+        return this.logLevel;
+    }
+
+    /**
+     * Get how many message events there are for each one logged at INFO
+     * level.
+     *
+     * @return Sample rate (0 if the message events are not logged)
+     */
+    public int getLogSample() {
+        return this.logSample;
+    }
+
+    /**
+     * Get the maximum number of log events waiting to be written.
+     *
+     * @return Log queue capacity
+     */
+    public int getLogQueue() {
+        return this.logQueue;
+    }
+
+    /**
+     * Get the port of the local metrics endpoint.
+     *
+     * @return Metrics port (0 if the endpoint is disabled)
+     */
+    public int getMetricsPort() {
+        return this.metricsPort;
+    }
+
+    /**
+     * Get the cluster addresses ("host:port") of all the nodes, in the same
+     * order on every node.
+     *
+     * @return Cluster nodes (empty if the server runs alone)
+     */
+    public List<String> getClusterNodes() {
+        return this.clusterNodes;
+    }
+
+    /**
+     * Get the cluster address of this node. The node listens for the other
+     * nodes on its port.
+     *
+     * @return Cluster address ("host:port")
+     */
+    public String getClusterNode() {
+        return this.clusterNode;
+    }
+
+    /**
+     * Get the directory of the message journal.
+     *
+     * @return Journal directory (empty if the journal is disabled)
+     */
+    public String getJournalDir() {
+        return this.journalDir;
+    }
+
+    /**
+     * Get the size at which the journal starts a new segment.
+     *
+     * @return Segment size (MB)
+     */
+    public int getJournalSegment() {
+        return this.journalSegment;
+    }
+
+    /**
+     * Get the maximum size of the journal. The oldest segments are removed
+     * above it.
+     *
+     * @return Retention size (MB, 0 for no limit)
+     */
+    public int getJournalRetentionSize() {
+        return this.journalRetentionSize;
+    }
+
+    /**
+     * Get the maximum age of the journal. The segments older than it are
+     * removed.
+     *
+     * @return Retention age (hours, 0 for no limit)
+     */
+    public int getJournalRetentionAge() {
+        return this.journalRetentionAge;
+    }
+
+    /**
+     * Check if each journal commit is forced to the disk.
+     *
+     * @return True to force the commits, false to leave them to the OS
+     */
+    public boolean isJournalSync() {
+        return this.journalSync;
+    }
+
+    /**
+     * Get the maximum number of messages waiting to be written to the
+     * journal. Messages above it are not journaled.
+     *
+     * @return Journal queue capacity
+     */
+    public int getJournalQueue() {
+        return this.journalQueue;
+    }
+
+    /**
+     * Get the time a disconnected client may resume its session. Its name
+     * stays reserved, and its messages kept, meanwhile.
+     *
+     * @return Grace time (s, 0 if the sessions are not resumed)
+     */
+    public int getResumeGrace() {
+        return this.resumeGrace;
+    }
+
+    /**
+     * Get the maximum number of messages kept for a disconnected client.
+     * Messages above it are dropped.
+     *
+     * @return Resume buffer capacity
+     */
+    public int getResumeBuffer() {
+        return this.resumeBuffer;
+    }
+
+    /**
+     * Get the maximum number of connections waiting to be accepted, so the
+     * clients that reconnect together after a restart are not refused.
+     *
+     * @return Accept backlog
+     */
+    public int getAcceptBacklog() {
+        return this.acceptBacklog;
+    }
+
+    /**
+     * Check if the connections of the clients that ask for it are compressed.
+     *
+     * @return True if compression is accepted
+     */
+    public boolean isCompression() {
+        return this.compression;
+    }
+
+    /**
+     * Get the compression level of the compressed connections. Higher levels
+     * save a few more bytes for much more CPU.
+     *
+     * @return Compression level (1 to 9)
+     */
+    public int getCompressionLevel() {
+        return this.compressionLevel;
+    }
+}
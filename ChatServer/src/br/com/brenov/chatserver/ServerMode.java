@@ -0,0 +1,41 @@
+/*
+ * GNU License.
+ */
+package br.com.brenov.chatserver;
+
+/**
+ * Supported server execution modes.
+ *
+ * @author Breno Viana
+ * @version 17/10/2026
+ */
+public enum ServerMode {
+
+    /**
+     * One platform thread per connected client (blocking sockets).
+     */
+    THREAD,
+    /**
+     * One virtual thread per connected client (requires Java 21 or greater).
+     */
+    VIRTUAL,
+    /**
+     * Clients served by a bounded pool of platform threads.
+     */
+    POOL,
+    /**
+     * Non-blocking sockets served by a small pool of selector event loops.
+     */
+    NIO;
+
+    /**
+     * Get a server mode by its name, ignoring case.
+     *
+     * @param name Mode name
+     *
+     * @return Server mode
+     */
+    public static ServerMode of(String name) {
+        return ServerMode.valueOf(name.trim().toUpperCase());
+    }
+}
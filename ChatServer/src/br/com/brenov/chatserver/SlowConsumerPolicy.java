@@ -0,0 +1,34 @@
+/*
+ * GNU License.
+ */
+package br.com.brenov.chatserver;
+
+/**
+ * What the server does with a client that does not read its messages fast
+ * enough (its outbound queue is full or its oldest message waits too long).
+ *
+ * @author Breno Viana
+ * @version 17/10/2026
+ */
+public enum SlowConsumerPolicy {
+
+    /**
+     * Drop the new messages to the client until it catches up.
+     */
+    DROP,
+    /**
+     * Disconnect the client.
+     */
+    DISCONNECT;
+
+    /**
+     * Get a policy by its name, ignoring case.
+     *
+     * @param name Policy name
+     *
+     * @return Policy
+     */
+    public static SlowConsumerPolicy of(String name) {
+        return SlowConsumerPolicy.valueOf(name.trim().toUpperCase());
+    }
+}
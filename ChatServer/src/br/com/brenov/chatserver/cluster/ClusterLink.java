@@ -0,0 +1,297 @@
+/*
+ * GNU License.
+ */
+package br.com.brenov.chatserver.cluster;
+
+import br.com.brenov.chatserver.control.MessagePipeline;
+import br.com.brenov.chatserver.log.ServerLog;
+import br.com.brenov.chatserver.protocol.Frame;
+import br.com.brenov.chatserver.protocol.ProtocolReader;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A TCP link between two nodes of the cluster. Both directions carry frames
+ * (see {@link Frame}) whose payload fields are separated by new lines:
+ *
+ * - HELLO node: the first frame of each side;
+ * - CLAIM id, name / CLAIMED id, true|false, name: reserve a name at its
+ *   owner;
+ * - RELEASE name: free a name at its owner;
+ * - ROOM_ADD room / ROOM_REMOVE room: the rooms with clients on the sender;
+ * - RELAY room, name, language, text: a message of a client of the sender.
+ *
+ * The link has its own reader thread and writer thread. Other threads only
+ * queue encoded frames, and the writer writes all the queued frames before it
+ * flushes them, so a slow link does not block the clients of the node.
+ *
+ * @author Breno Viana
+ * @version 17/10/2026
+ */
+class ClusterLink implements Runnable {
+
+    // First frame of each side (node)
+    static final byte HELLO = 1;
+    // Reserve a name (id, name)
+    static final byte CLAIM = 2;
+    // Answer of a claim (id, true or false, name)
+    static final byte CLAIMED = 3;
+    // Free a name (name)
+    static final byte RELEASE = 4;
+    // The sender has clients in a room (room)
+    static final byte ROOM_ADD = 5;
+    // The sender has no more clients in a room (room)
+    static final byte ROOM_REMOVE = 6;
+    // Message of a client (room, name, language, text)
+    static final byte RELAY = 7;
+
+    // Maximum number of frames waiting to be written
+    private static final int QUEUE = 65536;
+    // Marks the end of the writer
+    private static final byte[] END = new byte[0];
+
+    // Cluster node
+    private final ClusterNode node;
+    // Socket
+    private final Socket socket;
+    // Read frames
+    private final ProtocolReader in;
+    // Write frames
+    private final OutputStream out;
+    // Frames waiting to be written
+    private final BlockingQueue<byte[]> queue
+            = new ArrayBlockingQueue<byte[]>(QUEUE);
+    // Pipeline entry of the relayed messages (used by the reader only)
+    private final MessagePipeline.Sender sender;
+    // Claims waiting for an answer, by id
+    private final ConcurrentMap<Long, CompletableFuture<Boolean>> claims
+            = new ConcurrentHashMap<Long, CompletableFuture<Boolean>>();
+    // Next claim id
+    private final AtomicLong ids = new AtomicLong();
+
+    // Node at the other side (null until its HELLO arrives)
+    private volatile String peer;
+    // True if the link was closed
+    private volatile boolean closed = false;
+    // Number of frames dropped because the queue was full
+    private long dropped = 0;
+
+    /**
+     * Construct a link and queue its HELLO, so it is the first frame sent.
+     *
+     * @param node Cluster node
+     * @param socket Connected socket
+     * @param self Cluster address of this node
+     * @param peer Node at the other side (null if it is not known yet)
+     * @param max Maximum payload of a frame, in bytes
+     *
+     * @throws IOException The streams could not be created
+     */
+    ClusterLink(ClusterNode node, Socket socket, String self, String peer,
+            int max) throws IOException {
+        this.node = node;
+        this.socket = socket;
+        this.peer = peer;
+        this.socket.setTcpNoDelay(true);
+        this.in = new ProtocolReader(new BufferedInputStream(
+                socket.getInputStream(), 65536), max);
+        this.out = new BufferedOutputStream(socket.getOutputStream(), 65536);
+        this.sender = node.pipeline().newSender();
+        send(HELLO, self);
+    }
+
+    /**
+     * Start the reader and writer threads.
+     */
+    void start() {
+        Thread writer = new Thread(this::write, "cluster-writer-"
+                + this.socket.getPort());
+        writer.setDaemon(true);
+        writer.start();
+        Thread reader = new Thread(this, "cluster-reader-"
+                + this.socket.getPort());
+        reader.setDaemon(true);
+        reader.start();
+    }
+
+    /**
+     * Get the node at the other side.
+     *
+     * @return Cluster address of the node (null until its HELLO arrives)
+     */
+    String getPeer() {
+        return this.peer;
+    }
+
+    /**
+     * Get the pipeline entry of the messages relayed by the other side. Must
+     * only be used by the reader thread.
+     *
+     * @return Sender
+     */
+    MessagePipeline.Sender getSender() {
+        return this.sender;
+    }
+
+    /**
+     * Queue a frame.
+     *
+     * @param type Frame type
+     * @param payload Frame payload
+     */
+    void send(byte type, String payload) {
+        send(Frame.encode(type, payload));
+    }
+
+    /**
+     * Queue an encoded frame, or drop it if the queue is full.
+     *
+     * @param frame Frame bytes
+     */
+    void send(byte[] frame) {
+        if (this.closed || this.queue.offer(frame)) {
+            return;
+        }
+        synchronized (this) {
+            if (this.dropped++ % 1000 == 0) {
+                // Server Log
+                ServerLog.warn("cluster peer=" + this.peer
+                        + " action=drop reason=full dropped=" + this.dropped);
+            }
+        }
+    }
+
+    /**
+     * Reserve a name at the node at the other side, its owner. A claim that
+     * is not answered in time is refused and forgotten (the node frees the
+     * name if the answer arrives later).
+     *
+     * @param name Client name
+     * @param timer Timer of the claims not answered
+     * @param timeout Time to wait for the answer, in milliseconds
+     *
+     * @return True when the name is reserved, false if it is used
+     */
+    CompletableFuture<Boolean> claim(String name,
+            ScheduledExecutorService timer, long timeout) {
+        CompletableFuture<Boolean> claim = new CompletableFuture<Boolean>();
+        long id = this.ids.incrementAndGet();
+        this.claims.put(id, claim);
+        send(CLAIM, id + "\n" + name);
+        if (this.closed) {
+            claimed(id, false);
+        } else {
+            timer.schedule(() -> {
+                if (this.claims.remove(id, claim)) {
+                    claim.complete(false);
+                }
+            }, timeout, TimeUnit.MILLISECONDS);
+        }
+        return claim;
+    }
+
+    /**
+     * Answer a claim.
+     *
+     * @param id Claim id
+     * @param accepted True if the name was reserved
+     *
+     * @return False if the claim was already refused (not answered in time,
+     * or the link was closed)
+     */
+    boolean claimed(long id, boolean accepted) {
+        CompletableFuture<Boolean> claim = this.claims.remove(id);
+        return claim != null && claim.complete(accepted);
+    }
+
+    /**
+     * Read the frames of the other side until the link is closed.
+     */
+    @Override
+    public void run() {
+        try {
+            while (true) {
+                int type = this.in.readFrame();
+                if (type < 0) {
+                    break;
+                }
+                String payload = this.in.getPayload();
+                if (type == HELLO) {
+                    // Links accepted by this node learn the other side now
+                    if (this.peer == null) {
+                        this.peer = payload;
+                        this.node.connected(this);
+                    }
+                } else if (this.peer != null) {
+                    this.node.received(this, (byte) type, payload);
+                }
+            }
+        } catch (IOException e) {
+            // Server Log
+            ServerLog.warn("cluster peer=" + this.peer + " error=" + e);
+        } finally {
+            close();
+        }
+    }
+
+    /**
+     * Write the queued frames until the link is closed.
+     */
+    private void write() {
+        List<byte[]> frames = new ArrayList<byte[]>();
+        try {
+            while (true) {
+                frames.add(this.queue.take());
+                this.queue.drainTo(frames);
+                for (byte[] frame : frames) {
+                    if (frame == END) {
+                        return;
+                    }
+                    this.out.write(frame);
+                }
+                this.out.flush();
+                frames.clear();
+            }
+        } catch (IOException e) {
+            close();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Close the link, refuse the claims waiting for an answer, and tell the
+     * node.
+     */
+    void close() {
+        synchronized (this) {
+            if (this.closed) {
+                return;
+            }
+            this.closed = true;
+        }
+        try {
+            this.socket.close();
+        } catch (IOException e) {
+        }
+        this.queue.clear();
+        this.queue.offer(END);
+        for (Long id : this.claims.keySet()) {
+            claimed(id, false);
+        }
+        this.node.disconnected(this);
+    }
+}
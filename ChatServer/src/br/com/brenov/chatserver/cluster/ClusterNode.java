@@ -0,0 +1,429 @@
+/*
+ * GNU License.
+ */
+package br.com.brenov.chatserver.cluster;
+
+import br.com.brenov.chatserver.ServerConfig;
+import br.com.brenov.chatserver.control.MessagePipeline;
+import br.com.brenov.chatserver.control.Room;
+import br.com.brenov.chatserver.control.RoomRegistry;
+import br.com.brenov.chatserver.control.SessionRegistry;
+import br.com.brenov.chatserver.log.ServerLog;
+import br.com.brenov.chatserver.model.Session;
+import br.com.brenov.chatserver.protocol.Frame;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A node of a cluster of chat servers. The nodes are listed, in the same
+ * order, in the configuration of every node; each node accepts the links of
+ * the nodes listed before it and connects to the ones listed after it, so
+ * every two nodes share one TCP link (see {@link ClusterLink}).
+ *
+ * Names: each name is owned by one node, chosen by the hash of the name, which
+ * reserves it for the clients of all the nodes. A client logs in when its
+ * name is free on its node and reserved at the owner; if the owner cannot be
+ * reached, the name is refused. The names reserved by a node are freed when
+ * its link closes, and reserved again by it when the link is back.
+ *
+ * Messages: every node tells the others which rooms have clients on it, and
+ * relays the messages of its clients only to the nodes with clients in the
+ * same room. A relayed message goes through the message pipeline of the node
+ * that receives it, so each node translates the message to the languages of
+ * its own clients, once to each language.
+ *
+ * Without cluster nodes in the configuration, the server runs alone: names
+ * are only checked by the session registry and nothing is relayed.
+ *
+ * @author Breno Viana
+ * @version 17/10/2026
+ */
+public class ClusterNode implements RoomRegistry.Listener {
+
+    // Time to wait for the answer of a claim (ms)
+    private static final long CLAIM_TIMEOUT = 5000;
+    // Time between the attempts to connect to a node (ms)
+    private static final long RECONNECT = 1000;
+
+    // Cluster addresses of all the nodes
+    private final List<String> nodes;
+    // Cluster address of this node
+    private final String self;
+    // Maximum payload of a link frame, in bytes
+    private final int max;
+    // Clients logged in to this node
+    private final SessionRegistry registry;
+    // Pipeline that translates and forwards the relayed messages
+    private final MessagePipeline pipeline;
+
+    // Links to the other nodes, by node
+    private final ConcurrentMap<String, ClusterLink> links
+            = new ConcurrentHashMap<String, ClusterLink>();
+    // Links to the nodes with clients in each room
+    private final ConcurrentMap<String, Set<ClusterLink>> rooms
+            = new ConcurrentHashMap<String, Set<ClusterLink>>();
+    // Names owned by this node, reserved by the clients of each node
+    private final ConcurrentMap<String, String> names
+            = new ConcurrentHashMap<String, String>();
+    // Reconnections and claims not answered
+    private final ScheduledExecutorService timer;
+
+    /**
+     * Construct a cluster node.
+     *
+     * @param config Server configuration
+     * @param registry Clients logged in to this node
+     * @param pipeline Message pipeline
+     */
+    public ClusterNode(ServerConfig config, SessionRegistry registry,
+            MessagePipeline pipeline) {
+        this.nodes = config.getClusterNodes();
+        this.self = config.getClusterNode();
+        this.max = config.getFrameMax() + 1024;
+        this.registry = registry;
+        this.pipeline = pipeline;
+        this.timer = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "cluster-timer");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /**
+     * Check if the server runs in a cluster.
+     *
+     * @return True if there are cluster nodes in the configuration
+     */
+    public boolean isEnabled() {
+        return !this.nodes.isEmpty();
+    }
+
+    /**
+     * Start the node: listen for the nodes listed before this one and connect
+     * to the nodes listed after it. Does nothing if the server runs alone.
+     *
+     * @throws IOException The cluster port could not be opened
+     */
+    public void start() throws IOException {
+        if (!isEnabled()) {
+            return;
+        }
+        this.registry.rooms().setListener(this);
+        final ServerSocket listener = new ServerSocket();
+        listener.bind(new InetSocketAddress(port(this.self)));
+        Thread acceptor = new Thread(() -> {
+            while (true) {
+                try {
+                    new ClusterLink(this, listener.accept(), this.self, null,
+                            this.max).start();
+                } catch (IOException e) {
+                    // Server Log
+                    ServerLog.warn("cluster accept error=" + e);
+                }
+            }
+        }, "cluster-acceptor");
+        acceptor.setDaemon(true);
+        acceptor.start();
+        for (int i = this.nodes.indexOf(this.self) + 1; i < this.nodes.size();
+                i++) {
+            connect(this.nodes.get(i));
+        }
+        // Server Log
+        ServerLog.info("cluster node=" + this.self + " nodes="
+                + this.nodes.size());
+    }
+
+    /**
+     * Get the port of a cluster address.
+     *
+     * @param node Cluster address ("host:port")
+     *
+     * @return Port
+     */
+    private static int port(String node) {
+        return Integer.parseInt(node.substring(node.lastIndexOf(':') + 1));
+    }
+
+    /**
+     * Connect to a node, trying again later if it cannot be reached.
+     *
+     * @param node Cluster address
+     */
+    private void connect(String node) {
+        try {
+            Socket socket = new Socket(node.substring(0,
+                    node.lastIndexOf(':')), port(node));
+            ClusterLink link = new ClusterLink(this, socket, this.self, node,
+                    this.max);
+            connected(link);
+            link.start();
+        } catch (IOException e) {
+            this.timer.schedule(() -> connect(node), RECONNECT,
+                    TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Get the message pipeline.
+     *
+     * @return Message pipeline
+     */
+    MessagePipeline pipeline() {
+        return this.pipeline;
+    }
+
+    /**
+     * Get the owner of a name.
+     *
+     * @param name Client name
+     *
+     * @return Cluster address of the node that owns the name
+     */
+    private String owner(String name) {
+        return this.nodes.get(Math.floorMod(name.hashCode(),
+                this.nodes.size()));
+    }
+
+    /**
+     * Reserve the name of a client of this node at its owner. The client must
+     * already be in the session registry of this node.
+     *
+     * @param name Client name
+     *
+     * @return True when the name is reserved, false if it is used by a client
+     * of another node or its owner cannot be reached
+     */
+    public CompletableFuture<Boolean> claim(String name) {
+        if (!isEnabled()) {
+            return CompletableFuture.completedFuture(true);
+        }
+        String owner = owner(name);
+        if (owner.equals(this.self)) {
+            return CompletableFuture.completedFuture(
+                    this.names.putIfAbsent(name, this.self) == null);
+        }
+        ClusterLink link = this.links.get(owner);
+        if (link == null) {
+            return CompletableFuture.completedFuture(false);
+        }
+        return link.claim(name, this.timer, CLAIM_TIMEOUT);
+    }
+
+    /**
+     * Free the name of a client of this node that left.
+     *
+     * @param name Client name
+     */
+    public void release(String name) {
+        if (!isEnabled()) {
+            return;
+        }
+        String owner = owner(name);
+        if (owner.equals(this.self)) {
+            this.names.remove(name, this.self);
+            return;
+        }
+        ClusterLink link = this.links.get(owner);
+        if (link != null) {
+            link.send(ClusterLink.RELEASE, name);
+        }
+    }
+
+    /**
+     * Relay a message of a client of this node to the nodes with clients in
+     * its room. The message is encoded once for all the nodes.
+     *
+     * @param room Room of the client
+     * @param from Client who sent the message
+     * @param text Message
+     */
+    public void relay(Room room, Session from, String text) {
+        Set<ClusterLink> targets = this.rooms.get(room.getName());
+        if (targets == null || targets.isEmpty()) {
+            return;
+        }
+        byte[] frame = Frame.encode(ClusterLink.RELAY, room.getName() + "\n"
+                + from.getName() + "\n" + from.getLanguage() + "\n" + text);
+        for (ClusterLink link : targets) {
+            link.send(frame);
+        }
+    }
+
+    /**
+     * Tell the other nodes that this node has clients in a room.
+     *
+     * @param room Room name
+     */
+    @Override
+    public void created(String room) {
+        for (ClusterLink link : this.links.values()) {
+            link.send(ClusterLink.ROOM_ADD, room);
+        }
+    }
+
+    /**
+     * Tell the other nodes that this node has no more clients in a room.
+     *
+     * @param room Room name
+     */
+    @Override
+    public void removed(String room) {
+        for (ClusterLink link : this.links.values()) {
+            link.send(ClusterLink.ROOM_REMOVE, room);
+        }
+    }
+
+    /**
+     * A link is up: send the rooms of this node and reserve again, at the
+     * node at the other side, the names of the clients of this node.
+     *
+     * @param link Link
+     */
+    void connected(ClusterLink link) {
+        String peer = link.getPeer();
+        ClusterLink old = this.links.put(peer, link);
+        if (old != null) {
+            // The node restarted: forget what it had
+            forget(peer, old);
+            old.close();
+        }
+        // Server Log
+        ServerLog.info("cluster connected peer=" + peer);
+        // Rooms created from now on are sent by the room listener
+        for (String room : this.registry.rooms().names()) {
+            link.send(ClusterLink.ROOM_ADD, room);
+        }
+        for (Session session : this.registry.all()) {
+            final String name = session.getName();
+            if (owner(name).equals(peer)) {
+                link.claim(name, this.timer, CLAIM_TIMEOUT).thenAccept(
+                        accepted -> {
+                            if (!accepted) {
+                                // Server Log
+                                ServerLog.warn("cluster conflict name="
+                                        + name + " peer=" + peer);
+                            }
+                        });
+            }
+        }
+    }
+
+    /**
+     * A link is down: forget what the node at the other side had and, if
+     * this node connects to it, try to connect again.
+     *
+     * @param link Link
+     */
+    void disconnected(ClusterLink link) {
+        String peer = link.getPeer();
+        if (peer == null || !this.links.remove(peer, link)) {
+            return;
+        }
+        // Server Log
+        ServerLog.warn("cluster disconnected peer=" + peer);
+        forget(peer, link);
+        if (this.nodes.indexOf(peer) > this.nodes.indexOf(this.self)) {
+            this.timer.schedule(() -> connect(peer), RECONNECT,
+                    TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Forget the names reserved and the rooms of a node.
+     *
+     * @param peer Cluster address of the node
+     * @param link Link to the node
+     */
+    private void forget(String peer, ClusterLink link) {
+        this.names.values().removeIf(peer::equals);
+        for (String room : this.rooms.keySet()) {
+            removeRoom(room, link);
+        }
+    }
+
+    /**
+     * Remove a node from the nodes with clients in a room.
+     *
+     * @param room Room name
+     * @param link Link to the node
+     */
+    private void removeRoom(String room, ClusterLink link) {
+        this.rooms.computeIfPresent(room, (key, set) -> {
+            set.remove(link);
+            return set.isEmpty() ? null : set;
+        });
+    }
+
+    /**
+     * Handle a frame of another node. Runs in the reader thread of the link.
+     *
+     * @param link Link
+     * @param type Frame type
+     * @param payload Frame payload
+     */
+    void received(ClusterLink link, byte type, String payload) {
+        switch (type) {
+            case ClusterLink.CLAIM: {
+                int end = payload.indexOf('\n');
+                String name = payload.substring(end + 1);
+                String holder = this.names.putIfAbsent(name, link.getPeer());
+                boolean accepted = holder == null
+                        || holder.equals(link.getPeer());
+                link.send(ClusterLink.CLAIMED, payload.substring(0, end)
+                        + "\n" + accepted + "\n" + name);
+                break;
+            }
+            case ClusterLink.CLAIMED: {
+                String[] fields = payload.split("\n", 3);
+                boolean accepted = Boolean.parseBoolean(fields[1]);
+                if (!link.claimed(Long.parseLong(fields[0]), accepted)
+                        && accepted && this.registry.get(fields[2]) == null) {
+                    // The claim was refused meanwhile: free the name, unless
+                    // a client of this node got it since
+                    link.send(ClusterLink.RELEASE, fields[2]);
+                }
+                break;
+            }
+            case ClusterLink.RELEASE:
+                this.names.remove(payload, link.getPeer());
+                break;
+            case ClusterLink.ROOM_ADD:
+                this.rooms.compute(payload, (key, set) -> {
+                    if (set == null) {
+                        set = ConcurrentHashMap.newKeySet();
+                    }
+                    set.add(link);
+                    return set;
+                });
+                break;
+            case ClusterLink.ROOM_REMOVE:
+                removeRoom(payload, link);
+                break;
+            case ClusterLink.RELAY: {
+                String[] fields = payload.split("\n", 4);
+                if (fields.length < 4) {
+                    break;
+                }
+                Room room = this.registry.rooms().get(fields[0]);
+                if (room != null) {
+                    // Translate and deliver to the clients of this node
+                    link.getSender().send(new RemoteSession(fields[1],
+                            fields[2]), fields[3], room.byLanguage());
+                }
+                break;
+            }
+            default:
+                break;
+        }
+    }
+}
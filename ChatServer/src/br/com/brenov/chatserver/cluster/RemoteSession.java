@@ -0,0 +1,83 @@
+/*
+ * GNU License.
+ */
+package br.com.brenov.chatserver.cluster;
+
+import br.com.brenov.chatserver.model.Session;
+import br.com.brenov.chatserver.protocol.SharedBuffer;
+
+/**
+ * A client of another node, as the sender of a relayed message: the message
+ * pipeline only needs its name and language to translate and deliver the
+ * message to the clients of this node.
+ *
+ * @author Breno Viana
+ * @version 17/10/2026
+ */
+class RemoteSession implements Session {
+
+    // Client name
+    private final String name;
+    // Client language
+    private final String language;
+
+    /**
+     * Construct a remote session.
+     *
+     * @param name Client name
+     * @param language Client language
+     */
+    RemoteSession(String name, String language) {
+        this.name = name;
+        this.language = language;
+    }
+
+    /**
+     * Get client name.
+     *
+     * @return Client name
+     */
+    @Override
+    public String getName() {
+        return this.name;
+    }
+
+    /**
+     * Get client language.
+     *
+     * @return Client language
+     */
+    @Override
+    public String getLanguage() {
+        return this.language;
+    }
+
+    /**
+     * Check if the client uses the framed protocol.
+     *
+     * @return False (the client is not connected to this node)
+     */
+    @Override
+    public boolean isFramed() {
+        return false;
+    }
+
+    /**
+     * Get the number of messages waiting to be sent to the client.
+     *
+     * @return 0 (the client is not connected to this node)
+     */
+    @Override
+    public int getQueued() {
+        return 0;
+    }
+
+    /**
+     * Ignore a message: the node of the client delivers it.
+     *
+     * @param message Encoded message
+     */
+    @Override
+    public void send(SharedBuffer message) {
+    }
+}
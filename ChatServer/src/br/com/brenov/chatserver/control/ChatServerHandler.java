@@ -3,20 +3,22 @@
  */
 package br.com.brenov.chatserver.control;
 
-import java.io.BufferedReader;
+import br.com.brenov.chatserver.ServerConfig;
+import br.com.brenov.chatserver.cluster.ClusterNode;
+import br.com.brenov.chatserver.journal.Journal;
+import br.com.brenov.chatserver.log.ServerLog;
+import br.com.brenov.chatserver.metrics.ServerMetrics;
+import br.com.brenov.chatserver.protocol.Compression;
+import br.com.brenov.chatserver.protocol.Frame;
+import br.com.brenov.chatserver.protocol.ProtocolReader;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
 import java.io.IOException;
-import java.io.InputStreamReader;
-import java.io.PrintWriter;
-import java.util.HashMap;
-import java.util.Arrays;
-import java.util.Map;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.net.Socket;
-import com.google.api.client.json.gson.GsonFactory;
-import com.google.api.services.translate.Translate;
-import com.google.api.services.translate.model.TranslationsListResponse;
-import com.google.api.services.translate.model.TranslationsResource;
-import com.google.api.client.googleapis.javanet.GoogleNetHttpTransport;
-import java.util.AbstractMap;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.Executor;
 
 /**
  * Server handler class.
@@ -26,53 +28,203 @@ import java.util.AbstractMap;
  * used. When the client chooses a unique name, the server sends a message
  * confirming the login "NAMEACCEPTED". Then, messages sent by that client will
  * be forwarded to other clients, translating them to the respective languages
- * of each logged client.
+ * of each client of the same room. Clients enter the lobby when they log in,
+ * and may join another room with "JOIN" and the room name, go back to the
+ * lobby with "LEAVE" and list the rooms with "ROOMS".
  *
  * Messages sent to this client must be sent with the word "MESSAGE" as
- * protocol, and will be forwarded with the word "MESSAGE" prefixed.
+ * protocol, and will be forwarded with the word "MESSAGE" prefixed. Clients
+ * that log in with "LOGIN FRAMED" are accepted with "NAMEACCEPTED FRAMED" and
+ * then send and receive the messages as frames (see {@link Frame}).
+ *
+ * A refused login is answered with "NAMEREJECTED" and the reason: USED (the
+ * name is used on this server), CLUSTER (refused by the cluster) or INVALID
+ * (empty name or language, and the connection is closed). Clients that log in
+ * with "RESUME" get a token, and their session is parked when they lose the
+ * connection without "QUIT" (see {@link ResumeRegistry}). Clients that end
+ * the login line with " DEFLATE" get a compressed connection, if the server
+ * accepts it (see {@link Compression}).
  *
  * @author Breno Viana
- * @version 12/07/2017
+ * @version 17/10/2026
  */
-public class ChatServerHandler extends Thread {
+public class ChatServerHandler implements Runnable {
 
     // Receive client messages
-    private BufferedReader in;
+    private ProtocolReader in;
+    // Input stream under the protocol reader
+    private InputStream input;
     // Forward client messages
-    private PrintWriter out;
+    private OutputStream out;
+    // True if the client uses the framed protocol
+    private boolean framed;
 
     // Client name
     private String name;
     // Client language
     private String language;
+    // True if the client left with "QUIT"
+    private boolean quit = false;
+    // True if the connection is compressed
+    private boolean compressed = false;
 
     // Socket
     private Socket socket;
-    // API Key
-    private String api;
+    // Clients logged in to the chat
+    private SessionRegistry registry;
+    // Pipeline that translates and forwards the messages
+    private MessagePipeline pipeline;
+    // Runs the client writer
+    private Executor writerExecutor;
+    // Server configuration
+    private ServerConfig config;
+    // Messages to be sent to the client
+    private OutboundQueue outbound;
+    // Room of the client
+    private Room room;
+    // Server metrics
+    private ServerMetrics metrics;
+    // Cluster of this server
+    private ClusterNode cluster;
+    // Journal of the messages
+    private Journal journal;
+    // Sessions that may be resumed
+    private ResumeRegistry resumes;
 
     /**
-     * The set of chat clients, with their names and languages. This is the set
-     * clients logged in to chat, it is used to not allow users to not use
-     * equal.
+     * Construct a server handler.
+     *
+     * @param socket Server socket
+     * @param registry Clients logged in to the chat
+     * @param pipeline Message pipeline
+     * @param writerExecutor Runs the client writer
+     * @param config Server configuration
+     * @param metrics Server metrics
+     * @param cluster Cluster of this server
+     * @param journal Journal of the messages
+     * @param resumes Sessions that may be resumed
      */
-    private static HashMap<String, String> names = new HashMap<String, String>();
+    public ChatServerHandler(Socket socket, SessionRegistry registry,
+            MessagePipeline pipeline, Executor writerExecutor,
+            ServerConfig config, ServerMetrics metrics, ClusterNode cluster,
+            Journal journal, ResumeRegistry resumes) {
+        this.socket = socket;
+        this.registry = registry;
+        this.pipeline = pipeline;
+        this.writerExecutor = writerExecutor;
+        this.config = config;
+        this.metrics = metrics;
+        this.cluster = cluster;
+        this.journal = journal;
+        this.resumes = resumes;
+    }
 
     /**
-     * The set of all the print writers for all the clients. This set is kept so
-     * we can easily broadcast messages.
+     * Send a protocol line to the client.
+     *
+     * @param line Line to be sent
+     *
+     * @throws IOException Error on socket
      */
-    private static HashMap<PrintWriter, HashMap.Entry<String, String>> writers
-            = new HashMap<PrintWriter, HashMap.Entry<String, String>>();
+    private void println(String line) throws IOException {
+        this.out.write((line + "\n").getBytes(StandardCharsets.UTF_8));
+        this.out.flush();
+    }
 
     /**
-     * Construct a server handler.
+     * Read the next message sent by the client, handling the room commands and
+     * ignoring other protocols.
      *
-     * @param socket Server socket
+     * @return Message, or null if the client left
+     *
+     * @throws IOException Error on socket, or message too large
      */
-    public ChatServerHandler(Socket socket, String api) {
-        this.socket = socket;
-        this.api = api;
+    private String readMessage() throws IOException {
+        while (true) {
+            if (this.framed) {
+                // Check frame type
+                int type = this.in.readFrame();
+                if (type < 0) {
+                    return null;
+                }
+                if (type == Frame.MESSAGE) {
+                    return this.in.getPayload();
+                } else if (type == Frame.JOIN) {
+                    join(this.in.getPayload());
+                } else if (type == Frame.LEAVE) {
+                    join(RoomRegistry.LOBBY);
+                } else if (type == Frame.ROOMS) {
+                    listRooms();
+                } else if (type == Frame.QUIT) {
+                    this.quit = true;
+                    return null;
+                }
+            } else {
+                // Check protocol
+                String protocol = this.in.readLine();
+                if (protocol == null) {
+                    return null;
+                }
+                if (protocol.equals("MESSAGE")) {
+                    // Get message
+                    return this.in.readLine();
+                } else if (protocol.equals("JOIN")) {
+                    // Get room name
+                    String name = this.in.readLine();
+                    if (name == null) {
+                        return null;
+                    }
+                    join(name);
+                } else if (protocol.equals("LEAVE")) {
+                    join(RoomRegistry.LOBBY);
+                } else if (protocol.equals("ROOMS")) {
+                    listRooms();
+                } else if (protocol.equals("QUIT")) {
+                    this.quit = true;
+                    return null;
+                }
+            }
+        }
+    }
+
+    /**
+     * Move the client to a room and tell it the result.
+     *
+     * @param name Room name
+     */
+    private void join(String name) {
+        Room joined = this.registry.rooms().join(this.outbound, this.room,
+                name);
+        if (joined == null) {
+            this.outbound.send(Frame.encodeReply(Frame.JOIN_FAILED,
+                    "JOINFAILED", name, this.framed));
+            return;
+        }
+        this.room = joined;
+        // Server Log
+        ServerLog.info("joined name=" + this.name + " room=" + name);
+        this.outbound.send(Frame.encodeReply(Frame.JOINED, "JOINED", name,
+                this.framed));
+    }
+
+    /**
+     * Send the room list to the client.
+     */
+    private void listRooms() {
+        this.outbound.send(Frame.encodeReply(Frame.ROOMS, "ROOMS",
+                this.registry.rooms().list(), this.framed));
+    }
+
+    /**
+     * Close the connection of a client whose session is taken over by a new
+     * connection. The handler then parks the session, as for a lost
+     * connection.
+     */
+    private void disconnect() {
+        try {
+            this.socket.close();
+        } catch (IOException e) {
+        }
     }
 
     /**
@@ -82,132 +234,163 @@ public class ChatServerHandler extends Thread {
     @Override
     public void run() {
         try {
-            // Create character streams for the socket
-            this.in = new BufferedReader(new InputStreamReader(
-                    this.socket.getInputStream()));
-            this.out = new PrintWriter(this.socket.getOutputStream(), true);
+            // Detect the connections lost without being closed
+            this.socket.setKeepAlive(true);
+            // Create streams for the socket
+            this.input = new BufferedInputStream(this.socket.getInputStream());
+            this.in = new ProtocolReader(this.input, this.config.getFrameMax());
+            this.out = new BufferedOutputStream(this.socket.getOutputStream());
 
             // Request the clients login (client name and language), the request
             // is retained until the client chooses a name that was not used.
+            boolean resume = false;
+            ParkedSession parked = null;
             while (true) {
                 // Send request
-                this.out.println("SUBMITNAME");
+                println("SUBMITNAME");
                 // Check protocol
                 String protocol = this.in.readLine();
-                if (protocol.equals("LOGIN")) {
+                if (protocol == null) {
+                    return;
+                }
+                // Check if the client asks for compression
+                this.compressed = Compression.isRequested(protocol)
+                        && this.config.isCompression();
+                protocol = Compression.strip(protocol);
+                resume = protocol.equals("RESUME")
+                        || protocol.equals(Frame.RESUME);
+                if (protocol.equals("LOGIN") || protocol.equals(Frame.LOGIN)
+                        || resume) {
                     // Get name and language of the client
                     this.name = this.in.readLine();
                     this.language = this.in.readLine();
+                    String token = resume ? this.in.readLine() : "";
+                    if (this.name == null || this.language == null
+                            || token == null) {
+                        return;
+                    }
                     // Check if is an invalid value and a valid language
-                    if (this.name == null || this.language == null || 
-                            this.name.equals("") || this.language.equals("")) {
+                    if (this.name.equals("") || this.language.equals("")) {
+                        println("NAMEREJECTED INVALID");
                         return;
                     }
-                    // Client login
-                    synchronized (this.names) {
-                        // Check if the name is already used
-                        if (!this.names.keySet().contains(this.name)) {
-                            // Adds the client to chat
-                            this.names.put(this.name, this.language);
-                            break;
-                        }
+                    this.framed = protocol.equals(Frame.LOGIN)
+                            || protocol.equals(Frame.RESUME);
+                    OutboundQueue session = new OutboundQueue(this.name,
+                            this.language, this.socket, this.out, this.framed,
+                            this.config, this.metrics);
+                    // Get back the session the client lost, if any, taking it
+                    // over if its old connection looks alive (its messages
+                    // wait in the queue until the writer starts)
+                    parked = token.isEmpty() ? null
+                            : this.resumes.take(this.name, token).join();
+                    if (parked != null) {
+                        this.outbound = session;
+                        this.room = this.resumes.attach(parked, session,
+                                this::disconnect);
+                        break;
+                    }
+                    // Client login: adds the client to chat if the name is
+                    // not used, on this server and on the cluster
+                    String reason = null;
+                    if (!this.registry.register(session)) {
+                        reason = "USED";
+                    } else if (!this.cluster.claim(this.name).join()) {
+                        this.registry.unregister(session);
+                        reason = "CLUSTER";
+                    }
+                    this.metrics.login(reason == null);
+                    if (reason == null) {
+                        this.outbound = session;
+                        // Enter the lobby
+                        this.room = this.registry.rooms().join(session, null,
+                                RoomRegistry.LOBBY);
+                        break;
                     }
+                    println("NAMEREJECTED " + reason);
                 }
             }
 
             // Send successful message
-            this.out.println("NAMEACCEPTED");
-            // Creates a print writer for the client
-            this.writers.put(this.out,
-                    (new AbstractMap.SimpleEntry<String, String>(this.name,
-                            this.language)));
+            String accepted = this.framed ? Frame.ACCEPTED : "NAMEACCEPTED";
+            println(this.compressed ? accepted + Compression.DEFLATE
+                    : accepted);
+            OutputStream output = this.out;
+            if (this.compressed) {
+                // The next bytes, in both directions, are compressed (the
+                // compression state is only created for accepted logins)
+                this.input = Compression.inflate(this.input);
+                this.in = new ProtocolReader(this.input,
+                        this.config.getFrameMax());
+                output = this.outbound.compress(
+                        this.config.getCompressionLevel());
+            }
+            try {
+                if (resume) {
+                    // Send the token, and the room of a resumed session,
+                    // before the messages kept for it
+                    String token = parked != null ? parked.getToken()
+                            : this.resumes.issue(this.name,
+                                    this::disconnect);
+                    Frame.encodeReply(Frame.TOKEN, "TOKEN", parked != null
+                            ? token + " " + this.room.getName() : token,
+                            this.framed).writeTo(output);
+                    output.flush();
+                }
+            } catch (IOException e) {
+                // The writer, which frees the compression state, never ran
+                Compression.end(output);
+                throw e;
+            }
+            // Start the writer of the client outbound queue
+            this.writerExecutor.execute(this.outbound);
 
             // Receive messages from each client and forward to other clients
+            MessagePipeline.Sender sender = this.pipeline.newSender();
             while (true) {
-                try {
-                    // Check protocol
-                    String protocol = this.in.readLine();
-                    if (protocol.equals("MESSAGE")) {
-                        // Get message
-                        String input = this.in.readLine();
-                        // Server Log
-                        System.out.println("Sent by: " + this.name);
-                        System.out.println("Original message: " + input);
-                        // Check if the message is valid
-                        if (input == null) {
-                            return;
-                        }
-                        // Send message to all chat clients and if necessary
-                        // translate the message into the respective language
-                        for (Map.Entry<PrintWriter, HashMap.Entry<String, String>> writer
-                                : this.writers.entrySet()) {
-                            // Ignores the client who sent the message
-                            if (writer.getValue().getKey().equals(this.name)) {
-                                continue;
-                            }
-                            // Checks if the language of this client is the same as
-                            // the client that sent the message
-                            if (!writer.getValue().getValue().equals(this.language)) {
-                                try {
-                                    // Initialize the translator
-                                    Translate t = new Translate.Builder(
-                                            GoogleNetHttpTransport.newTrustedTransport(),
-                                            GsonFactory.getDefaultInstance(), null)
-                                            .setApplicationName("Understand Me")
-                                            .build();
-                                    // Prepare to translate
-                                    Translate.Translations.List list = t.new Translations().list(
-                                            Arrays.asList(input),
-                                            // Target language
-                                            writer.getValue().getValue());
-                                    // Server Log
-                                    System.out.println(writer.getValue());
-                                    // Google Cloud API
-                                    list.setKey(this.api);
-                                    // Translate message
-                                    TranslationsListResponse response = list.execute();
-                                    // Send messages
-                                    for (TranslationsResource tr : response.getTranslations()) {
-                                        // Send translated message
-                                        writer.getKey().println("MESSAGE "
-                                                + this.name + ": " + tr.getTranslatedText());
-                                        // Server Log
-                                        System.out.println("Message translated ("
-                                                + writer.getValue().getValue() + "): "
-                                                + tr.getTranslatedText());
-                                    }
-                                } catch (Exception e) {
-                                    e.printStackTrace();
-                                }
-                            } else {
-                                try {
-                                    // Send original message
-                                    writer.getKey().println("MESSAGE " + this.name + ": " + input);
-                                } catch (Exception e) {
-                                    e.printStackTrace();
-                                }
-                            }
-                        }
-                    }
-                } catch (NullPointerException e) {
-                    System.out.println((this.name + " left."));
+                // Get message
+                String input = readMessage();
+                // Check if the client left
+                if (input == null) {
+                    // Server Log
+                    ServerLog.info("left name=" + this.name);
                     break;
                 }
+                // Server Log
+                ServerLog.received(this.name, input);
+                this.metrics.received();
+                // Send message to the clients of the room and if necessary
+                // translate the message into the respective language
+                // (once to each language), without waiting for it
+                sender.send(this.outbound, input, this.room.byLanguage());
+                // and to the other nodes with clients in the room
+                this.cluster.relay(this.room, this.outbound, input);
+                // and to the journal, without waiting for the disk
+                this.journal.append(this.room.getName(), this.name,
+                        this.outbound.getLanguage(), input);
             }
         } catch (IOException e) {
-            System.err.println(e);
+            // Server Log
+            ServerLog.warn("connection name=" + this.name + " error=" + e);
         } finally {
             // The client left the chat
-            // Removes client
-            if (this.name != null) {
-                this.names.remove(this.name);
-            }
-            // Removes client print writer
-            if (this.out != null) {
-                this.writers.remove(this.out);
+            // Removes client and its outbound queue, or keeps its session
+            // if it lost the connection and may resume it
+            if (this.outbound != null) {
+                if (this.quit || this.room == null
+                        || !this.resumes.park(this.outbound, this.room)) {
+                    this.resumes.forget(this.name);
+                    this.registry.rooms().leave(this.outbound, this.room);
+                    this.registry.unregister(this.outbound);
+                    this.cluster.release(this.name);
+                }
+                this.outbound.close();
             }
-            // Close socket
+            // Close socket (and free the compression state of the input)
             try {
+                if (this.input != null) {
+                    this.input.close();
+                }
                 this.socket.close();
             } catch (IOException e) {
             }
@@ -0,0 +1,246 @@
+/*
+ * GNU License.
+ */
+package br.com.brenov.chatserver.control;
+
+import br.com.brenov.chatserver.log.ServerLog;
+import br.com.brenov.chatserver.metrics.ServerMetrics;
+import br.com.brenov.chatserver.model.Session;
+import br.com.brenov.chatserver.protocol.BufferPool;
+import br.com.brenov.chatserver.protocol.Frame;
+import br.com.brenov.chatserver.protocol.SharedBuffer;
+import br.com.brenov.chatserver.translation.TranslationBatcher;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Message pipeline. The messages read from a client go through three stages:
+ *
+ * - ingest: the client reading thread hands the message and its recipients,
+ * grouped by language, to the pipeline and goes back to reading;
+ * - translate: the message is translated to each language of the recipients,
+ * all the languages at the same time, in batches with the messages of other
+ * clients;
+ * - deliver: when all the translations are done, a pool of delivery threads
+ * sends the message to the recipients. The message is encoded once to each
+ * language (and protocol), and the same pooled buffer is queued to all the
+ * recipients of that language.
+ *
+ * The messages of one client are delivered in the order they were sent, even
+ * when a later message is translated first.
+ *
+ * @author Breno Viana
+ * @version 17/10/2026
+ */
+public class MessagePipeline {
+
+    // Translate stage
+    private final TranslationBatcher batcher;
+    // Deliver stage
+    private final ExecutorService deliverers;
+    // Buffers of the encoded messages
+    private final BufferPool buffers;
+    // Maximum size of a message line or frame payload sent, in bytes
+    private final int max;
+    // Server metrics
+    private final ServerMetrics metrics;
+
+    /**
+     * Construct a message pipeline.
+     *
+     * @param batcher Translation batcher
+     * @param deliverers Number of delivery threads
+     * @param buffers Buffers of the encoded messages
+     * @param max Maximum size of a message line or frame payload sent, in
+     * bytes
+     * @param metrics Server metrics
+     */
+    public MessagePipeline(TranslationBatcher batcher, int deliverers,
+            BufferPool buffers, int max, ServerMetrics metrics) {
+        this.batcher = batcher;
+        this.buffers = buffers;
+        this.max = max;
+        this.metrics = metrics;
+        this.deliverers = Executors.newFixedThreadPool(deliverers,
+                daemon("deliverer-"));
+    }
+
+    /**
+     * Create a thread factory of daemon threads.
+     *
+     * @param prefix Thread name prefix
+     *
+     * @return Thread factory
+     */
+    private static ThreadFactory daemon(final String prefix) {
+        final AtomicInteger count = new AtomicInteger();
+        return r -> {
+            Thread t = new Thread(r, prefix + count.getAndIncrement());
+            t.setDaemon(true);
+            return t;
+        };
+    }
+
+    /**
+     * Create the pipeline entry of a client.
+     *
+     * @return Sender
+     */
+    public Sender newSender() {
+        return new Sender();
+    }
+
+    /**
+     * Pipeline entry of a client. It keeps the messages of the client in
+     * order. It must only be used by the thread that reads the client
+     * messages.
+     */
+    public final class Sender {
+
+        // Delivery of the last message sent by the client
+        private CompletableFuture<Void> delivered
+                = CompletableFuture.completedFuture(null);
+
+        /**
+         * Construct a sender.
+         */
+        private Sender() {
+        }
+
+        /**
+         * Send a message to other clients, translating it if necessary. The
+         * method returns without waiting for translations or deliveries.
+         *
+         * @param from Client who sent the message
+         * @param input Message
+         * @param languages Recipients, grouped by language (the client who
+         * sent the message is skipped)
+         */
+        public void send(Session from, String input,
+                Map<String, ? extends Collection<Session>> languages) {
+            final String language = from.getLanguage();
+            // Translate stage
+            final Map<String, CompletableFuture<String>> translations
+                    = new HashMap<String, CompletableFuture<String>>();
+            for (Map.Entry<String, ? extends Collection<Session>> group
+                    : languages.entrySet()) {
+                final String target = group.getKey();
+                final int size = group.getValue().size();
+                // Checks if the language of these clients is the same as the
+                // client that sent the message
+                if (target.equals(language)) {
+                    translations.put(target,
+                            CompletableFuture.completedFuture(input));
+                } else {
+                    translations.put(target, batcher.translate(input,
+                            language, target).handle((message, error)
+                                    -> translated(message, error, target,
+                                            size)));
+                }
+            }
+            // Deliver stage, after the previous message of this client
+            CompletableFuture<?>[] stages
+                    = new CompletableFuture<?>[translations.size() + 1];
+            translations.values().toArray(stages);
+            stages[stages.length - 1] = this.delivered;
+            this.delivered = CompletableFuture.allOf(stages).thenRunAsync(
+                    () -> deliver(from, languages, translations), deliverers);
+        }
+    }
+
+    /**
+     * Log a translation.
+     *
+     * @param message Translated message
+     * @param error Translation error
+     * @param target Target language
+     * @param size Number of recipients
+     *
+     * @return Translated message, or null if it could not be translated
+     */
+    private static String translated(String message, Throwable error,
+            String target, int size) {
+        if (error != null) {
+            // Server Log
+            ServerLog.warn("translation language=" + target + " error="
+                    + error);
+            return null;
+        }
+        // Server Log
+        ServerLog.translated(target, size, message);
+        return message;
+    }
+
+    /**
+     * Send the translated messages to each client.
+     *
+     * @param from Client who sent the message
+     * @param languages Recipients, grouped by language
+     * @param translations Message translated to each language
+     */
+    private void deliver(Session from,
+            Map<String, ? extends Collection<Session>> languages,
+            Map<String, CompletableFuture<String>> translations) {
+        int recipients = 0;
+        for (Map.Entry<String, ? extends Collection<Session>> group
+                : languages.entrySet()) {
+            // Languages of clients that logged in after the message was sent
+            // have no translation
+            CompletableFuture<String> translation
+                    = translations.get(group.getKey());
+            String message = translation == null ? null : translation.join();
+            if (message == null) {
+                continue;
+            }
+            // Send the message to each client of this language, encoded once
+            // to each protocol
+            SharedBuffer lines = null;
+            SharedBuffer frames = null;
+            try {
+                for (Session recipient : group.getValue()) {
+                    // Ignores the client who sent the message
+                    if (recipient == from) {
+                        continue;
+                    }
+                    SharedBuffer encoded;
+                    if (recipient.isFramed()) {
+                        if (frames == null) {
+                            frames = Frame.encodeMessage(this.buffers,
+                                    from.getName(), message, true, this.max);
+                        }
+                        encoded = frames;
+                    } else {
+                        if (lines == null) {
+                            lines = Frame.encodeMessage(this.buffers,
+                                    from.getName(), message, false,
+                                    this.max);
+                        }
+                        encoded = lines;
+                    }
+                    try {
+                        recipient.send(encoded);
+                        recipients++;
+                    } catch (Exception e) {
+                        // Server Log
+                        ServerLog.warn("delivery name=" + recipient.getName()
+                                + " error=" + e);
+                    }
+                }
+            } finally {
+                if (lines != null) {
+                    lines.release();
+                }
+                if (frames != null) {
+                    frames.release();
+                }
+            }
+        }
+        this.metrics.delivered(recipients);
+    }
+}
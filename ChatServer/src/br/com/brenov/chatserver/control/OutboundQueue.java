@@ -0,0 +1,346 @@
+/*
+ * GNU License.
+ */
+package br.com.brenov.chatserver.control;
+
+import br.com.brenov.chatserver.ServerConfig;
+import br.com.brenov.chatserver.SlowConsumerPolicy;
+import br.com.brenov.chatserver.log.ServerLog;
+import br.com.brenov.chatserver.metrics.ServerMetrics;
+import br.com.brenov.chatserver.model.Resumable;
+import br.com.brenov.chatserver.model.Session;
+import br.com.brenov.chatserver.protocol.Compression;
+import br.com.brenov.chatserver.protocol.OutboundRing;
+import br.com.brenov.chatserver.protocol.SharedBuffer;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Session of a client of the blocking server: a bounded queue of the messages
+ * to be sent to the client, drained by its own writer. The threads that deliver
+ * messages only add them to the queue, so a client with a slow network does not
+ * delay the messages of the others. The messages arrive already encoded with
+ * the protocol of the client, in buffers shared with the other recipients. The
+ * writer writes all the queued messages before it flushes them together to the
+ * socket (a compressed connection compresses each batch in one block).
+ *
+ * A client whose queue is full, or whose oldest message waits longer than the
+ * lag limit, is a slow client: depending on the policy, the new messages to it
+ * are dropped or it is disconnected.
+ *
+ * The queue is guarded by a lock rather than by its monitor: a writer waiting
+ * on a monitor pins its carrier thread in the virtual mode, and the idle
+ * clients would take all the carriers.
+ *
+ * @author Breno Viana
+ * @version 17/10/2026
+ */
+public class OutboundQueue implements Resumable, Runnable {
+
+    // Client name
+    private final String name;
+    // Client language
+    private final String language;
+    // Client socket
+    private final Socket socket;
+    // Client output stream (compressed once the login is accepted, if the
+    // client asked for it)
+    private OutputStream out;
+    // True if the client uses the framed protocol
+    private final boolean framed;
+    // Queued messages
+    private final OutboundRing queue;
+    // Maximum time a message may wait, in nanoseconds
+    private final long lag;
+    // What to do when the client is slow
+    private final SlowConsumerPolicy policy;
+    // Server metrics
+    private final ServerMetrics metrics;
+    // Lock of the queue
+    private final ReentrantLock lock = new ReentrantLock();
+    // Signaled when a message is queued or the queue is closed
+    private final Condition ready = this.lock.newCondition();
+
+    // Number of dropped messages
+    private long dropped = 0;
+    // True while messages are being dropped
+    private boolean dropping = false;
+    // True if the queue was closed
+    private boolean closed = false;
+    // Session kept while the client is away, that gets the next messages
+    private Session parked;
+
+    /**
+     * Construct an outbound queue.
+     *
+     * @param name Client name
+     * @param language Client language
+     * @param socket Client socket
+     * @param out Client output stream
+     * @param framed True if the client uses the framed protocol
+     * @param config Server configuration
+     * @param metrics Server metrics
+     */
+    public OutboundQueue(String name, String language, Socket socket,
+            OutputStream out, boolean framed, ServerConfig config,
+            ServerMetrics metrics) {
+        this.name = name;
+        this.language = language;
+        this.socket = socket;
+        this.out = out;
+        this.framed = framed;
+        this.queue = new OutboundRing(config.getOutboundLimit());
+        this.lag = TimeUnit.MILLISECONDS.toNanos(config.getOutboundLag());
+        this.policy = config.getSlowConsumerPolicy();
+        this.metrics = metrics;
+    }
+
+    /**
+     * Get client name.
+     *
+     * @return Client name
+     */
+    @Override
+    public String getName() {
+        return this.name;
+    }
+
+    /**
+     * Get client language.
+     *
+     * @return Client language
+     */
+    @Override
+    public String getLanguage() {
+        return this.language;
+    }
+
+    /**
+     * Check if the client uses the framed protocol.
+     *
+     * @return True if the messages are sent as frames
+     */
+    @Override
+    public boolean isFramed() {
+        return this.framed;
+    }
+
+    /**
+     * Compress the output of the client. Must be called before the writer
+     * starts; the writer frees the compression state when it stops.
+     *
+     * @param level Compression level (1 to 9)
+     *
+     * @return Compressing stream of the client
+     */
+    public OutputStream compress(int level) {
+        this.out = Compression.deflate(this.out, level);
+        return this.out;
+    }
+
+    /**
+     * Queue a message to be sent to the client, or give it to the session kept
+     * while the client is away.
+     *
+     * @param message Encoded message
+     */
+    @Override
+    public void send(SharedBuffer message) {
+        Session away;
+        this.lock.lock();
+        try {
+            away = this.parked;
+            if (away == null) {
+                queue(message);
+            }
+        } finally {
+            this.lock.unlock();
+        }
+        if (away != null) {
+            away.send(message);
+        }
+    }
+
+    /**
+     * Queue a message, unless the queue is closed or the client is slow. Must
+     * hold the lock.
+     *
+     * @param message Encoded message
+     */
+    private void queue(SharedBuffer message) {
+        if (this.closed) {
+            return;
+        }
+        long now = System.nanoTime();
+        if (!this.queue.isEmpty() && now - this.queue.peekTime() > this.lag) {
+            slow("lagging");
+        } else if (!this.queue.offer(message, now)) {
+            slow("full");
+        } else {
+            this.dropping = false;
+            if (this.queue.size() == 1) {
+                this.ready.signalAll();
+            }
+        }
+    }
+
+    /**
+     * Stop the writer, and give the messages it did not take yet, and the
+     * next ones, to the session kept while the client is away.
+     *
+     * @param session Session that takes the messages
+     */
+    @Override
+    public void handOff(Session session) {
+        this.lock.lock();
+        try {
+            SharedBuffer message;
+            while ((message = this.queue.poll()) != null) {
+                session.send(message);
+                message.release();
+            }
+            this.parked = session;
+            this.closed = true;
+            this.ready.signalAll();
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    /**
+     * Apply the slow client policy.
+     *
+     * @param reason Why the client is slow
+     */
+    private void slow(String reason) {
+        if (this.policy == SlowConsumerPolicy.DISCONNECT) {
+            // Server Log
+            ServerLog.warn("slow name=" + this.name + " action=disconnect"
+                    + " reason=" + reason);
+            this.metrics.slowDisconnect();
+            this.metrics.dropped(this.queue.size() + 1);
+            close();
+            try {
+                this.socket.close();
+            } catch (IOException e) {
+            }
+            return;
+        }
+        this.dropped++;
+        this.metrics.dropped(1);
+        if (!this.dropping) {
+            this.dropping = true;
+            // Server Log
+            ServerLog.warn("slow name=" + this.name + " action=drop"
+                    + " reason=" + reason);
+        }
+    }
+
+    /**
+     * Get the number of dropped messages.
+     *
+     * @return Number of dropped messages
+     */
+    public long getDropped() {
+        this.lock.lock();
+        try {
+            return this.dropped;
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    /**
+     * Get the number of messages waiting to be sent to the client.
+     *
+     * @return Queue depth
+     */
+    @Override
+    public int getQueued() {
+        this.lock.lock();
+        try {
+            return this.queue.size();
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    /**
+     * Stop the writer. The queued messages are discarded.
+     */
+    public void close() {
+        this.lock.lock();
+        try {
+            this.closed = true;
+            this.queue.clear();
+            this.ready.signalAll();
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    /**
+     * Take the next message of the current batch.
+     *
+     * @return Message, or null to flush the batch
+     */
+    private SharedBuffer next() {
+        this.lock.lock();
+        try {
+            return this.closed ? null : this.queue.poll();
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    /**
+     * Write the queued messages to the client until the queue is closed or the
+     * connection fails. The messages queued while a batch is written join the
+     * batch, and the batch is flushed with a single socket write when
+     * possible.
+     */
+    @Override
+    public void run() {
+        try {
+            while (true) {
+                this.lock.lock();
+                try {
+                    while (this.queue.isEmpty() && !this.closed) {
+                        this.ready.await();
+                    }
+                    if (this.closed) {
+                        return;
+                    }
+                } finally {
+                    this.lock.unlock();
+                }
+                int batch = 0;
+                long bytes = 0;
+                SharedBuffer message;
+                while ((message = next()) != null) {
+                    try {
+                        message.writeTo(this.out);
+                        bytes += message.size();
+                    } finally {
+                        message.release();
+                    }
+                    batch++;
+                }
+                this.out.flush();
+                this.metrics.flushes().record(batch, bytes);
+            }
+        } catch (IOException e) {
+            // The handler closes the queue, or hands the messages not written
+            // yet to the session kept while the client is away
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            // Free the compression state of the client output, if any
+            Compression.end(this.out);
+        }
+    }
+}
@@ -0,0 +1,211 @@
+/*
+ * GNU License.
+ */
+package br.com.brenov.chatserver.control;
+
+import br.com.brenov.chatserver.model.Session;
+import br.com.brenov.chatserver.protocol.SharedBuffer;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.ScheduledFuture;
+
+/**
+ * The session of a client that lost its connection and may resume it (see
+ * {@link ResumeRegistry}). It takes the place of the client in the chat and
+ * in its room, so its name stays reserved and its messages are kept, up to a
+ * limit, until the client is back or the session expires.
+ *
+ * @author Breno Viana
+ * @version 17/10/2026
+ */
+public final class ParkedSession implements Session {
+
+    // Client name
+    private final String name;
+    // Client language
+    private final String language;
+    // True if the kept messages are frames
+    private final boolean framed;
+    // Resume token
+    private final String token;
+    // Maximum number of messages kept
+    private final int limit;
+    // Messages kept, oldest first
+    private final Deque<SharedBuffer> messages = new ArrayDeque<SharedBuffer>();
+
+    // Room of the client
+    private Room room;
+    // Expiration of the session
+    private ScheduledFuture<?> expiry;
+    // Session the messages are forwarded to, once resumed
+    private Session target;
+    // True if the session expired
+    private boolean discarded = false;
+    // Number of messages dropped because the limit was reached
+    private long dropped = 0;
+
+    /**
+     * Construct the parked session of a client.
+     *
+     * @param session Client
+     * @param token Resume token
+     * @param limit Maximum number of messages kept
+     */
+    ParkedSession(Session session, String token, int limit) {
+        this.name = session.getName();
+        this.language = session.getLanguage();
+        this.framed = session.isFramed();
+        this.token = token;
+        this.limit = limit;
+    }
+
+    /**
+     * Get client name.
+     *
+     * @return Client name
+     */
+    @Override
+    public String getName() {
+        return this.name;
+    }
+
+    /**
+     * Get client language.
+     *
+     * @return Client language
+     */
+    @Override
+    public String getLanguage() {
+        return this.language;
+    }
+
+    /**
+     * Check if the kept messages are frames.
+     *
+     * @return True if the client used the framed protocol
+     */
+    @Override
+    public boolean isFramed() {
+        return this.framed;
+    }
+
+    /**
+     * Get the number of messages kept.
+     *
+     * @return Number of messages
+     */
+    @Override
+    public synchronized int getQueued() {
+        return this.messages.size();
+    }
+
+    /**
+     * Keep a message, or forward it once the session is resumed (unless it
+     * is encoded for another protocol than the one of the client).
+     *
+     * @param message Encoded message
+     */
+    @Override
+    public synchronized void send(SharedBuffer message) {
+        if (this.target != null && this.target.isFramed() == this.framed) {
+            this.target.send(message);
+        } else if (this.target != null) {
+            this.dropped++;
+        } else if (this.discarded || this.messages.size() >= this.limit) {
+            this.dropped++;
+        } else {
+            this.messages.addLast(message.retain());
+        }
+    }
+
+    /**
+     * Get the resume token.
+     *
+     * @return Token
+     */
+    public String getToken() {
+        return this.token;
+    }
+
+    /**
+     * Get the room of the client.
+     *
+     * @return Room
+     */
+    public Room getRoom() {
+        return this.room;
+    }
+
+    /**
+     * Set the room of the client.
+     *
+     * @param room Room
+     */
+    void setRoom(Room room) {
+        this.room = room;
+    }
+
+    /**
+     * Set the expiration of the session.
+     *
+     * @param expiry Expiration task
+     */
+    void setExpiry(ScheduledFuture<?> expiry) {
+        this.expiry = expiry;
+    }
+
+    /**
+     * Cancel the expiration of the session.
+     */
+    void cancel() {
+        if (this.expiry != null) {
+            this.expiry.cancel(false);
+        }
+    }
+
+    /**
+     * Send the kept messages to the client that resumed the session, and
+     * forward it the next ones. Messages encoded for another protocol are
+     * dropped.
+     *
+     * @param session Client that resumed the session
+     *
+     * @return Number of messages sent
+     */
+    synchronized int forward(Session session) {
+        int sent = 0;
+        for (SharedBuffer message : this.messages) {
+            if (session.isFramed() == this.framed) {
+                session.send(message);
+                sent++;
+            } else {
+                this.dropped++;
+            }
+            message.release();
+        }
+        this.messages.clear();
+        this.target = session;
+        return sent;
+    }
+
+    /**
+     * Drop the kept messages of an expired session.
+     */
+    synchronized void discard() {
+        for (SharedBuffer message : this.messages) {
+            message.release();
+        }
+        this.dropped += this.messages.size();
+        this.messages.clear();
+        this.discarded = true;
+    }
+
+    /**
+     * Get the number of messages dropped.
+     *
+     * @return Number of messages
+     */
+    synchronized long getDropped() {
+        return this.dropped;
+    }
+}
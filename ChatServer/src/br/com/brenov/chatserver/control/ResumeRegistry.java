@@ -0,0 +1,291 @@
+/*
+ * GNU License.
+ */
+package br.com.brenov.chatserver.control;
+
+import br.com.brenov.chatserver.ServerConfig;
+import br.com.brenov.chatserver.cluster.ClusterNode;
+import br.com.brenov.chatserver.log.ServerLog;
+import br.com.brenov.chatserver.model.Resumable;
+import br.com.brenov.chatserver.model.Session;
+import java.security.SecureRandom;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sessions that clients may resume after losing their connection. Clients
+ * that log in with "RESUME" get a token; when such a client disconnects
+ * without "QUIT", its session is parked (see {@link ParkedSession}) for a
+ * grace time, keeping its name, its room and its messages. A client that
+ * logs in again with the name and the token gets the session back, with the
+ * messages sent to it meanwhile; otherwise the session expires and the name
+ * is freed.
+ *
+ * The server may not see at once that a connection was lost (a half-open
+ * connection after a network blip), while the client already resumes its
+ * session from a new one. A client that resumes with the token of a session
+ * still connected takes it over: the old connection is closed, its session
+ * is parked, and the parked session is given to the new connection.
+ *
+ * @author Breno Viana
+ * @version 17/10/2026
+ */
+public class ResumeRegistry {
+
+    // Size of a token, in bytes
+    private static final int TOKEN_SIZE = 16;
+    // Hexadecimal digits
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+    // Time a takeover waits for the old connection to be parked (ms)
+    private static final long TAKEOVER_TIMEOUT = 5000;
+
+    // Clients logged in to the chat
+    private final SessionRegistry registry;
+    // Cluster of this server
+    private final ClusterNode cluster;
+    // Time a session is kept (ms, 0 if sessions are not resumed)
+    private final long grace;
+    // Maximum number of messages kept for a session
+    private final int limit;
+    // Token generator
+    private final SecureRandom random = new SecureRandom();
+    // Tokens of the clients that may resume their session, by name
+    private final ConcurrentMap<String, String> tokens
+            = new ConcurrentHashMap<String, String>();
+    // How to close the connections of the clients that have a token, by name
+    private final ConcurrentMap<String, Runnable> connections
+            = new ConcurrentHashMap<String, Runnable>();
+    // Takeovers waiting for the old connection to be parked, by name
+    private final ConcurrentMap<String, CompletableFuture<ParkedSession>>
+            takeovers = new ConcurrentHashMap<String,
+            CompletableFuture<ParkedSession>>();
+    // Parked sessions, by name
+    private final ConcurrentMap<String, ParkedSession> parked
+            = new ConcurrentHashMap<String, ParkedSession>();
+    // Expiration of the parked sessions
+    private final ScheduledExecutorService timer;
+
+    /**
+     * Construct the resume registry.
+     *
+     * @param config Server configuration
+     * @param registry Clients logged in to the chat
+     * @param cluster Cluster of this server
+     */
+    public ResumeRegistry(ServerConfig config, SessionRegistry registry,
+            ClusterNode cluster) {
+        this.registry = registry;
+        this.cluster = cluster;
+        this.grace = TimeUnit.SECONDS.toMillis(config.getResumeGrace());
+        this.limit = config.getResumeBuffer();
+        this.timer = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "resume-timer");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /**
+     * Check if the sessions are resumed.
+     *
+     * @return True if the grace time is greater than 0
+     */
+    public boolean isEnabled() {
+        return this.grace > 0;
+    }
+
+    /**
+     * Issue the resume token of a client that logged in.
+     *
+     * @param name Client name
+     * @param disconnect Closes the connection of the client (the session is
+     * then parked, as for a lost connection)
+     *
+     * @return Token
+     */
+    public String issue(String name, Runnable disconnect) {
+        byte[] bytes = new byte[TOKEN_SIZE];
+        this.random.nextBytes(bytes);
+        char[] token = new char[bytes.length * 2];
+        for (int i = 0; i < bytes.length; i++) {
+            token[2 * i] = HEX[(bytes[i] >> 4) & 0xf];
+            token[2 * i + 1] = HEX[bytes[i] & 0xf];
+        }
+        String issued = new String(token);
+        this.tokens.put(name, issued);
+        this.connections.put(name, disconnect);
+        return issued;
+    }
+
+    /**
+     * Forget the token of a client that left the chat for good.
+     *
+     * @param name Client name
+     */
+    public void forget(String name) {
+        this.tokens.remove(name);
+        this.connections.remove(name);
+        // A takeover of the session cannot happen anymore
+        CompletableFuture<ParkedSession> takeover
+                = this.takeovers.remove(name);
+        if (takeover != null) {
+            takeover.complete(null);
+        }
+    }
+
+    /**
+     * Park the session of a client that lost its connection, if it has a
+     * token. The client is replaced in the chat and in its room by the parked
+     * session, which keeps its messages until it is resumed or expires. The
+     * messages not sent to the client yet are moved to the parked session.
+     *
+     * @param session Client
+     * @param room Room of the client
+     *
+     * @return True if the session was parked, false if the client must be
+     * removed from the chat
+     */
+    public boolean park(Resumable session, Room room) {
+        String token = this.tokens.get(session.getName());
+        if (!isEnabled() || token == null || room == null) {
+            return false;
+        }
+        ParkedSession parked = new ParkedSession(session, token, this.limit);
+        if (!this.registry.replace(session, parked)) {
+            return false;
+        }
+        parked.setRoom(this.registry.rooms().replace(session, parked, room));
+        session.handOff(parked);
+        this.connections.remove(parked.getName());
+        this.parked.put(parked.getName(), parked);
+        parked.setExpiry(this.timer.schedule(() -> expire(parked),
+                this.grace, TimeUnit.MILLISECONDS));
+        // Server Log
+        ServerLog.info("parked name=" + parked.getName() + " room="
+                + room.getName());
+        handOver(parked.getName());
+        return true;
+    }
+
+    /**
+     * Take the parked session of a client, if the token matches. If the
+     * session is still connected, its connection is closed, and the session
+     * is taken once it is parked.
+     *
+     * @param name Client name
+     * @param token Resume token
+     *
+     * @return Parked session, once taken (null if there is no session to
+     * resume)
+     */
+    public CompletableFuture<ParkedSession> take(String name, String token) {
+        ParkedSession session = this.parked.get(name);
+        if (session != null) {
+            if (!session.getToken().equals(token)
+                    || !this.parked.remove(name, session)) {
+                return CompletableFuture.completedFuture(null);
+            }
+            session.cancel();
+            return CompletableFuture.completedFuture(session);
+        }
+        // Take over the session of a connection that looks alive
+        Runnable disconnect = this.connections.get(name);
+        CompletableFuture<ParkedSession> takeover
+                = new CompletableFuture<ParkedSession>();
+        if (!isEnabled() || disconnect == null
+                || !token.equals(this.tokens.get(name))
+                || this.takeovers.putIfAbsent(name, takeover) != null) {
+            return CompletableFuture.completedFuture(null);
+        }
+        this.timer.schedule(() -> {
+            if (this.takeovers.remove(name, takeover)) {
+                takeover.complete(null);
+            }
+        }, TAKEOVER_TIMEOUT, TimeUnit.MILLISECONDS);
+        // Server Log
+        ServerLog.info("takeover name=" + name);
+        disconnect.run();
+        // The session may have been parked meanwhile
+        handOver(name);
+        return takeover;
+    }
+
+    /**
+     * Give the parked session of a client to the connection that takes it
+     * over, if any.
+     *
+     * @param name Client name
+     */
+    private void handOver(String name) {
+        CompletableFuture<ParkedSession> takeover = this.takeovers.get(name);
+        ParkedSession session = this.parked.get(name);
+        if (takeover == null || session == null
+                || !this.takeovers.remove(name, takeover)) {
+            return;
+        }
+        if (!this.parked.remove(name, session)) {
+            takeover.complete(null);
+            return;
+        }
+        session.cancel();
+        takeover.complete(session);
+    }
+
+    /**
+     * Give a parked session to the client that resumed it: the client gets
+     * the messages kept, and takes the place of the parked session in the
+     * chat and in its room. The messages that reach the parked session while
+     * it is replaced are forwarded to the client, in order.
+     *
+     * @param parked Parked session, taken
+     * @param session Client
+     * @param disconnect Closes the connection of the client
+     *
+     * @return Room of the client
+     */
+    public Room attach(ParkedSession parked, Session session,
+            Runnable disconnect) {
+        int replayed = parked.forward(session);
+        this.registry.replace(parked, session);
+        Room room = this.registry.rooms().replace(parked, session,
+                parked.getRoom());
+        this.connections.put(session.getName(), disconnect);
+        // Server Log
+        ServerLog.info("resumed name=" + session.getName() + " room="
+                + room.getName() + " replayed=" + replayed + " dropped="
+                + parked.getDropped());
+        return room;
+    }
+
+    /**
+     * Remove an expired session from the chat and free its name.
+     *
+     * @param session Parked session
+     */
+    private void expire(ParkedSession session) {
+        if (!this.parked.remove(session.getName(), session)) {
+            return;
+        }
+        this.registry.rooms().leave(session, session.getRoom());
+        this.registry.unregister(session);
+        this.cluster.release(session.getName());
+        this.tokens.remove(session.getName(), session.getToken());
+        session.discard();
+        // Server Log
+        ServerLog.info("expired name=" + session.getName() + " dropped="
+                + session.getDropped());
+    }
+
+    /**
+     * Get the number of parked sessions.
+     *
+     * @return Number of sessions
+     */
+    public int size() {
+        return this.parked.size();
+    }
+}
@@ -0,0 +1,99 @@
+/*
+ * GNU License.
+ */
+package br.com.brenov.chatserver.control;
+
+import br.com.brenov.chatserver.model.Session;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * A chat room: the clients that receive each other's messages, grouped by
+ * language. The messages sent in a room are only translated to the languages
+ * of its members and only delivered to them, so the cost of a message depends
+ * on the size of its room and not on the number of clients of the server.
+ *
+ * The members are added and removed by the {@link RoomRegistry}, one change at
+ * a time; the language index can be iterated without locks meanwhile.
+ *
+ * @author Breno Viana
+ * @version 17/10/2026
+ */
+public class Room {
+
+    // Room name
+    private final String name;
+    // Members by language (languages without members are removed)
+    private final ConcurrentMap<String, Set<Session>> languages
+            = new ConcurrentHashMap<String, Set<Session>>();
+    // Number of members
+    private volatile int size = 0;
+
+    /**
+     * Construct an empty room.
+     *
+     * @param name Room name
+     */
+    Room(String name) {
+        this.name = name;
+    }
+
+    /**
+     * Add a member. Called by the room registry only.
+     *
+     * @param session Client
+     */
+    void add(Session session) {
+        Set<Session> set = this.languages.computeIfAbsent(
+                session.getLanguage(), language -> ConcurrentHashMap
+                .newKeySet());
+        if (set.add(session)) {
+            this.size++;
+        }
+    }
+
+    /**
+     * Remove a member. Called by the room registry only.
+     *
+     * @param session Client
+     */
+    void remove(Session session) {
+        Set<Session> set = this.languages.get(session.getLanguage());
+        if (set != null && set.remove(session)) {
+            this.size--;
+            if (set.isEmpty()) {
+                this.languages.remove(session.getLanguage());
+            }
+        }
+    }
+
+    /**
+     * Get room name.
+     *
+     * @return Room name
+     */
+    public String getName() {
+        return this.name;
+    }
+
+    /**
+     * Get the members grouped by language.
+     *
+     * @return Members of each language
+     */
+    public Map<String, Set<Session>> byLanguage() {
+        return Collections.unmodifiableMap(this.languages);
+    }
+
+    /**
+     * Get the number of members.
+     *
+     * @return Number of members
+     */
+    public int size() {
+        return this.size;
+    }
+}
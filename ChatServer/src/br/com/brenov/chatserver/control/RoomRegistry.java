@@ -0,0 +1,210 @@
+/*
+ * GNU License.
+ */
+package br.com.brenov.chatserver.control;
+
+import br.com.brenov.chatserver.model.Session;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.regex.Pattern;
+
+/**
+ * The chat rooms, by name. Clients enter the lobby when they log in and are in
+ * one room at a time: joining a room leaves the previous one, and leaving a
+ * room goes back to the lobby. Rooms are created by their first member and
+ * removed with their last one.
+ *
+ * The rooms are changed atomically by name, so a member never joins a room
+ * that is being removed. A listener is told, in order, when each room is
+ * created and removed (the cluster uses it to know the rooms of each node).
+ *
+ * @author Breno Viana
+ * @version 17/10/2026
+ */
+public class RoomRegistry {
+
+    // Room of the clients that did not join any other
+    public static final String LOBBY = "lobby";
+    // Maximum number of rooms listed
+    public static final int LIST_MAX = 256;
+
+    // Valid room names
+    private static final Pattern NAME = Pattern.compile("[A-Za-z0-9_.-]{1,32}");
+
+    /**
+     * Listener of the rooms created and removed. It is called while the room
+     * is locked, so it must not block nor change the rooms.
+     */
+    public interface Listener {
+
+        /**
+         * A room was created.
+         *
+         * @param room Room name
+         */
+        void created(String room);
+
+        /**
+         * A room was removed.
+         *
+         * @param room Room name
+         */
+        void removed(String room);
+    }
+
+    // Rooms by name (rooms without members are removed)
+    private final ConcurrentMap<String, Room> rooms
+            = new ConcurrentHashMap<String, Room>();
+    // Listener of the rooms created and removed (null if there is none)
+    private volatile Listener listener;
+
+    /**
+     * Check if a room name is valid: 1 to 32 letters, digits, '_', '.' or '-'.
+     *
+     * @param name Room name
+     *
+     * @return True if the name is valid
+     */
+    public static boolean isValid(String name) {
+        return name != null && NAME.matcher(name).matches();
+    }
+
+    /**
+     * Move a client to a room, creating it if necessary.
+     *
+     * @param session Client
+     * @param current Room of the client (null if it is in none)
+     * @param name Name of the room to join
+     *
+     * @return Room joined, or null if the name is not valid (the client stays
+     * in its room)
+     */
+    public Room join(Session session, Room current, String name) {
+        if (!isValid(name)) {
+            return null;
+        }
+        if (current != null && current.getName().equals(name)) {
+            return current;
+        }
+        Room room = this.rooms.compute(name, (key, existing) -> {
+            if (existing == null) {
+                existing = new Room(key);
+                if (this.listener != null) {
+                    this.listener.created(key);
+                }
+            }
+            existing.add(session);
+            return existing;
+        });
+        leave(session, current);
+        return room;
+    }
+
+    /**
+     * Remove a client from a room, removing the room if it is empty.
+     *
+     * @param session Client
+     * @param room Room of the client (null if it is in none)
+     */
+    public void leave(Session session, Room room) {
+        if (room == null) {
+            return;
+        }
+        this.rooms.computeIfPresent(room.getName(), (key, existing) -> {
+            existing.remove(session);
+            if (existing.size() > 0) {
+                return existing;
+            }
+            if (this.listener != null) {
+                this.listener.removed(key);
+            }
+            return null;
+        });
+    }
+
+    /**
+     * Replace a client by another one in its room, in one step: the room never
+     * has both clients as members, and it is never left empty.
+     *
+     * @param current Client in the room
+     * @param session Client that takes its place
+     * @param room Room of the client
+     *
+     * @return Room of the client
+     */
+    public Room replace(Session current, Session session, Room room) {
+        Room replaced = this.rooms.computeIfPresent(room.getName(),
+                (key, existing) -> {
+                    existing.remove(current);
+                    existing.add(session);
+                    return existing;
+                });
+        return replaced != null ? replaced
+                : join(session, null, room.getName());
+    }
+
+    /**
+     * Set the listener of the rooms created and removed.
+     *
+     * @param listener Listener
+     */
+    public void setListener(Listener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * Get the names of the rooms.
+     *
+     * @return Room names, at the time of the call
+     */
+    public List<String> names() {
+        return new ArrayList<String>(this.rooms.keySet());
+    }
+
+    /**
+     * Get a room by name.
+     *
+     * @param name Room name
+     *
+     * @return Room, or null if there is no room with this name
+     */
+    public Room get(String name) {
+        return this.rooms.get(name);
+    }
+
+    /**
+     * Get the number of rooms.
+     *
+     * @return Number of rooms
+     */
+    public int size() {
+        return this.rooms.size();
+    }
+
+    /**
+     * List the rooms and their number of members, sorted by name, as
+     * "name:members" separated by spaces (at most {@link #LIST_MAX} rooms).
+     *
+     * @return Room list
+     */
+    public String list() {
+        List<String> names = names();
+        Collections.sort(names);
+        StringBuilder list = new StringBuilder();
+        for (String name : names.subList(0, Math.min(names.size(),
+                LIST_MAX))) {
+            Room room = this.rooms.get(name);
+            if (room == null) {
+                continue;
+            }
+            if (list.length() > 0) {
+                list.append(' ');
+            }
+            list.append(name).append(':').append(room.size());
+        }
+        return list.toString();
+    }
+}
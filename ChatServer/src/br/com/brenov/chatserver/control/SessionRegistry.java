@@ -0,0 +1,156 @@
+/*
+ * GNU License.
+ */
+package br.com.brenov.chatserver.control;
+
+import br.com.brenov.chatserver.model.Session;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * The clients logged in to the chat, by name and by language. Names are
+ * reserved atomically, so two clients never get the same name, and both
+ * indexes can be iterated without locks while clients log in and out. The
+ * language index lets the server reach the clients of each language without
+ * checking the language of every client. The messages are scoped to the rooms
+ * of the clients (see {@link RoomRegistry}).
+ *
+ * @author Breno Viana
+ * @version 17/10/2026
+ */
+public class SessionRegistry {
+
+    // Clients by name
+    private final ConcurrentMap<String, Session> names
+            = new ConcurrentHashMap<String, Session>();
+    // Clients by language (languages without clients are removed)
+    private final ConcurrentMap<String, Set<Session>> languages
+            = new ConcurrentHashMap<String, Set<Session>>();
+    // Chat rooms
+    private final RoomRegistry rooms = new RoomRegistry();
+
+    /**
+     * Add a client to the chat, if its name was not used.
+     *
+     * @param session Client
+     *
+     * @return True if the client was added
+     */
+    public boolean register(Session session) {
+        if (this.names.putIfAbsent(session.getName(), session) != null) {
+            return false;
+        }
+        addLanguage(session);
+        return true;
+    }
+
+    /**
+     * Remove a client from the chat.
+     *
+     * @param session Client
+     */
+    public void unregister(Session session) {
+        if (!this.names.remove(session.getName(), session)) {
+            return;
+        }
+        removeLanguage(session);
+    }
+
+    /**
+     * Replace a client by another with the same name, without freeing the
+     * name meanwhile.
+     *
+     * @param current Client in the chat
+     * @param session Client that replaces it
+     *
+     * @return True if the client was replaced, false if it was not in the
+     * chat
+     */
+    public boolean replace(Session current, Session session) {
+        if (!this.names.replace(current.getName(), current, session)) {
+            return false;
+        }
+        addLanguage(session);
+        removeLanguage(current);
+        return true;
+    }
+
+    /**
+     * Add a client to the clients of its language.
+     *
+     * @param session Client
+     */
+    private void addLanguage(Session session) {
+        this.languages.compute(session.getLanguage(), (language, set) -> {
+            if (set == null) {
+                set = ConcurrentHashMap.newKeySet();
+            }
+            set.add(session);
+            return set;
+        });
+    }
+
+    /**
+     * Remove a client from the clients of its language.
+     *
+     * @param session Client
+     */
+    private void removeLanguage(Session session) {
+        this.languages.computeIfPresent(session.getLanguage(),
+                (language, set) -> {
+                    set.remove(session);
+                    return set.isEmpty() ? null : set;
+                });
+    }
+
+    /**
+     * Get a client by name.
+     *
+     * @param name Client name
+     *
+     * @return Client, or null if there is no client with this name
+     */
+    public Session get(String name) {
+        return this.names.get(name);
+    }
+
+    /**
+     * Get all the clients.
+     *
+     * @return Clients
+     */
+    public Collection<Session> all() {
+        return Collections.unmodifiableCollection(this.names.values());
+    }
+
+    /**
+     * Get the clients grouped by language.
+     *
+     * @return Clients of each language
+     */
+    public Map<String, Set<Session>> byLanguage() {
+        return Collections.unmodifiableMap(this.languages);
+    }
+
+    /**
+     * Get the chat rooms.
+     *
+     * @return Rooms
+     */
+    public RoomRegistry rooms() {
+        return this.rooms;
+    }
+
+    /**
+     * Get the number of clients.
+     *
+     * @return Number of clients
+     */
+    public int size() {
+        return this.names.size();
+    }
+}
@@ -0,0 +1,400 @@
+/*
+ * GNU License.
+ */
+package br.com.brenov.chatserver.journal;
+
+import br.com.brenov.chatserver.ServerConfig;
+import br.com.brenov.chatserver.log.ServerLog;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Append-only journal of the chat messages, for the chat history. It holds
+ * the original text of each message, with its room, sender, source language
+ * and the time it was received (see {@link JournalRecord}).
+ *
+ * The clients only queue their messages: the journal has its own writer
+ * thread, which writes all the queued messages with one write and forces them
+ * to the disk with one sync (group commit). When the queue is full, messages
+ * are not journaled, so a slow disk never delays the delivery of messages.
+ *
+ * The journal is a directory of segment files, each named after the sequence
+ * number of its first record. A new segment starts when the current one
+ * reaches its size, and the oldest segments are removed when the journal is
+ * above its size or they are above its age. An incomplete record at the end
+ * of the last segment, written during a crash, is removed on start. The
+ * records are read back by a {@link JournalReader}.
+ *
+ * Without a journal directory in the configuration, nothing is journaled.
+ *
+ * @author Breno Viana
+ * @version 17/10/2026
+ */
+public class Journal {
+
+    // Maximum number of records of a commit
+    private static final int BATCH = 1024;
+    // Time between the checks of the retention (ms)
+    private static final long RETENTION_CHECK = 60000;
+    // Time to wait for the writer on close (ms)
+    private static final long CLOSE_TIMEOUT = 5000;
+    // Marks the end of the writer
+    private static final JournalRecord END
+            = new JournalRecord(0, 0, "", "", "", "");
+
+    // Journal directory (null if the journal is disabled)
+    private final Path dir;
+    // Size of a segment (bytes)
+    private final long segmentSize;
+    // Maximum size of the journal (bytes, 0 for no limit)
+    private final long retentionSize;
+    // Maximum age of the journal (ms, 0 for no limit)
+    private final long retentionAge;
+    // True to force each commit to the disk
+    private final boolean sync;
+    // Records waiting to be written
+    private final BlockingQueue<JournalRecord> queue;
+
+    // Current segment (used by the writer only)
+    private FileChannel channel;
+    // Length of the current segment (used by the writer only)
+    private long length;
+    // Sequence number of the next record (used by the writer only)
+    private long sequence;
+    // Number of records written (used by the writer only)
+    private long written = 0;
+    // Number of commits (used by the writer only)
+    private long commits = 0;
+    // Time of the last check of the retention (used by the writer only)
+    private long checked = 0;
+    // Number of records dropped because the queue was full
+    private long dropped = 0;
+    // Writer thread
+    private Thread writer;
+    // True if the journal was closed
+    private volatile boolean closed = false;
+
+    /**
+     * Construct a journal.
+     *
+     * @param config Server configuration
+     */
+    public Journal(ServerConfig config) {
+        this.dir = config.getJournalDir().isEmpty() ? null
+                : Paths.get(config.getJournalDir());
+        this.segmentSize = config.getJournalSegment() * 1024L * 1024L;
+        this.retentionSize = config.getJournalRetentionSize() * 1024L * 1024L;
+        this.retentionAge = TimeUnit.HOURS.toMillis(
+                config.getJournalRetentionAge());
+        this.sync = config.isJournalSync();
+        this.queue = new ArrayBlockingQueue<JournalRecord>(
+                Math.max(1, config.getJournalQueue()));
+    }
+
+    /**
+     * Check if the messages are journaled.
+     *
+     * @return True if there is a journal directory in the configuration
+     */
+    public boolean isEnabled() {
+        return this.dir != null;
+    }
+
+    /**
+     * Start the journal: open the last segment, remove its incomplete record,
+     * if any, and start the writer. Does nothing if the journal is disabled.
+     *
+     * @throws IOException The journal could not be opened
+     */
+    public void start() throws IOException {
+        if (!isEnabled()) {
+            return;
+        }
+        Files.createDirectories(this.dir);
+        List<Path> segments = JournalReader.segments(this.dir);
+        if (segments.isEmpty()) {
+            this.sequence = 0;
+            open();
+        } else {
+            Path last = segments.get(segments.size() - 1);
+            long[] sequence = new long[1];
+            long valid = JournalReader.validLength(last, sequence);
+            this.sequence = sequence[0] < 0 ? JournalReader.sequence(last)
+                    : sequence[0] + 1;
+            this.channel = FileChannel.open(last, StandardOpenOption.WRITE);
+            if (this.channel.size() > valid) {
+                // Server Log
+                ServerLog.warn("journal segment=" + last.getFileName()
+                        + " action=truncate from=" + this.channel.size()
+                        + " to=" + valid);
+                this.channel.truncate(valid);
+            }
+            this.channel.position(valid);
+            this.length = valid;
+        }
+        retention();
+        // Server Log
+        ServerLog.info("journal dir=" + this.dir + " sequence="
+                + this.sequence);
+        this.writer = new Thread(this::write, "journal-writer");
+        this.writer.setDaemon(true);
+        this.writer.start();
+        Runtime.getRuntime().addShutdownHook(new Thread(this::close));
+    }
+
+    /**
+     * Queue a message, or drop it if the queue is full. Never blocks.
+     *
+     * @param room Room of the sender
+     * @param sender Name of the sender
+     * @param language Source language
+     * @param text Original text
+     */
+    public void append(String room, String sender, String language,
+            String text) {
+        if (!isEnabled() || this.closed || this.queue.offer(new JournalRecord(
+                0, System.currentTimeMillis(), room, sender, language, text))) {
+            return;
+        }
+        synchronized (this) {
+            if (this.dropped++ % 1000 == 0) {
+                // Server Log
+                ServerLog.warn("journal action=drop reason=full dropped="
+                        + this.dropped);
+            }
+        }
+    }
+
+    /**
+     * Write the queued records until the journal is closed.
+     */
+    private void write() {
+        List<JournalRecord> records = new ArrayList<JournalRecord>(BATCH);
+        try {
+            while (true) {
+                JournalRecord first = this.queue.poll(RETENTION_CHECK,
+                        TimeUnit.MILLISECONDS);
+                if (first != null) {
+                    records.add(first);
+                    this.queue.drainTo(records, BATCH - 1);
+                    boolean end = commit(records);
+                    records.clear();
+                    if (end) {
+                        break;
+                    }
+                }
+                if (System.currentTimeMillis() - this.checked
+                        > RETENTION_CHECK) {
+                    retention();
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        try {
+            this.channel.force(false);
+            this.channel.close();
+        } catch (IOException e) {
+            // Server Log
+            ServerLog.warn("journal action=close error=" + e);
+        }
+    }
+
+    /**
+     * Write records, starting a new segment when the current one is full. If
+     * a write fails, the records not written are lost, and their sequence
+     * numbers are given to the next records.
+     *
+     * @param records Records to write
+     *
+     * @return True if the records end with the end of the writer
+     */
+    private boolean commit(List<JournalRecord> records) {
+        ByteBuffer[] buffers = new ByteBuffer[records.size()];
+        int count = 0;
+        long size = 0;
+        boolean end = false;
+        try {
+            for (JournalRecord record : records) {
+                if (record == END) {
+                    end = true;
+                    break;
+                }
+                byte[] bytes = record.encode(this.sequence + count);
+                if (this.length + size + bytes.length > this.segmentSize
+                        && this.length + size > 0) {
+                    flush(buffers, count, size);
+                    count = 0;
+                    size = 0;
+                    roll();
+                }
+                buffers[count++] = ByteBuffer.wrap(bytes);
+                size += bytes.length;
+            }
+            flush(buffers, count, size);
+        } catch (IOException e) {
+            // Server Log
+            ServerLog.warn("journal sequence=" + this.sequence + " error="
+                    + e);
+            recover();
+        }
+        return end;
+    }
+
+    /**
+     * Remove what a failed write left after the last complete record, so the
+     * next records follow it (a damaged record would end the segment for the
+     * readers, and for the next start). If the segment can not be cut, a new
+     * one is started instead.
+     */
+    private void recover() {
+        try {
+            this.channel.truncate(this.length);
+            this.channel.position(this.length);
+        } catch (IOException e) {
+            try {
+                this.channel.close();
+            } catch (IOException ex) {
+            }
+            try {
+                open();
+            } catch (IOException ex) {
+                // Server Log
+                ServerLog.warn("journal action=open error=" + ex);
+            }
+        }
+    }
+
+    /**
+     * Write encoded records to the current segment with one write, and force
+     * them to the disk if configured.
+     *
+     * @param buffers Encoded records
+     * @param count Number of records
+     * @param size Total size of the records (bytes)
+     *
+     * @throws IOException Write error
+     */
+    private void flush(ByteBuffer[] buffers, int count, long size)
+            throws IOException {
+        if (count == 0) {
+            return;
+        }
+        long left = size;
+        while (left > 0) {
+            left -= this.channel.write(buffers, 0, count);
+        }
+        if (this.sync) {
+            this.channel.force(false);
+        }
+        this.length += size;
+        this.sequence += count;
+        this.written += count;
+        this.commits++;
+    }
+
+    /**
+     * Close the current segment, start a new one and apply the retention.
+     *
+     * @throws IOException The segment could not be created
+     */
+    private void roll() throws IOException {
+        this.channel.force(false);
+        this.channel.close();
+        open();
+        retention();
+    }
+
+    /**
+     * Create a segment for the next record.
+     *
+     * @throws IOException The segment could not be created
+     */
+    private void open() throws IOException {
+        this.channel = FileChannel.open(this.dir.resolve(
+                JournalReader.name(this.sequence)), StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        this.length = 0;
+    }
+
+    /**
+     * Remove the oldest segments while the journal is above its size or they
+     * are above its age. The current segment is never removed.
+     */
+    private void retention() {
+        this.checked = System.currentTimeMillis();
+        try {
+            List<Path> segments = JournalReader.segments(this.dir);
+            long total = 0;
+            for (Path segment : segments) {
+                total += Files.size(segment);
+            }
+            for (int i = 0; i < segments.size() - 1; i++) {
+                Path segment = segments.get(i);
+                long age = this.checked
+                        - Files.getLastModifiedTime(segment).toMillis();
+                if ((this.retentionSize <= 0 || total <= this.retentionSize)
+                        && (this.retentionAge <= 0
+                        || age <= this.retentionAge)) {
+                    break;
+                }
+                total -= Files.size(segment);
+                Files.delete(segment);
+                // Server Log
+                ServerLog.info("journal segment=" + segment.getFileName()
+                        + " action=remove age=" + age + " total=" + total);
+            }
+        } catch (IOException e) {
+            // Server Log
+            ServerLog.warn("journal action=retention error=" + e);
+        }
+    }
+
+    /**
+     * Close the journal: write the queued records and stop the writer.
+     */
+    public void close() {
+        if (!isEnabled() || this.writer == null) {
+            return;
+        }
+        synchronized (this) {
+            if (this.closed) {
+                return;
+            }
+            this.closed = true;
+        }
+        try {
+            if (this.queue.offer(END, CLOSE_TIMEOUT, TimeUnit.MILLISECONDS)) {
+                this.writer.join(CLOSE_TIMEOUT);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        // Server Log
+        ServerLog.info(toString());
+    }
+
+    /**
+     * Get the journal statistics.
+     *
+     * @return Statistics, in the log format
+     */
+    @Override
+    public String toString() {
+        synchronized (this) {
+            return "journal written=" + this.written + " commits="
+                    + this.commits + " dropped=" + this.dropped
+                    + " sequence=" + this.sequence;
+        }
+    }
+}
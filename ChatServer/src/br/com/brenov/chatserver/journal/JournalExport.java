@@ -0,0 +1,81 @@
+/*
+ * GNU License.
+ */
+package br.com.brenov.chatserver.journal;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+
+/**
+ * Export of the journal, as one JSON object per line, for replay in other
+ * tools. Usage: JournalExport dir [sequence], where sequence is the first
+ * record to export.
+ *
+ * @author Breno Viana
+ * @version 17/10/2026
+ */
+public class JournalExport {
+
+    /**
+     * Export the journal to the standard output.
+     *
+     * @param args Journal directory and first sequence number
+     *
+     * @throws IOException The journal could not be read
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.err.println("Usage: JournalExport dir [sequence]");
+            System.exit(1);
+        }
+        long from = args.length > 1 ? Long.parseLong(args[1]) : 0;
+        Writer out = new BufferedWriter(new OutputStreamWriter(System.out,
+                StandardCharsets.UTF_8), 65536);
+        try (JournalReader reader = new JournalReader(Paths.get(args[0]),
+                from)) {
+            JournalRecord record;
+            while ((record = reader.next()) != null) {
+                out.write("{\"sequence\":" + record.getSequence()
+                        + ",\"time\":" + record.getTime() + ",\"room\":"
+                        + quote(record.getRoom()) + ",\"sender\":"
+                        + quote(record.getSender()) + ",\"language\":"
+                        + quote(record.getLanguage()) + ",\"text\":"
+                        + quote(record.getText()) + "}\n");
+            }
+        }
+        out.flush();
+    }
+
+    /**
+     * Quote a JSON string.
+     *
+     * @param value Value
+     *
+     * @return Quoted and escaped value
+     */
+    private static String quote(String value) {
+        StringBuilder quoted = new StringBuilder(value.length() + 2);
+        quoted.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                quoted.append('\\').append(c);
+            } else if (c == '\n') {
+                quoted.append("\\n");
+            } else if (c == '\r') {
+                quoted.append("\\r");
+            } else if (c == '\t') {
+                quoted.append("\\t");
+            } else if (c < 0x20) {
+                quoted.append(String.format("\\u%04x", (int) c));
+            } else {
+                quoted.append(c);
+            }
+        }
+        return quoted.append('"').toString();
+    }
+}
@@ -0,0 +1,227 @@
+/*
+ * GNU License.
+ */
+package br.com.brenov.chatserver.journal;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Sequential reader of the journal, for replay and export. It reads the
+ * records in order, from a sequence number, through all the segments that
+ * exist when it is created, including the segment being written. A damaged or
+ * incomplete record (the tail of a segment written during a crash) ends its
+ * segment.
+ *
+ * @author Breno Viana
+ * @version 17/10/2026
+ */
+public class JournalReader implements Closeable {
+
+    // Prefix of the segment files
+    static final String PREFIX = "journal-";
+    // Suffix of the segment files
+    static final String SUFFIX = ".log";
+    // Maximum payload of a record (larger lengths are damaged records)
+    static final int MAX = 16 * 1024 * 1024;
+
+    // Segments, in order
+    private final List<Path> segments;
+    // First sequence number to read
+    private final long from;
+    // Index of the next segment to open
+    private int next;
+    // Current segment (null if none is open)
+    private DataInputStream in;
+    // Payload buffer
+    private byte[] payload = new byte[4096];
+    // Payload length of the last record read
+    private int length;
+
+    /**
+     * Construct a reader.
+     *
+     * @param dir Journal directory
+     * @param from First sequence number to read (0 for all)
+     *
+     * @throws IOException The directory could not be listed
+     */
+    public JournalReader(Path dir, long from) throws IOException {
+        this(segments(dir), from);
+    }
+
+    /**
+     * Construct a reader of some segments.
+     *
+     * @param segments Segments, in order
+     * @param from First sequence number to read
+     */
+    private JournalReader(List<Path> segments, long from) {
+        this.segments = segments;
+        this.from = from;
+        // Skip the segments that end before the first sequence number
+        this.next = 0;
+        while (this.next + 1 < this.segments.size()
+                && sequence(this.segments.get(this.next + 1)) <= from) {
+            this.next++;
+        }
+    }
+
+    /**
+     * List the segments of a journal.
+     *
+     * @param dir Journal directory
+     *
+     * @return Segment files, in order
+     *
+     * @throws IOException The directory could not be listed
+     */
+    static List<Path> segments(Path dir) throws IOException {
+        List<Path> segments = new ArrayList<Path>();
+        if (!Files.isDirectory(dir)) {
+            return segments;
+        }
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(dir,
+                PREFIX + "*" + SUFFIX)) {
+            for (Path file : files) {
+                segments.add(file);
+            }
+        }
+        // The names hold fixed-width sequence numbers
+        Collections.sort(segments);
+        return segments;
+    }
+
+    /**
+     * Get the first sequence number of a segment.
+     *
+     * @param segment Segment file
+     *
+     * @return Sequence number of its first record
+     */
+    static long sequence(Path segment) {
+        String name = segment.getFileName().toString();
+        return Long.parseLong(name.substring(PREFIX.length(),
+                name.length() - SUFFIX.length()));
+    }
+
+    /**
+     * Get the name of a segment.
+     *
+     * @param sequence Sequence number of its first record
+     *
+     * @return File name
+     */
+    static String name(long sequence) {
+        return String.format("%s%020d%s", PREFIX, sequence, SUFFIX);
+    }
+
+    /**
+     * Read the next record.
+     *
+     * @return Record, or null at the end of the journal
+     *
+     * @throws IOException Read error
+     */
+    public JournalRecord next() throws IOException {
+        while (true) {
+            if (this.in == null) {
+                if (this.next >= this.segments.size()) {
+                    return null;
+                }
+                try {
+                    this.in = new DataInputStream(new BufferedInputStream(
+                            Files.newInputStream(this.segments
+                                    .get(this.next++)), 65536));
+                } catch (NoSuchFileException e) {
+                    // Removed by the retention
+                    continue;
+                }
+            }
+            JournalRecord record = read(this.in);
+            if (record == null) {
+                this.in.close();
+                this.in = null;
+            } else if (record.getSequence() >= this.from) {
+                return record;
+            }
+        }
+    }
+
+    /**
+     * Read a record of a segment.
+     *
+     * @param in Segment stream
+     *
+     * @return Record, or null at the end of the segment or at a damaged
+     * record
+     *
+     * @throws IOException Read error
+     */
+    private JournalRecord read(DataInputStream in) throws IOException {
+        try {
+            int length = in.readInt();
+            if (length < 0 || length > MAX) {
+                return null;
+            }
+            if (length > this.payload.length) {
+                this.payload = new byte[length];
+            }
+            in.readFully(this.payload, 0, length);
+            this.length = length;
+            return JournalRecord.decode(this.payload, length, in.readInt());
+        } catch (EOFException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Find the end of the valid records of a segment.
+     *
+     * @param segment Segment file
+     * @param last Receives the sequence number of the last valid record (-1
+     * if there is none)
+     *
+     * @return Length of the valid records, in bytes
+     *
+     * @throws IOException Read error
+     */
+    static long validLength(Path segment, long[] last) throws IOException {
+        JournalReader reader = new JournalReader(
+                Collections.<Path>emptyList(), 0);
+        long length = 0;
+        last[0] = -1;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(
+                Files.newInputStream(segment), 65536))) {
+            JournalRecord record;
+            while ((record = reader.read(in)) != null) {
+                length += JournalRecord.OVERHEAD + reader.length;
+                last[0] = record.getSequence();
+            }
+        }
+        return length;
+    }
+
+    /**
+     * Close the reader.
+     *
+     * @throws IOException Error closing the segment
+     */
+    @Override
+    public void close() throws IOException {
+        if (this.in != null) {
+            this.in.close();
+            this.in = null;
+        }
+    }
+}
@@ -0,0 +1,173 @@
+/*
+ * GNU License.
+ */
+package br.com.brenov.chatserver.journal;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.CRC32;
+
+/**
+ * A message of the journal: the original text, as sent by the client, with
+ * its room, sender, source language and the time it was received.
+ *
+ * On disk, a record is its payload length (4 bytes), the payload and the
+ * CRC-32 of the payload (4 bytes). The payload holds the sequence number and
+ * the time (8 bytes each), then the room, sender, language and text, each as
+ * its length (4 bytes) and its UTF-8 bytes.
+ *
+ * @author Breno Viana
+ * @version 17/10/2026
+ */
+public final class JournalRecord {
+
+    // Size of the length and checksum of a record
+    static final int OVERHEAD = 8;
+
+    // Sequence number
+    private final long sequence;
+    // Time the message was received (ms since the epoch)
+    private final long time;
+    // Room of the sender
+    private final String room;
+    // Name of the sender
+    private final String sender;
+    // Source language
+    private final String language;
+    // Original text
+    private final String text;
+
+    /**
+     * Construct a record.
+     *
+     * @param sequence Sequence number
+     * @param time Time the message was received (ms since the epoch)
+     * @param room Room of the sender
+     * @param sender Name of the sender
+     * @param language Source language
+     * @param text Original text
+     */
+    public JournalRecord(long sequence, long time, String room, String sender,
+            String language, String text) {
+        this.sequence = sequence;
+        this.time = time;
+        this.room = room;
+        this.sender = sender;
+        this.language = language;
+        this.text = text;
+    }
+
+    /**
+     * Get the sequence number. The numbers grow by one with each message, in
+     * the order the messages were written.
+     *
+     * @return Sequence number
+     */
+    public long getSequence() {
+        return this.sequence;
+    }
+
+    /**
+     * Get the time the message was received.
+     *
+     * @return Milliseconds since the epoch
+     */
+    public long getTime() {
+        return this.time;
+    }
+
+    /**
+     * Get the room of the sender.
+     *
+     * @return Room name
+     */
+    public String getRoom() {
+        return this.room;
+    }
+
+    /**
+     * Get the name of the sender.
+     *
+     * @return Client name
+     */
+    public String getSender() {
+        return this.sender;
+    }
+
+    /**
+     * Get the source language.
+     *
+     * @return Language ID
+     */
+    public String getLanguage() {
+        return this.language;
+    }
+
+    /**
+     * Get the original text.
+     *
+     * @return Text
+     */
+    public String getText() {
+        return this.text;
+    }
+
+    /**
+     * Encode a record.
+     *
+     * @param sequence Sequence number
+     *
+     * @return Record bytes (length, payload and checksum)
+     */
+    byte[] encode(long sequence) {
+        byte[][] fields = {this.room.getBytes(StandardCharsets.UTF_8),
+            this.sender.getBytes(StandardCharsets.UTF_8),
+            this.language.getBytes(StandardCharsets.UTF_8),
+            this.text.getBytes(StandardCharsets.UTF_8)};
+        int payload = 16;
+        for (byte[] field : fields) {
+            payload += 4 + field.length;
+        }
+        ByteBuffer record = ByteBuffer.allocate(OVERHEAD + payload);
+        record.putInt(payload).putLong(sequence).putLong(this.time);
+        for (byte[] field : fields) {
+            record.putInt(field.length).put(field);
+        }
+        CRC32 crc = new CRC32();
+        crc.update(record.array(), 4, payload);
+        record.putInt((int) crc.getValue());
+        return record.array();
+    }
+
+    /**
+     * Decode the payload of a record.
+     *
+     * @param payload Payload bytes
+     * @param length Payload length
+     * @param checksum Checksum read after the payload
+     *
+     * @return Record, or null if the payload is damaged
+     */
+    static JournalRecord decode(byte[] payload, int length, int checksum) {
+        CRC32 crc = new CRC32();
+        crc.update(payload, 0, length);
+        if ((int) crc.getValue() != checksum || length < 32) {
+            return null;
+        }
+        ByteBuffer data = ByteBuffer.wrap(payload, 0, length);
+        long sequence = data.getLong();
+        long time = data.getLong();
+        String[] fields = new String[4];
+        for (int i = 0; i < fields.length; i++) {
+            int size = data.getInt();
+            if (size < 0 || size > data.remaining()) {
+                return null;
+            }
+            fields[i] = new String(payload, data.position(), size,
+                    StandardCharsets.UTF_8);
+            data.position(data.position() + size);
+        }
+        return new JournalRecord(sequence, time, fields[0], fields[1],
+                fields[2], fields[3]);
+    }
+}
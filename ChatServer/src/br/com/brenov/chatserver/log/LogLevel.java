@@ -0,0 +1,42 @@
+/*
+ * GNU License.
+ */
+package br.com.brenov.chatserver.log;
+
+/**
+ * Server log levels, from the most to the least important. A level enables
+ * the levels before it.
+ *
+ * @author Breno Viana
+ * @version 17/10/2026
+ */
+public enum LogLevel {
+
+    /**
+     * Errors that stop a part of the server.
+     */
+    ERROR,
+    /**
+     * Problems with a client or a request.
+     */
+    WARN,
+    /**
+     * Server events (logins, clients that left, a sample of the messages).
+     */
+    INFO,
+    /**
+     * Every message, with its text.
+     */
+    DEBUG;
+
+    /**
+     * Get a level by its name, ignoring case.
+     *
+     * @param name Level name
+     *
+     * @return Log level
+     */
+    public static LogLevel of(String name) {
+        return LogLevel.valueOf(name.trim().toUpperCase());
+    }
+}
@@ -0,0 +1,299 @@
+/*
+ * GNU License.
+ */
+package br.com.brenov.chatserver.log;
+
+import java.io.PrintStream;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Asynchronous server log. The threads that log only check the level and queue
+ * the event; a single writer thread formats the queued events and writes them
+ * to the standard output together, so the threads that serve the clients never
+ * wait for the console. If the writer falls behind and the queue is full, the
+ * new events are dropped and counted.
+ *
+ * The events of each message are the frequent ones: at INFO level only a
+ * sample of them is logged, without the message text, which is only logged at
+ * DEBUG level. Until the log is started, the events are written by the thread
+ * that logs them.
+ *
+ * Events are written as "time level [thread] event key=value ...", with the
+ * message text, when there is one, as the last value.
+ *
+ * @author Breno Viana
+ * @version 17/10/2026
+ */
+public final class ServerLog {
+
+    // Maximum number of events written together
+    private static final int BATCH = 256;
+
+    // Events waiting to be written (null until the log is started)
+    private static volatile BlockingQueue<Entry> queue;
+    // Enabled level
+    private static volatile LogLevel level = LogLevel.INFO;
+    // One message event in this many is logged at INFO level (0 for none)
+    private static volatile int sample = 1;
+    // Events dropped because the queue was full
+    private static final LongAdder dropped = new LongAdder();
+    // Output
+    private static PrintStream out = System.out;
+
+    /**
+     * A queued event.
+     */
+    private static final class Entry {
+
+        // Time of the event, in milliseconds
+        final long time;
+        // Level
+        final LogLevel level;
+        // Thread that logged the event
+        final String thread;
+        // Event and its values
+        final String text;
+
+        /**
+         * Construct an event.
+         *
+         * @param level Level
+         * @param text Event and its values
+         */
+        Entry(LogLevel level, String text) {
+            this.time = System.currentTimeMillis();
+            this.level = level;
+            this.thread = Thread.currentThread().getName();
+            this.text = text;
+        }
+    }
+
+    private ServerLog() {
+    }
+
+    /**
+     * Start the writer of the log. The events left in the queue are written
+     * when the server stops.
+     *
+     * @param level Enabled level
+     * @param sample One message event in this many is logged at INFO level (0
+     * for none)
+     * @param capacity Maximum number of events waiting to be written
+     */
+    public static synchronized void start(LogLevel level, int sample,
+            int capacity) {
+        ServerLog.level = level;
+        ServerLog.sample = sample;
+        if (queue != null) {
+            return;
+        }
+        out = System.out;
+        queue = new ArrayBlockingQueue<Entry>(capacity);
+        Thread writer = new Thread(ServerLog::run, "server-log");
+        writer.setDaemon(true);
+        writer.start();
+        Runtime.getRuntime().addShutdownHook(new Thread(ServerLog::flush));
+    }
+
+    /**
+     * Check if a level is enabled.
+     *
+     * @param level Log level
+     *
+     * @return True if the events of this level are logged
+     */
+    public static boolean isEnabled(LogLevel level) {
+        return level.compareTo(ServerLog.level) <= 0;
+    }
+
+    /**
+     * Log an error.
+     *
+     * @param event Event and its values
+     */
+    public static void error(String event) {
+        log(LogLevel.ERROR, event);
+    }
+
+    /**
+     * Log a problem with a client or a request.
+     *
+     * @param event Event and its values
+     */
+    public static void warn(String event) {
+        log(LogLevel.WARN, event);
+    }
+
+    /**
+     * Log a server event.
+     *
+     * @param event Event and its values
+     */
+    public static void info(String event) {
+        log(LogLevel.INFO, event);
+    }
+
+    /**
+     * Log a message received from a client: with its text at DEBUG level, or
+     * only its size if it is sampled at INFO level.
+     *
+     * @param from Client name
+     * @param text Message
+     */
+    public static void received(String from, String text) {
+        if (isEnabled(LogLevel.DEBUG)) {
+            log(LogLevel.DEBUG, "message from=" + escape(from) + " text="
+                    + escape(text));
+        } else if (sampled()) {
+            log(LogLevel.INFO, "message from=" + escape(from) + " length="
+                    + text.length());
+        }
+    }
+
+    /**
+     * Log a translated message: with its text at DEBUG level, or only its
+     * language if it is sampled at INFO level.
+     *
+     * @param language Target language
+     * @param clients Number of recipients
+     * @param text Translated message
+     */
+    public static void translated(String language, int clients, String text) {
+        if (isEnabled(LogLevel.DEBUG)) {
+            log(LogLevel.DEBUG, "translated language=" + language
+                    + " clients=" + clients + " text=" + escape(text));
+        } else if (sampled()) {
+            log(LogLevel.INFO, "translated language=" + language
+                    + " clients=" + clients);
+        }
+    }
+
+    /**
+     * Escape the control characters of a text sent by a client (a framed
+     * message may hold line breaks), so that it can not forge log lines.
+     *
+     * @param text Text
+     *
+     * @return Text with its backslashes and control characters escaped, as in
+     * a Java string literal
+     */
+    static String escape(String text) {
+        int i = 0;
+        while (i < text.length() && text.charAt(i) >= 0x20
+                && text.charAt(i) != 0x7f && text.charAt(i) != '\\') {
+            i++;
+        }
+        if (i == text.length()) {
+            return text;
+        }
+        StringBuilder escaped = new StringBuilder(text.length() + 16);
+        escaped.append(text, 0, i);
+        for (; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == '\\') {
+                escaped.append("\\\\");
+            } else if (c == '\n') {
+                escaped.append("\\n");
+            } else if (c == '\r') {
+                escaped.append("\\r");
+            } else if (c == '\t') {
+                escaped.append("\\t");
+            } else if (c < 0x20 || c == 0x7f) {
+                escaped.append(String.format("\\u%04x", (int) c));
+            } else {
+                escaped.append(c);
+            }
+        }
+        return escaped.toString();
+    }
+
+    /**
+     * Choose if a message event is logged at INFO level.
+     *
+     * @return True if the event is in the sample
+     */
+    private static boolean sampled() {
+        int rate = sample;
+        return rate > 0 && isEnabled(LogLevel.INFO) && (rate == 1
+                || ThreadLocalRandom.current().nextInt(rate) == 0);
+    }
+
+    /**
+     * Queue an event, if its level is enabled.
+     *
+     * @param level Level
+     * @param text Event and its values
+     */
+    private static void log(LogLevel level, String text) {
+        if (!isEnabled(level)) {
+            return;
+        }
+        Entry entry = new Entry(level, text);
+        BlockingQueue<Entry> events = queue;
+        if (events == null) {
+            List<Entry> batch = new ArrayList<Entry>(1);
+            batch.add(entry);
+            write(batch);
+        } else if (!events.offer(entry)) {
+            dropped.increment();
+        }
+    }
+
+    /**
+     * Write the queued events until the server stops.
+     */
+    private static void run() {
+        List<Entry> batch = new ArrayList<Entry>(BATCH);
+        try {
+            while (true) {
+                batch.add(queue.take());
+                queue.drainTo(batch, BATCH - 1);
+                write(batch);
+                batch.clear();
+            }
+        } catch (InterruptedException e) {
+        }
+    }
+
+    /**
+     * Write the events left in the queue. Shutdown hooks that log events call
+     * it once they are done, as the hooks run at the same time.
+     */
+    public static void flush() {
+        BlockingQueue<Entry> events = queue;
+        if (events == null) {
+            return;
+        }
+        List<Entry> batch = new ArrayList<Entry>();
+        events.drainTo(batch);
+        write(batch);
+    }
+
+    /**
+     * Write events, and how many were dropped since the last write.
+     *
+     * @param batch Events
+     */
+    private static synchronized void write(List<Entry> batch) {
+        StringBuilder lines = new StringBuilder();
+        long lost = dropped.sumThenReset();
+        if (lost > 0) {
+            lines.append(Instant.now()).append(' ').append(LogLevel.WARN)
+                    .append(" [server-log] dropped events=").append(lost)
+                    .append('\n');
+        }
+        for (Entry entry : batch) {
+            lines.append(Instant.ofEpochMilli(entry.time)).append(' ')
+                    .append(entry.level).append(" [").append(entry.thread)
+                    .append("] ").append(entry.text).append('\n');
+        }
+        out.print(lines);
+        out.flush();
+    }
+}
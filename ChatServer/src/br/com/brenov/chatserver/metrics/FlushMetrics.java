@@ -0,0 +1,115 @@
+/*
+ * GNU License.
+ */
+package br.com.brenov.chatserver.metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Outbound flush metrics, shared by all the connections. Each flush writes a
+ * batch of messages queued to one client with a single socket write, so the
+ * batch size shows how much the writes are coalesced.
+ *
+ * @author Breno Viana
+ * @version 17/10/2026
+ */
+public class FlushMetrics implements FlushMetricsMBean {
+
+    // Number of histogram buckets
+    private static final int BUCKETS = 7;
+
+    // Number of flushes
+    private final LongAdder flushes = new LongAdder();
+    // Number of messages flushed
+    private final LongAdder messages = new LongAdder();
+    // Number of bytes flushed
+    private final LongAdder bytes = new LongAdder();
+    // Flushes by batch size (powers of two)
+    private final AtomicLongArray batches = new AtomicLongArray(BUCKETS);
+
+    /**
+     * Record a flush.
+     *
+     * @param batch Number of messages flushed
+     * @param size Number of bytes flushed
+     */
+    public void record(int batch, long size) {
+        if (batch <= 0) {
+            return;
+        }
+        this.flushes.increment();
+        this.messages.add(batch);
+        this.bytes.add(size);
+        int bucket = 31 - Integer.numberOfLeadingZeros(batch);
+        this.batches.incrementAndGet(Math.min(bucket, BUCKETS - 1));
+    }
+
+    /**
+     * Get the number of flushes (socket writes) of outbound messages.
+     *
+     * @return Number of flushes
+     */
+    @Override
+    public long getFlushes() {
+        return this.flushes.sum();
+    }
+
+    /**
+     * Get the number of outbound messages flushed.
+     *
+     * @return Number of messages
+     */
+    @Override
+    public long getMessages() {
+        return this.messages.sum();
+    }
+
+    /**
+     * Get the number of outbound bytes flushed.
+     *
+     * @return Number of bytes
+     */
+    @Override
+    public long getBytes() {
+        return this.bytes.sum();
+    }
+
+    /**
+     * Get the mean number of messages per flush.
+     *
+     * @return Mean flush batch size
+     */
+    @Override
+    public double getMeanBatch() {
+        long count = getFlushes();
+        return count == 0 ? 0 : (double) getMessages() / count;
+    }
+
+    /**
+     * Get the number of flushes of each batch size: 1, 2-3, 4-7, 8-15, 16-31,
+     * 32-63 and 64 or more messages.
+     *
+     * @return Flushes by batch size
+     */
+    @Override
+    public long[] getBatchHistogram() {
+        long[] histogram = new long[BUCKETS];
+        for (int i = 0; i < BUCKETS; i++) {
+            histogram[i] = this.batches.get(i);
+        }
+        return histogram;
+    }
+
+    /**
+     * Summary of the flushes.
+     *
+     * @return Flushes, messages and mean batch size
+     */
+    @Override
+    public String toString() {
+        return String.format("Outbound flushes: flushes=%d, messages=%d, "
+                + "bytes=%d, mean batch=%.2f", getFlushes(), getMessages(),
+                getBytes(), getMeanBatch());
+    }
+}
@@ -0,0 +1,49 @@
+/*
+ * GNU License.
+ */
+package br.com.brenov.chatserver.metrics;
+
+/**
+ * Management interface of the outbound flush metrics.
+ *
+ * @author Breno Viana
+ * @version 17/10/2026
+ */
+public interface FlushMetricsMBean {
+
+    /**
+     * Get the number of flushes (socket writes) of outbound messages.
+     *
+     * @return Number of flushes
+     */
+    long getFlushes();
+
+    /**
+     * Get the number of outbound messages flushed.
+     *
+     * @return Number of messages
+     */
+    long getMessages();
+
+    /**
+     * Get the number of outbound bytes flushed.
+     *
+     * @return Number of bytes
+     */
+    long getBytes();
+
+    /**
+     * Get the mean number of messages per flush.
+     *
+     * @return Mean flush batch size
+     */
+    double getMeanBatch();
+
+    /**
+     * Get the number of flushes of each batch size: 1, 2-3, 4-7, 8-15, 16-31,
+     * 32-63 and 64 or more messages.
+     *
+     * @return Flushes by batch size
+     */
+    long[] getBatchHistogram();
+}
@@ -0,0 +1,159 @@
+/*
+ * GNU License.
+ */
+package br.com.brenov.chatserver.metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free histogram of positive values. The upper bounds of the buckets are
+ * powers of two (1, 2, 4, 8, ...), so a value finds its bucket with a single
+ * bit operation, and recording it is one atomic increment and one addition to
+ * the sum. The last bucket also counts the values over its bound.
+ *
+ * The percentiles are the upper bounds of their buckets, so they are at most
+ * twice the real values.
+ *
+ * @author Breno Viana
+ * @version 17/10/2026
+ */
+public class Histogram implements HistogramMBean {
+
+    // Values by bucket
+    private final AtomicLongArray buckets;
+    // Sum of the values
+    private final LongAdder sum = new LongAdder();
+
+    /**
+     * Construct a histogram.
+     *
+     * @param buckets Number of buckets (the last bucket counts the values over
+     * 2^(buckets-2))
+     */
+    public Histogram(int buckets) {
+        this.buckets = new AtomicLongArray(buckets);
+    }
+
+    /**
+     * Record a value.
+     *
+     * @param value Value (values under 1 are counted as 1)
+     */
+    public void record(long value) {
+        int bucket = value <= 1 ? 0
+                : 64 - Long.numberOfLeadingZeros(value - 1);
+        this.buckets.incrementAndGet(Math.min(bucket,
+                this.buckets.length() - 1));
+        this.sum.add(value);
+    }
+
+    /**
+     * Get the upper bound of a bucket.
+     *
+     * @param bucket Bucket index
+     *
+     * @return Upper bound
+     */
+    public static long bound(int bucket) {
+        return 1L << bucket;
+    }
+
+    /**
+     * Get the sum of the recorded values.
+     *
+     * @return Sum
+     */
+    public long getSum() {
+        return this.sum.sum();
+    }
+
+    /**
+     * Get the number of recorded values.
+     *
+     * @return Number of values
+     */
+    @Override
+    public long getCount() {
+        long count = 0;
+        for (int i = 0; i < this.buckets.length(); i++) {
+            count += this.buckets.get(i);
+        }
+        return count;
+    }
+
+    /**
+     * Get the mean of the recorded values.
+     *
+     * @return Mean value
+     */
+    @Override
+    public double getMean() {
+        long count = getCount();
+        return count == 0 ? 0 : (double) getSum() / count;
+    }
+
+    /**
+     * Get a percentile of the recorded values.
+     *
+     * @param percentile Percentile (0 to 100)
+     *
+     * @return Upper bound of the bucket of the percentile (0 if there are no
+     * values)
+     */
+    public long percentile(double percentile) {
+        long[] counts = getBuckets();
+        long count = 0;
+        for (long c : counts) {
+            count += c;
+        }
+        if (count == 0) {
+            return 0;
+        }
+        long rank = (long) Math.ceil(count * percentile / 100);
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return bound(i);
+            }
+        }
+        return bound(counts.length - 1);
+    }
+
+    /**
+     * Get the median of the recorded values (the upper bound of its bucket).
+     *
+     * @return Median value
+     */
+    @Override
+    public long getP50() {
+        return percentile(50);
+    }
+
+    /**
+     * Get the 99th percentile of the recorded values (the upper bound of its
+     * bucket).
+     *
+     * @return 99th percentile
+     */
+    @Override
+    public long getP99() {
+        return percentile(99);
+    }
+
+    /**
+     * Get the number of values of each bucket: 1, 2, 3-4, 5-8, ... (the upper
+     * bounds are powers of two).
+     *
+     * @return Values by bucket
+     */
+    @Override
+    public long[] getBuckets() {
+        long[] counts = new long[this.buckets.length()];
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] = this.buckets.get(i);
+        }
+        return counts;
+    }
+}
@@ -0,0 +1,50 @@
+/*
+ * GNU License.
+ */
+package br.com.brenov.chatserver.metrics;
+
+/**
+ * Management interface of a histogram.
+ *
+ * @author Breno Viana
+ * @version 17/10/2026
+ */
+public interface HistogramMBean {
+
+    /**
+     * Get the number of recorded values.
+     *
+     * @return Number of values
+     */
+    long getCount();
+
+    /**
+     * Get the mean of the recorded values.
+     *
+     * @return Mean value
+     */
+    double getMean();
+
+    /**
+     * Get the median of the recorded values (the upper bound of its bucket).
+     *
+     * @return Median value
+     */
+    long getP50();
+
+    /**
+     * Get the 99th percentile of the recorded values (the upper bound of its
+     * bucket).
+     *
+     * @return 99th percentile
+     */
+    long getP99();
+
+    /**
+     * Get the number of values of each bucket: 1, 2, 3-4, 5-8, ... (the upper
+     * bounds are powers of two).
+     *
+     * @return Values by bucket
+     */
+    long[] getBuckets();
+}
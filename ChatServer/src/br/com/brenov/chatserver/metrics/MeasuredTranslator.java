@@ -0,0 +1,62 @@
+/*
+ * GNU License.
+ */
+package br.com.brenov.chatserver.metrics;
+
+import br.com.brenov.chatserver.translation.Translator;
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Translator that records the requests of another translator in the server
+ * metrics: the number of calls, the failures and the latency of each call, by
+ * target language.
+ *
+ * @author Breno Viana
+ * @version 17/10/2026
+ */
+public class MeasuredTranslator implements Translator {
+
+    // Measured translator
+    private final Translator translator;
+    // Server metrics
+    private final ServerMetrics metrics;
+
+    /**
+     * Construct a measured translator.
+     *
+     * @param translator Measured translator
+     * @param metrics Server metrics
+     */
+    public MeasuredTranslator(Translator translator, ServerMetrics metrics) {
+        this.translator = translator;
+        this.metrics = metrics;
+    }
+
+    /**
+     * Translate many messages in a single request, recording the request.
+     *
+     * @param inputs Messages
+     * @param source Source language
+     * @param target Target language
+     *
+     * @return Translated messages, in the same order
+     *
+     * @throws IOException Translation error
+     */
+    @Override
+    public List<String> translate(List<String> inputs, String source,
+            String target) throws IOException {
+        long start = System.nanoTime();
+        boolean failed = true;
+        try {
+            List<String> translated = this.translator.translate(inputs,
+                    source, target);
+            failed = false;
+            return translated;
+        } finally {
+            this.metrics.translated(target,
+                    (System.nanoTime() - start) / 1000, failed);
+        }
+    }
+}
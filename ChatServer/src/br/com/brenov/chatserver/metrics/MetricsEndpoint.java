@@ -0,0 +1,233 @@
+/*
+ * GNU License.
+ */
+package br.com.brenov.chatserver.metrics;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.Executors;
+
+/**
+ * Local HTTP endpoint of the server metrics, in the Prometheus text format
+ * ("GET /metrics"). It only listens on the loopback address and answers the
+ * requests in a single thread, so reading the metrics does not compete with
+ * the clients.
+ *
+ * @author Breno Viana
+ * @version 17/10/2026
+ */
+public class MetricsEndpoint {
+
+    // Metric names prefix
+    private static final String PREFIX = "understandme_";
+
+    // Server metrics
+    private final ServerMetrics metrics;
+    // HTTP server
+    private final HttpServer server;
+
+    /**
+     * Construct a metrics endpoint.
+     *
+     * @param metrics Server metrics
+     * @param port Port that the endpoint listens on (on the loopback address)
+     *
+     * @throws IOException The port could not be bound
+     */
+    public MetricsEndpoint(ServerMetrics metrics, int port) throws IOException {
+        this.metrics = metrics;
+        this.server = HttpServer.create(new InetSocketAddress(
+                InetAddress.getLoopbackAddress(), port), 0);
+        this.server.createContext("/metrics", this::handle);
+        this.server.setExecutor(Executors.newSingleThreadExecutor(r -> {
+            Thread t = new Thread(r, "metrics-endpoint");
+            t.setDaemon(true);
+            return t;
+        }));
+    }
+
+    /**
+     * Start answering the requests.
+     */
+    public void start() {
+        this.server.start();
+    }
+
+    /**
+     * Answer a request with the metrics.
+     *
+     * @param exchange HTTP exchange
+     *
+     * @throws IOException Error on socket
+     */
+    private void handle(HttpExchange exchange) throws IOException {
+        byte[] body = format(this.metrics).getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type",
+                "text/plain; version=0.0.4; charset=utf-8");
+        exchange.sendResponseHeaders(200, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    /**
+     * Format the metrics in the Prometheus text format.
+     *
+     * @param metrics Server metrics
+     *
+     * @return Metrics text
+     */
+    public static String format(ServerMetrics metrics) {
+        StringBuilder text = new StringBuilder(4096);
+        gauge(text, "sessions", "Clients logged in to the chat.",
+                metrics.getSessions());
+        counter(text, "logins_total", "Accepted logins.",
+                metrics.getLogins());
+        counter(text, "rejected_logins_total",
+                "Logins refused because the name was used.",
+                metrics.getRejectedLogins());
+        counter(text, "messages_in_total",
+                "Messages received from the clients.",
+                metrics.getMessagesIn());
+        counter(text, "messages_out_total",
+                "Messages queued to the recipients.",
+                metrics.getMessagesOut());
+        counter(text, "dropped_deliveries_total",
+                "Messages to slow clients that were dropped.",
+                metrics.getDroppedDeliveries());
+        counter(text, "slow_disconnects_total",
+                "Slow clients that were disconnected.",
+                metrics.getSlowDisconnects());
+        gauge(text, "queued_messages",
+                "Messages waiting to be sent to all the clients.",
+                metrics.getQueuedMessages());
+        gauge(text, "max_queued_messages",
+                "Largest number of messages waiting to be sent to a client.",
+                metrics.getMaxQueuedMessages());
+        counter(text, "translation_calls_total", "Requests to the translator.",
+                metrics.getTranslationCalls());
+        counter(text, "translation_errors_total",
+                "Requests to the translator that failed.",
+                metrics.getTranslationErrors());
+        gauge(text, "cache_hit_ratio", "Translations found in the cache.",
+                metrics.getCacheHitRate());
+        counter(text, "flushes_total", "Socket writes of outbound messages.",
+                metrics.flushes().getFlushes());
+        counter(text, "flushed_bytes_total", "Outbound bytes written.",
+                metrics.flushes().getBytes());
+
+        // Histograms
+        header(text, "fan_out", "Recipients of each message.", "histogram");
+        histogram(text, "fan_out", "", metrics.fanOut(), 1);
+        header(text, "translation_latency_seconds",
+                "Latency of the translator requests.", "histogram");
+        for (Map.Entry<String, Histogram> latency
+                : metrics.latencies().entrySet()) {
+            histogram(text, "translation_latency_seconds", "language=\""
+                    + escape(latency.getKey()) + "\",", latency.getValue(),
+                    1e-6);
+        }
+        return text.toString();
+    }
+
+    /**
+     * Write the help and type lines of a metric.
+     *
+     * @param text Metrics text
+     * @param name Metric name (without prefix)
+     * @param help Metric description
+     * @param type Metric type
+     */
+    private static void header(StringBuilder text, String name, String help,
+            String type) {
+        text.append("# HELP ").append(PREFIX).append(name).append(' ')
+                .append(help).append('\n');
+        text.append("# TYPE ").append(PREFIX).append(name).append(' ')
+                .append(type).append('\n');
+    }
+
+    /**
+     * Write a counter.
+     *
+     * @param text Metrics text
+     * @param name Metric name (without prefix)
+     * @param help Metric description
+     * @param value Counter value
+     */
+    private static void counter(StringBuilder text, String name, String help,
+            long value) {
+        header(text, name, help, "counter");
+        text.append(PREFIX).append(name).append(' ').append(value)
+                .append('\n');
+    }
+
+    /**
+     * Write a gauge.
+     *
+     * @param text Metrics text
+     * @param name Metric name (without prefix)
+     * @param help Metric description
+     * @param value Gauge value
+     */
+    private static void gauge(StringBuilder text, String name, String help,
+            double value) {
+        header(text, name, help, "gauge");
+        text.append(PREFIX).append(name).append(' ');
+        if (value == Math.rint(value)) {
+            text.append((long) value);
+        } else {
+            text.append(value);
+        }
+        text.append('\n');
+    }
+
+    /**
+     * Write the cumulative buckets, the sum and the count of a histogram.
+     *
+     * @param text Metrics text
+     * @param name Metric name (without prefix)
+     * @param labels Labels of the histogram, each followed by a comma
+     * @param histogram Histogram
+     * @param scale Unit of the recorded values, in the unit of the metric
+     */
+    private static void histogram(StringBuilder text, String name,
+            String labels, Histogram histogram, double scale) {
+        long[] buckets = histogram.getBuckets();
+        long count = 0;
+        for (int i = 0; i < buckets.length; i++) {
+            count += buckets[i];
+            text.append(PREFIX).append(name).append("_bucket{").append(labels)
+                    .append("le=\"");
+            if (i < buckets.length - 1) {
+                text.append(Histogram.bound(i) * scale);
+            } else {
+                text.append("+Inf");
+            }
+            text.append("\"} ").append(count).append('\n');
+        }
+        String set = labels.isEmpty() ? ""
+                : "{" + labels.substring(0, labels.length() - 1) + "}";
+        text.append(PREFIX).append(name).append("_sum").append(set)
+                .append(' ').append(histogram.getSum() * scale).append('\n');
+        text.append(PREFIX).append(name).append("_count").append(set)
+                .append(' ').append(count).append('\n');
+    }
+
+    /**
+     * Escape a label value.
+     *
+     * @param value Label value
+     *
+     * @return Escaped value
+     */
+    private static String escape(String value) {
+        return value.replace("\\", "\\\\").replace("\"", "\\\"")
+                .replace("\n", "\\n");
+    }
+}
@@ -0,0 +1,382 @@
+/*
+ * GNU License.
+ */
+package br.com.brenov.chatserver.metrics;
+
+import br.com.brenov.chatserver.control.SessionRegistry;
+import br.com.brenov.chatserver.log.ServerLog;
+import br.com.brenov.chatserver.model.Session;
+import br.com.brenov.chatserver.translation.TranslationCache;
+import java.lang.management.ManagementFactory;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+/**
+ * Server metrics, shared by all the connections. The counters and histograms
+ * are updated without locks by the threads that serve the clients; the number
+ * of sessions, the outbound queue depths and the cache hit rate are read from
+ * the registry and the cache when the metrics are read.
+ *
+ * The metrics can be read as MBeans (domain "br.com.brenov.chatserver") and
+ * from the metrics endpoint of the server.
+ *
+ * @author Breno Viana
+ * @version 17/10/2026
+ */
+public class ServerMetrics implements ServerMetricsMBean {
+
+    // MBean domain
+    public static final String DOMAIN = "br.com.brenov.chatserver";
+    // Languages with their own latency histogram (the others are "other")
+    private static final int MAX_LANGUAGES = 64;
+    // Buckets of the fan-out histogram (up to 2^16 recipients)
+    private static final int FAN_OUT_BUCKETS = 18;
+    // Buckets of the latency histograms (up to 2^24 microseconds)
+    private static final int LATENCY_BUCKETS = 26;
+
+    // Clients logged in to the chat
+    private final SessionRegistry registry;
+    // Translation cache (null if disabled)
+    private final TranslationCache cache;
+
+    // Accepted logins
+    private final LongAdder logins = new LongAdder();
+    // Logins refused because the name was used
+    private final LongAdder rejectedLogins = new LongAdder();
+    // Messages received from the clients
+    private final LongAdder messagesIn = new LongAdder();
+    // Messages queued to the recipients
+    private final LongAdder messagesOut = new LongAdder();
+    // Messages to slow clients that were dropped
+    private final LongAdder dropped = new LongAdder();
+    // Slow clients that were disconnected
+    private final LongAdder slowDisconnects = new LongAdder();
+    // Requests to the translator
+    private final LongAdder translationCalls = new LongAdder();
+    // Failed requests to the translator
+    private final LongAdder translationErrors = new LongAdder();
+    // Recipients of each message
+    private final Histogram fanOut = new Histogram(FAN_OUT_BUCKETS);
+    // Latency of the translator requests (microseconds), by target language
+    private final ConcurrentMap<String, Histogram> latencies
+            = new ConcurrentHashMap<String, Histogram>();
+    // Outbound flush metrics
+    private final FlushMetrics flushes = new FlushMetrics();
+
+    // True once the MBeans are registered
+    private volatile boolean registered = false;
+
+    /**
+     * Construct the server metrics.
+     *
+     * @param registry Clients logged in to the chat
+     * @param cache Translation cache (null if disabled)
+     */
+    public ServerMetrics(SessionRegistry registry, TranslationCache cache) {
+        this.registry = registry;
+        this.cache = cache;
+    }
+
+    /**
+     * Register the MBeans of the metrics, so they can be read with JMX tools
+     * (JConsole, VisualVM).
+     */
+    public void register() {
+        this.registered = true;
+        register(this, "type=Server");
+        register(this.flushes, "type=Flushes");
+        register(this.fanOut, "type=FanOut");
+        for (Map.Entry<String, Histogram> latency
+                : this.latencies.entrySet()) {
+            register(latency.getValue(), latencyName(latency.getKey()));
+        }
+    }
+
+    /**
+     * Register an MBean.
+     *
+     * @param mbean MBean
+     * @param properties Key properties of the MBean name
+     */
+    private static void register(Object mbean, String properties) {
+        try {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(mbean,
+                    new ObjectName(DOMAIN + ":" + properties));
+        } catch (JMException e) {
+            // Server Log
+            ServerLog.warn("mbean name=" + properties + " error=" + e);
+        }
+    }
+
+    /**
+     * Get the key properties of the MBean of a latency histogram.
+     *
+     * @param language Target language
+     *
+     * @return Key properties
+     */
+    private static String latencyName(String language) {
+        return "type=TranslationLatency,language="
+                + ObjectName.quote(language);
+    }
+
+    /**
+     * Record a login.
+     *
+     * @param accepted True if the name was not used
+     */
+    public void login(boolean accepted) {
+        (accepted ? this.logins : this.rejectedLogins).increment();
+    }
+
+    /**
+     * Record a message received from a client.
+     */
+    public void received() {
+        this.messagesIn.increment();
+    }
+
+    /**
+     * Record the delivery of a message.
+     *
+     * @param recipients Number of recipients the message was queued to
+     */
+    public void delivered(int recipients) {
+        this.messagesOut.add(recipients);
+        this.fanOut.record(recipients);
+    }
+
+    /**
+     * Record messages to a slow client that were dropped.
+     *
+     * @param messages Number of messages
+     */
+    public void dropped(int messages) {
+        this.dropped.add(messages);
+    }
+
+    /**
+     * Record a slow client that was disconnected.
+     */
+    public void slowDisconnect() {
+        this.slowDisconnects.increment();
+    }
+
+    /**
+     * Record a request to the translator.
+     *
+     * @param target Target language
+     * @param micros Latency in microseconds
+     * @param failed True if the request failed
+     */
+    public void translated(String target, long micros, boolean failed) {
+        this.translationCalls.increment();
+        if (failed) {
+            this.translationErrors.increment();
+        }
+        latency(target).record(micros);
+    }
+
+    /**
+     * Get the latency histogram of a target language, creating it the first
+     * time.
+     *
+     * @param target Target language
+     *
+     * @return Latency histogram
+     */
+    private Histogram latency(String target) {
+        Histogram histogram = this.latencies.get(target);
+        if (histogram != null) {
+            return histogram;
+        }
+        String language = this.latencies.size() < MAX_LANGUAGES ? target
+                : "other";
+        return this.latencies.computeIfAbsent(language, key -> {
+            Histogram created = new Histogram(LATENCY_BUCKETS);
+            if (this.registered) {
+                register(created, latencyName(key));
+            }
+            return created;
+        });
+    }
+
+    /**
+     * Get the outbound flush metrics.
+     *
+     * @return Flush metrics
+     */
+    public FlushMetrics flushes() {
+        return this.flushes;
+    }
+
+    /**
+     * Get the fan-out histogram (recipients of each message).
+     *
+     * @return Fan-out histogram
+     */
+    public Histogram fanOut() {
+        return this.fanOut;
+    }
+
+    /**
+     * Get the latency histograms of the translator requests, in microseconds.
+     *
+     * @return Latency histograms by target language
+     */
+    public Map<String, Histogram> latencies() {
+        return Collections.unmodifiableMap(this.latencies);
+    }
+
+    /**
+     * Get the number of clients logged in to the chat.
+     *
+     * @return Number of sessions
+     */
+    @Override
+    public int getSessions() {
+        return this.registry.size();
+    }
+
+    /**
+     * Get the number of accepted logins.
+     *
+     * @return Number of logins
+     */
+    @Override
+    public long getLogins() {
+        return this.logins.sum();
+    }
+
+    /**
+     * Get the number of logins refused because the name was used.
+     *
+     * @return Number of refused logins
+     */
+    @Override
+    public long getRejectedLogins() {
+        return this.rejectedLogins.sum();
+    }
+
+    /**
+     * Get the number of messages received from the clients.
+     *
+     * @return Number of messages
+     */
+    @Override
+    public long getMessagesIn() {
+        return this.messagesIn.sum();
+    }
+
+    /**
+     * Get the number of messages queued to the recipients.
+     *
+     * @return Number of deliveries
+     */
+    @Override
+    public long getMessagesOut() {
+        return this.messagesOut.sum();
+    }
+
+    /**
+     * Get the number of messages to slow clients that were dropped.
+     *
+     * @return Number of dropped deliveries
+     */
+    @Override
+    public long getDroppedDeliveries() {
+        return this.dropped.sum();
+    }
+
+    /**
+     * Get the number of slow clients that were disconnected.
+     *
+     * @return Number of disconnections
+     */
+    @Override
+    public long getSlowDisconnects() {
+        return this.slowDisconnects.sum();
+    }
+
+    /**
+     * Get the number of requests to the translator.
+     *
+     * @return Number of translation calls
+     */
+    @Override
+    public long getTranslationCalls() {
+        return this.translationCalls.sum();
+    }
+
+    /**
+     * Get the number of requests to the translator that failed.
+     *
+     * @return Number of failed translation calls
+     */
+    @Override
+    public long getTranslationErrors() {
+        return this.translationErrors.sum();
+    }
+
+    /**
+     * Get the rate of translations found in the cache.
+     *
+     * @return Hit rate (0 to 1, 0 if there is no cache)
+     */
+    @Override
+    public double getCacheHitRate() {
+        if (this.cache == null) {
+            return 0;
+        }
+        long hits = this.cache.getHits();
+        long total = hits + this.cache.getMisses();
+        return total == 0 ? 0 : (double) hits / total;
+    }
+
+    /**
+     * Get the number of messages waiting to be sent to all the clients.
+     *
+     * @return Queued messages
+     */
+    @Override
+    public long getQueuedMessages() {
+        long total = 0;
+        for (Session session : this.registry.all()) {
+            total += session.getQueued();
+        }
+        return total;
+    }
+
+    /**
+     * Get the largest number of messages waiting to be sent to a client.
+     *
+     * @return Largest queue depth
+     */
+    @Override
+    public int getMaxQueuedMessages() {
+        int max = 0;
+        for (Session session : this.registry.all()) {
+            max = Math.max(max, session.getQueued());
+        }
+        return max;
+    }
+
+    /**
+     * Summary of the metrics.
+     *
+     * @return Logins, messages, drops and translation calls
+     */
+    @Override
+    public String toString() {
+        return "Server metrics: logins=" + getLogins() + ", messages in="
+                + getMessagesIn() + ", messages out=" + getMessagesOut()
+                + ", dropped=" + getDroppedDeliveries()
+                + ", translation calls=" + getTranslationCalls()
+                + ", translation errors=" + getTranslationErrors();
+    }
+}
@@ -0,0 +1,97 @@
+/*
+ * GNU License.
+ */
+package br.com.brenov.chatserver.metrics;
+
+/**
+ * Management interface of the server metrics.
+ *
+ * @author Breno Viana
+ * @version 17/10/2026
+ */
+public interface ServerMetricsMBean {
+
+    /**
+     * Get the number of clients logged in to the chat.
+     *
+     * @return Number of sessions
+     */
+    int getSessions();
+
+    /**
+     * Get the number of accepted logins.
+     *
+     * @return Number of logins
+     */
+    long getLogins();
+
+    /**
+     * Get the number of logins refused because the name was used.
+     *
+     * @return Number of refused logins
+     */
+    long getRejectedLogins();
+
+    /**
+     * Get the number of messages received from the clients.
+     *
+     * @return Number of messages
+     */
+    long getMessagesIn();
+
+    /**
+     * Get the number of messages queued to the recipients.
+     *
+     * @return Number of deliveries
+     */
+    long getMessagesOut();
+
+    /**
+     * Get the number of messages to slow clients that were dropped.
+     *
+     * @return Number of dropped deliveries
+     */
+    long getDroppedDeliveries();
+
+    /**
+     * Get the number of slow clients that were disconnected.
+     *
+     * @return Number of disconnections
+     */
+    long getSlowDisconnects();
+
+    /**
+     * Get the number of requests to the translator.
+     *
+     * @return Number of translation calls
+     */
+    long getTranslationCalls();
+
+    /**
+     * Get the number of requests to the translator that failed.
+     *
+     * @return Number of failed translation calls
+     */
+    long getTranslationErrors();
+
+    /**
+     * Get the rate of translations found in the cache.
+     *
+     * @return Hit rate (0 to 1, 0 if there is no cache)
+     */
+    double getCacheHitRate();
+
+    /**
+     * Get the number of messages waiting to be sent to all the clients.
+     *
+     * @return Queued messages
+     */
+    long getQueuedMessages();
+
+    /**
+     * Get the largest number of messages waiting to be sent to a client.
+     *
+     * @return Largest queue depth
+     */
+    int getMaxQueuedMessages();
+}
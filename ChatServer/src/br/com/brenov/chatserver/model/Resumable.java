@@ -0,0 +1,21 @@
+/*
+ * GNU License.
+ */
+package br.com.brenov.chatserver.model;
+
+/**
+ * A session whose client may lose its connection and resume it later.
+ *
+ * @author Breno Viana
+ * @version 17/10/2026
+ */
+public interface Resumable extends Session {
+
+    /**
+     * Stop sending to the client, and give the messages not sent to it yet,
+     * and the next ones, to the session kept while the client is away.
+     *
+     * @param session Session that takes the messages
+     */
+    void handOff(Session session);
+}
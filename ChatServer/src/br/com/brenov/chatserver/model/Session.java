@@ -0,0 +1,52 @@
+/*
+ * GNU License.
+ */
+package br.com.brenov.chatserver.model;
+
+import br.com.brenov.chatserver.protocol.SharedBuffer;
+
+/**
+ * A client logged in to the chat.
+ *
+ * @author Breno Viana
+ * @version 17/10/2026
+ */
+public interface Session {
+
+    /**
+     * Get client name.
+     *
+     * @return Client name
+     */
+    String getName();
+
+    /**
+     * Get client language.
+     *
+     * @return Client language
+     */
+    String getLanguage();
+
+    /**
+     * Check if the client uses the framed protocol.
+     *
+     * @return True if the messages are sent as frames
+     */
+    boolean isFramed();
+
+    /**
+     * Get the number of messages waiting to be sent to the client.
+     *
+     * @return Queue depth
+     */
+    int getQueued();
+
+    /**
+     * Send a chat message to the client, without waiting for it to be written.
+     * The message must be encoded with the protocol of the client; the session
+     * retains it while it waits to be written.
+     *
+     * @param message Encoded message
+     */
+    void send(SharedBuffer message);
+}
@@ -0,0 +1,201 @@
+/*
+ * GNU License.
+ */
+package br.com.brenov.chatserver.nio;
+
+import br.com.brenov.chatserver.log.ServerLog;
+import br.com.brenov.chatserver.protocol.SharedBuffer;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * A selector event loop. Each loop owns one thread and one selector, and serves
+ * the reads and writes of all the connections registered to it. Other threads
+ * must not touch the connections directly, they hand tasks to the loop with
+ * {@link #execute(Runnable)}.
+ *
+ * @author Breno Viana
+ * @version 17/10/2026
+ */
+class EventLoop implements Runnable {
+
+    // Maximum number of messages written to a channel at once
+    static final int GATHER = 64;
+
+    // Selector
+    private final Selector selector;
+    // Tasks submitted by other threads
+    private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<Runnable>();
+    // Connections with messages to be written, queued by other threads
+    private final ArrayDeque<NioConnection> flushes
+            = new ArrayDeque<NioConnection>();
+    // Loop thread
+    private final Thread thread;
+
+    // View slot of this loop in the shared buffers
+    private final int slot;
+    // Messages of the connection being written (gathering write)
+    private final SharedBuffer[] gathered = new SharedBuffer[GATHER];
+    // Views of the messages of the connection being written
+    private final ByteBuffer[] views = new ByteBuffer[GATHER];
+
+    /**
+     * Construct an event loop.
+     *
+     * @param name Loop thread name
+     * @param slot View slot of this loop in the shared buffers
+     *
+     * @throws IOException The selector could not be opened
+     */
+    EventLoop(String name, int slot) throws IOException {
+        this.slot = slot;
+        this.selector = Selector.open();
+        this.thread = new Thread(this, name);
+    }
+
+    /**
+     * Start the loop thread.
+     */
+    void start() {
+        this.thread.start();
+    }
+
+    /**
+     * Get the loop selector.
+     *
+     * @return Selector
+     */
+    Selector selector() {
+        return this.selector;
+    }
+
+    /**
+     * Check if the caller is running in this loop.
+     *
+     * @return True if the current thread is the loop thread
+     */
+    boolean inLoop() {
+        return Thread.currentThread() == this.thread;
+    }
+
+    /**
+     * Get the view of a shared buffer owned by this loop. All the connections
+     * of the loop share it, instead of creating one each. Must run in the loop
+     * thread.
+     *
+     * @param buffer Shared buffer
+     *
+     * @return View, with any position and limit
+     */
+    ByteBuffer view(SharedBuffer buffer) {
+        return buffer.view(this.slot);
+    }
+
+    /**
+     * Get the array that receives the messages of a gathering write. Must run
+     * in the loop thread.
+     *
+     * @return Messages array
+     */
+    SharedBuffer[] gathered() {
+        return this.gathered;
+    }
+
+    /**
+     * Get the array that receives the views of a gathering write. Must run in
+     * the loop thread.
+     *
+     * @return Views array
+     */
+    ByteBuffer[] views() {
+        return this.views;
+    }
+
+    /**
+     * Run a task in this loop.
+     *
+     * @param task Task
+     */
+    void execute(Runnable task) {
+        this.tasks.add(task);
+        this.selector.wakeup();
+    }
+
+    /**
+     * Write the pending messages of a connection in this loop. Unlike
+     * {@link #execute(Runnable)}, it does not allocate, and it only wakes up
+     * the loop for the first of many connections.
+     *
+     * @param connection Connection with pending messages
+     */
+    void flush(NioConnection connection) {
+        boolean wakeup;
+        synchronized (this.flushes) {
+            wakeup = this.flushes.isEmpty();
+            this.flushes.add(connection);
+        }
+        if (wakeup) {
+            this.selector.wakeup();
+        }
+    }
+
+    /**
+     * Take the next connection with messages to be written.
+     *
+     * @return Connection, or null if there are none
+     */
+    private NioConnection nextFlush() {
+        synchronized (this.flushes) {
+            return this.flushes.poll();
+        }
+    }
+
+    /**
+     * Wait for ready channels and dispatch their events to the connections.
+     */
+    @Override
+    public void run() {
+        while (true) {
+            try {
+                this.selector.select();
+                // Run submitted tasks
+                Runnable task;
+                while ((task = this.tasks.poll()) != null) {
+                    task.run();
+                }
+                // Write the messages queued by other threads
+                NioConnection flush;
+                while ((flush = nextFlush()) != null) {
+                    flush.onWritable();
+                }
+                // Dispatch events
+                Iterator<SelectionKey> keys = this.selector.selectedKeys()
+                        .iterator();
+                while (keys.hasNext()) {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+                    NioConnection connection = (NioConnection) key.attachment();
+                    if (!key.isValid()) {
+                        connection.close();
+                        continue;
+                    }
+                    if (key.isReadable()) {
+                        connection.onReadable();
+                    }
+                    if (key.isValid() && key.isWritable()) {
+                        connection.onWritable();
+                    }
+                }
+            } catch (IOException | RuntimeException e) {
+                // Server Log
+                ServerLog.error("loop error=" + e);
+            }
+        }
+    }
+}
@@ -0,0 +1,106 @@
+/*
+ * GNU License.
+ */
+package br.com.brenov.chatserver.nio;
+
+import br.com.brenov.chatserver.protocol.Frame;
+import java.net.ProtocolException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Splits the bytes read from a non-blocking channel into frames (type byte,
+ * 4-byte big-endian length and payload). The payload is handed over as the
+ * decoder buffer, so the handler decides what to build from it.
+ *
+ * @author Breno Viana
+ * @version 17/10/2026
+ */
+class FrameDecoder {
+
+    /**
+     * Frame consumer.
+     */
+    interface FrameHandler {
+
+        /**
+         * Handle a complete frame. The payload is only valid during the call.
+         *
+         * @param type Frame type
+         * @param payload Payload buffer
+         * @param length Payload length
+         *
+         * @return False to stop decoding
+         */
+        boolean onFrame(byte type, byte[] payload, int length);
+    }
+
+    // Maximum payload size
+    private final int max;
+
+    // Header of the current frame
+    private final byte[] header = new byte[Frame.HEADER];
+    // Number of header bytes read
+    private int headerLength = 0;
+    // Payload of the current frame
+    private byte[] payload = new byte[256];
+    // Payload size of the current frame (-1 while reading the header)
+    private int size = -1;
+    // Number of payload bytes read
+    private int length = 0;
+
+    /**
+     * Construct a frame decoder.
+     *
+     * @param max Maximum payload size, in bytes
+     */
+    FrameDecoder(int max) {
+        this.max = max;
+    }
+
+    /**
+     * Decode all the bytes available in the buffer.
+     *
+     * @param in Buffer ready to be read
+     * @param handler Frame handler
+     *
+     * @throws ProtocolException Frame too large
+     */
+    void decode(ByteBuffer in, FrameHandler handler)
+            throws ProtocolException {
+        while (in.hasRemaining()) {
+            if (this.size < 0) {
+                this.header[this.headerLength++] = in.get();
+                if (this.headerLength < Frame.HEADER) {
+                    continue;
+                }
+                this.headerLength = 0;
+                this.size = ((this.header[1] & 0xFF) << 24)
+                        | ((this.header[2] & 0xFF) << 16)
+                        | ((this.header[3] & 0xFF) << 8)
+                        | (this.header[4] & 0xFF);
+                if (this.size < 0 || this.size > this.max) {
+                    throw new ProtocolException("Frame of "
+                            + (this.size & 0xFFFFFFFFL)
+                            + " bytes, the maximum is " + this.max + ".");
+                }
+                if (this.size > this.payload.length) {
+                    this.payload = Arrays.copyOf(this.payload, Math.min(
+                            this.max, Math.max(this.size,
+                                    this.payload.length * 2)));
+                }
+                this.length = 0;
+            }
+            int n = Math.min(in.remaining(), this.size - this.length);
+            in.get(this.payload, this.length, n);
+            this.length += n;
+            if (this.length == this.size) {
+                this.size = -1;
+                if (!handler.onFrame(this.header[0], this.payload,
+                        this.length)) {
+                    return;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,89 @@
+/*
+ * GNU License.
+ */
+package br.com.brenov.chatserver.nio;
+
+import java.net.ProtocolException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Splits the bytes read from a non-blocking channel into text lines. Lines end
+ * with "\n" (an optional "\r" before it is removed), the same way the lines are
+ * written by the chat client "PrintWriter". Lines longer than the maximum size
+ * are refused.
+ *
+ * @author Breno Viana
+ * @version 17/10/2026
+ */
+class LineDecoder {
+
+    /**
+     * Line consumer.
+     */
+    interface LineHandler {
+
+        /**
+         * Handle a complete line.
+         *
+         * @param line Line without the line terminator
+         *
+         * @return False to stop decoding
+         */
+        boolean onLine(String line);
+    }
+
+    // Maximum line size
+    private final int max;
+
+    // Bytes of the current (incomplete) line
+    private byte[] line = new byte[256];
+    // Number of bytes in the current line
+    private int length = 0;
+
+    /**
+     * Construct a line decoder.
+     *
+     * @param max Maximum line size, in bytes
+     */
+    LineDecoder(int max) {
+        this.max = max;
+    }
+
+    /**
+     * Decode all the bytes available in the buffer.
+     *
+     * @param in Buffer ready to be read
+     * @param handler Line handler
+     *
+     * @throws ProtocolException Line too long
+     */
+    void decode(ByteBuffer in, LineHandler handler)
+            throws ProtocolException {
+        while (in.hasRemaining()) {
+            byte b = in.get();
+            if (b == '\n') {
+                int end = this.length;
+                if (end > 0 && this.line[end - 1] == '\r') {
+                    end--;
+                }
+                this.length = 0;
+                if (!handler.onLine(new String(this.line, 0, end,
+                        StandardCharsets.UTF_8))) {
+                    return;
+                }
+            } else {
+                if (this.length == this.max) {
+                    throw new ProtocolException("Line longer than " + this.max
+                            + " bytes.");
+                }
+                if (this.length == this.line.length) {
+                    this.line = Arrays.copyOf(this.line,
+                            Math.min(this.max, this.length * 2));
+                }
+                this.line[this.length++] = b;
+            }
+        }
+    }
+}
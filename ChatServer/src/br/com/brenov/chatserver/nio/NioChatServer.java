@@ -0,0 +1,216 @@
+/*
+ * GNU License.
+ */
+package br.com.brenov.chatserver.nio;
+
+import br.com.brenov.chatserver.ServerConfig;
+import br.com.brenov.chatserver.cluster.ClusterNode;
+import br.com.brenov.chatserver.journal.Journal;
+import br.com.brenov.chatserver.control.MessagePipeline;
+import br.com.brenov.chatserver.control.ResumeRegistry;
+import br.com.brenov.chatserver.control.RoomRegistry;
+import br.com.brenov.chatserver.control.SessionRegistry;
+import br.com.brenov.chatserver.metrics.ServerMetrics;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Non-blocking chat server. A single acceptor thread accepts the clients and
+ * hands them to a small pool of selector event loops, so the number of threads
+ * does not grow with the number of connected clients. The translations, which
+ * block on the Google API, run in the message pipeline.
+ *
+ * The chat protocol is the same as the one of the blocking server, so the
+ * chat client works with both.
+ *
+ * @author Breno Viana
+ * @version 17/10/2026
+ */
+public class NioChatServer {
+
+    // Server configuration
+    private final ServerConfig config;
+    // Pipeline that translates and forwards the messages
+    private final MessagePipeline pipeline;
+
+    // Event loops
+    private final EventLoop[] loops;
+    // Next loop to receive a connection
+    private int next = 0;
+
+    // Clients logged in to the chat
+    private final SessionRegistry registry;
+    // Server metrics
+    private final ServerMetrics metrics;
+    // Cluster of this server
+    private final ClusterNode cluster;
+    // Journal of the messages
+    private final Journal journal;
+    // Sessions that may be resumed
+    private final ResumeRegistry resumes;
+
+    /**
+     * Construct a non-blocking server.
+     *
+     * @param config Server configuration
+     * @param registry Clients logged in to the chat
+     * @param pipeline Message pipeline
+     * @param metrics Server metrics
+     * @param cluster Cluster of this server
+     * @param journal Journal of the messages
+     * @param resumes Sessions that may be resumed
+     *
+     * @throws IOException The selectors could not be opened
+     */
+    public NioChatServer(ServerConfig config, SessionRegistry registry,
+            MessagePipeline pipeline, ServerMetrics metrics,
+            ClusterNode cluster, Journal journal, ResumeRegistry resumes)
+            throws IOException {
+        this.config = config;
+        this.metrics = metrics;
+        this.cluster = cluster;
+        this.journal = journal;
+        this.resumes = resumes;
+        this.registry = registry;
+        this.pipeline = pipeline;
+        this.loops = new EventLoop[config.getEventLoops()];
+        for (int i = 0; i < this.loops.length; i++) {
+            this.loops[i] = new EventLoop("nio-loop-" + i, i);
+        }
+    }
+
+    /**
+     * Run the server. Accepts clients until the server socket fails.
+     *
+     * @throws IOException The server socket could not be created
+     */
+    public void run() throws IOException {
+        for (EventLoop loop : this.loops) {
+            loop.start();
+        }
+        try (ServerSocketChannel listener = ServerSocketChannel.open()) {
+            listener.bind(new InetSocketAddress(this.config.getPort()),
+                    this.config.getAcceptBacklog());
+            while (true) {
+                SocketChannel channel = listener.accept();
+                channel.configureBlocking(false);
+                channel.socket().setTcpNoDelay(true);
+                // Detect the connections lost without being closed
+                channel.socket().setKeepAlive(true);
+                // Distribute the clients between the loops
+                EventLoop loop = this.loops[this.next];
+                this.next = (this.next + 1) % this.loops.length;
+                NioConnection connection = new NioConnection(this, loop,
+                        channel);
+                loop.execute(connection::register);
+            }
+        }
+    }
+
+    /**
+     * Get the server configuration.
+     *
+     * @return Server configuration
+     */
+    ServerConfig config() {
+        return this.config;
+    }
+
+    /**
+     * Get the message pipeline.
+     *
+     * @return Message pipeline
+     */
+    MessagePipeline pipeline() {
+        return this.pipeline;
+    }
+
+    /**
+     * Get the server metrics.
+     *
+     * @return Server metrics
+     */
+    ServerMetrics metrics() {
+        return this.metrics;
+    }
+
+    /**
+     * Get the chat rooms.
+     *
+     * @return Rooms
+     */
+    RoomRegistry rooms() {
+        return this.registry.rooms();
+    }
+
+    /**
+     * Get the sessions that may be resumed.
+     *
+     * @return Resume registry
+     */
+    ResumeRegistry resumes() {
+        return this.resumes;
+    }
+
+    /**
+     * Add a client to the chat, if its name is not used on this server and on
+     * the cluster. The cluster may answer later, in another thread.
+     *
+     * @param connection Client connection
+     *
+     * @return Null when the login was accepted, or why it was refused: USED
+     * (the name is used on this server) or CLUSTER (refused by the cluster)
+     */
+    CompletableFuture<String> login(NioConnection connection) {
+        if (!this.registry.register(connection)) {
+            this.metrics.login(false);
+            return CompletableFuture.completedFuture("USED");
+        }
+        return this.cluster.claim(connection.getName()).thenApply(accepted -> {
+            if (!accepted) {
+                this.registry.unregister(connection);
+            }
+            this.metrics.login(accepted);
+            return accepted ? null : "CLUSTER";
+        });
+    }
+
+    /**
+     * Remove a client from the chat, or keep its session if it lost the
+     * connection and may resume it.
+     *
+     * @param connection Client connection
+     */
+    void logout(NioConnection connection) {
+        if (!connection.isQuit()
+                && this.resumes.park(connection, connection.getRoom())) {
+            return;
+        }
+        this.resumes.forget(connection.getName());
+        this.registry.rooms().leave(connection, connection.getRoom());
+        this.registry.unregister(connection);
+        this.cluster.release(connection.getName());
+    }
+
+    /**
+     * Send a message to the clients of the room of the sender and if
+     * necessary translate the message into the respective language (once to
+     * each language), relay it to the other nodes with clients in the room
+     * and queue it to the journal. Runs in the loop thread of the sender, and
+     * does not wait for the translations or the disk.
+     *
+     * @param sender Client who sent the message
+     * @param input Message
+     */
+    void broadcast(NioConnection sender, String input) {
+        this.metrics.received();
+        sender.getSender().send(sender, input,
+                sender.getRoom().byLanguage());
+        this.cluster.relay(sender.getRoom(), sender, input);
+        this.journal.append(sender.getRoom().getName(), sender.getName(),
+                sender.getLanguage(), input);
+    }
+}
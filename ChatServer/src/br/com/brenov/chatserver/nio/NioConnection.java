@@ -0,0 +1,772 @@
+/*
+ * GNU License.
+ */
+package br.com.brenov.chatserver.nio;
+
+import br.com.brenov.chatserver.ServerConfig;
+import br.com.brenov.chatserver.SlowConsumerPolicy;
+import br.com.brenov.chatserver.control.MessagePipeline;
+import br.com.brenov.chatserver.control.ParkedSession;
+import br.com.brenov.chatserver.control.Room;
+import br.com.brenov.chatserver.control.ResumeRegistry;
+import br.com.brenov.chatserver.control.RoomRegistry;
+import br.com.brenov.chatserver.log.ServerLog;
+import br.com.brenov.chatserver.model.Resumable;
+import br.com.brenov.chatserver.model.Session;
+import br.com.brenov.chatserver.protocol.Compression;
+import br.com.brenov.chatserver.protocol.Frame;
+import br.com.brenov.chatserver.protocol.OutboundRing;
+import br.com.brenov.chatserver.protocol.SharedBuffer;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A client connection served by an event loop. It implements the same chat
+ * protocol as the blocking server handler: the server sends "SUBMITNAME" until
+ * the client logs in ("LOGIN", name and language) with a name that was not
+ * used, then sends "NAMEACCEPTED" and forwards every "MESSAGE" sent by the
+ * client to the other clients of its room. Clients that log in with "LOGIN
+ * FRAMED" are accepted with "NAMEACCEPTED FRAMED" and then send and receive
+ * frames. "JOIN" (and the room name), "LEAVE" and "ROOMS" change and list the
+ * rooms. Refused logins are answered with "NAMEREJECTED" and the reason, and
+ * clients that log in with "RESUME" may get their session back after losing
+ * the connection (see {@link ResumeRegistry}). Clients that ask for
+ * compression are accepted without it (see {@link Compression}): the
+ * messages stay encoded once in buffers shared by their recipients.
+ *
+ * Reads, writes and protocol state are only touched by the loop thread. The
+ * messages of this client are translated and forwarded by the message
+ * pipeline, which keeps them in the order they were sent.
+ *
+ * The messages to this client arrive encoded in buffers shared with the other
+ * recipients, and wait in a bounded queue while the socket is not writable;
+ * any thread may queue them, the loop writes them. If the queue is full, or
+ * its oldest message waits longer than the lag limit, the new messages are
+ * dropped or the client is disconnected, depending on the slow client policy.
+ *
+ * @author Breno Viana
+ * @version 17/10/2026
+ */
+class NioConnection implements Resumable, LineDecoder.LineHandler,
+        FrameDecoder.FrameHandler {
+
+    /**
+     * Protocol states.
+     */
+    private enum State {
+        WAIT_LOGIN, WAIT_NAME, WAIT_LANGUAGE, WAIT_TOKEN, WAIT_CLAIM, READY,
+        WAIT_MESSAGE, WAIT_ROOM, FRAMED
+    }
+
+    // Server
+    private final NioChatServer server;
+    // Event loop that owns this connection
+    private final EventLoop loop;
+    // Channel
+    private final SocketChannel channel;
+    // Selection key
+    private SelectionKey key;
+
+    // Read buffer
+    private final ByteBuffer readBuffer = ByteBuffer.allocate(8192);
+    // Line decoder
+    private final LineDecoder decoder;
+    // Frame decoder (framed protocol)
+    private final FrameDecoder frames;
+    // Messages waiting to be written (guarded by this connection)
+    private final OutboundRing pending;
+    // Bytes of the oldest pending message already written
+    private int written = 0;
+    // True while a flush is scheduled or waits for the channel
+    private boolean flushing = false;
+    // Maximum number of pending messages
+    private final int limit;
+    // Maximum time a pending message may wait, in nanoseconds
+    private final long lag;
+    // What to do when the client is slow
+    private final SlowConsumerPolicy policy;
+    // Number of dropped messages
+    private long dropped = 0;
+    // True while messages are being dropped
+    private boolean dropping = false;
+
+    // Protocol state
+    private State state = State.WAIT_LOGIN;
+    // True while the reads wait for the cluster to check the name
+    private boolean paused = false;
+    // True if the connection was closed
+    private volatile boolean closed = false;
+    // Session kept while the client is away, that gets the next messages
+    private Session parked;
+
+    // Client name
+    private volatile String name;
+    // Client language
+    private volatile String language;
+    // True if the client is logged in
+    private boolean registered = false;
+    // True if the client uses the framed protocol
+    private volatile boolean framed = false;
+    // True if the client logged in with "RESUME"
+    private boolean resume = false;
+    // True if the client left with "QUIT"
+    private volatile boolean quit = false;
+    // Room of the client
+    private Room room;
+
+    // Pipeline entry of this client
+    private final MessagePipeline.Sender sender;
+
+    /**
+     * Construct a connection.
+     *
+     * @param server Server
+     * @param loop Event loop
+     * @param channel Non-blocking channel
+     */
+    NioConnection(NioChatServer server, EventLoop loop, SocketChannel channel) {
+        this.server = server;
+        this.loop = loop;
+        this.channel = channel;
+        this.sender = server.pipeline().newSender();
+        ServerConfig config = server.config();
+        this.limit = config.getOutboundLimit();
+        this.lag = TimeUnit.MILLISECONDS.toNanos(config.getOutboundLag());
+        this.policy = config.getSlowConsumerPolicy();
+        this.pending = new OutboundRing(this.limit);
+        this.decoder = new LineDecoder(config.getFrameMax());
+        this.frames = new FrameDecoder(config.getFrameMax());
+    }
+
+    /**
+     * Register the connection in the loop and request the client login. Must
+     * run in the loop thread.
+     */
+    void register() {
+        try {
+            this.key = this.channel.register(this.loop.selector(),
+                    SelectionKey.OP_READ, this);
+            sendLine("SUBMITNAME");
+        } catch (ClosedChannelException e) {
+            close();
+        }
+    }
+
+    /**
+     * Get client name.
+     *
+     * @return Client name
+     */
+    @Override
+    public String getName() {
+        return this.name;
+    }
+
+    /**
+     * Get client language.
+     *
+     * @return Client language
+     */
+    @Override
+    public String getLanguage() {
+        return this.language;
+    }
+
+    /**
+     * Get the pipeline entry of this client.
+     *
+     * @return Sender
+     */
+    MessagePipeline.Sender getSender() {
+        return this.sender;
+    }
+
+    /**
+     * Get the room of the client. Must run in the loop thread.
+     *
+     * @return Room
+     */
+    Room getRoom() {
+        return this.room;
+    }
+
+    /**
+     * Check if the client left with "QUIT", so its session must not be kept.
+     *
+     * @return True if the client quit
+     */
+    boolean isQuit() {
+        return this.quit;
+    }
+
+    /**
+     * Move the client to a room and tell it the result. Must run in the loop
+     * thread.
+     *
+     * @param name Room name
+     */
+    private void join(String name) {
+        Room joined = this.server.rooms().join(this, this.room, name);
+        if (joined == null) {
+            send(Frame.encodeReply(Frame.JOIN_FAILED, "JOINFAILED", name,
+                    this.framed));
+            return;
+        }
+        this.room = joined;
+        // Server Log
+        ServerLog.info("joined name=" + this.name + " room=" + name);
+        send(Frame.encodeReply(Frame.JOINED, "JOINED", name, this.framed));
+    }
+
+    /**
+     * Send the room list to the client. Must run in the loop thread.
+     */
+    private void listRooms() {
+        send(Frame.encodeReply(Frame.ROOMS, "ROOMS",
+                this.server.rooms().list(), this.framed));
+    }
+
+    /**
+     * Check if the client uses the framed protocol.
+     *
+     * @return True if the messages are sent as frames
+     */
+    @Override
+    public boolean isFramed() {
+        return this.framed;
+    }
+
+    /**
+     * Send a chat message to the client, or give it to the session kept while
+     * the client is away. May be called by any thread.
+     *
+     * @param message Encoded message
+     */
+    @Override
+    public void send(SharedBuffer message) {
+        Session away;
+        synchronized (this) {
+            away = this.parked;
+            // Nothing to send, or a flush is already on its way
+            if (away == null && !queue(message)) {
+                return;
+            }
+        }
+        if (away != null) {
+            away.send(message);
+        } else if (this.loop.inLoop()) {
+            onWritable();
+        } else {
+            this.loop.flush(this);
+        }
+    }
+
+    /**
+     * Queue a message, unless the connection is closed or the client is slow.
+     * Must hold the lock of the connection.
+     *
+     * @param message Encoded message
+     *
+     * @return True if a flush must be scheduled
+     */
+    private boolean queue(SharedBuffer message) {
+        if (this.closed) {
+            return false;
+        }
+        long now = System.nanoTime();
+        if (this.pending.size() >= this.limit) {
+            slow("full");
+            return false;
+        }
+        if (!this.pending.isEmpty()
+                && now - this.pending.peekTime() > this.lag) {
+            slow("lagging");
+            return false;
+        }
+        this.dropping = false;
+        this.pending.offer(message, now);
+        if (this.flushing) {
+            return false;
+        }
+        this.flushing = true;
+        return true;
+    }
+
+    /**
+     * Stop writing, and give the messages not written yet, and the next ones,
+     * to the session kept while the client is away. A message partly written
+     * is given whole, since the client lost its end of the line.
+     *
+     * @param session Session that takes the messages
+     */
+    @Override
+    public synchronized void handOff(Session session) {
+        SharedBuffer message;
+        while ((message = this.pending.poll()) != null) {
+            session.send(message);
+            message.release();
+        }
+        this.written = 0;
+        this.parked = session;
+    }
+
+    /**
+     * Send a protocol line to the client. Must run in the loop thread.
+     *
+     * @param line Line to be sent
+     */
+    private void sendLine(String line) {
+        send(SharedBuffer.wrap((line + "\n")
+                .getBytes(StandardCharsets.UTF_8)));
+    }
+
+    /**
+     * Apply the slow client policy. Must hold the lock of the connection.
+     *
+     * @param reason Why the client is slow
+     */
+    private void slow(String reason) {
+        if (this.policy == SlowConsumerPolicy.DISCONNECT) {
+            // Server Log
+            ServerLog.warn("slow name=" + this.name + " action=disconnect"
+                    + " reason=" + reason);
+            this.server.metrics().slowDisconnect();
+            this.server.metrics().dropped(this.pending.size() + 1);
+            // Refuse new messages now, close the channel in the loop
+            this.closed = true;
+            this.pending.clear();
+            if (this.loop.inLoop()) {
+                close();
+            } else {
+                this.loop.execute(this::close);
+            }
+            return;
+        }
+        this.dropped++;
+        this.server.metrics().dropped(1);
+        if (!this.dropping) {
+            this.dropping = true;
+            // Server Log
+            ServerLog.warn("slow name=" + this.name + " action=drop"
+                    + " reason=" + reason);
+        }
+    }
+
+    /**
+     * Get the number of dropped messages.
+     *
+     * @return Number of dropped messages
+     */
+    synchronized long getDropped() {
+        return this.dropped;
+    }
+
+    /**
+     * Get the number of messages waiting to be sent to the client.
+     *
+     * @return Queue depth
+     */
+    @Override
+    public synchronized int getQueued() {
+        return this.pending.size();
+    }
+
+    /**
+     * Write pending messages until the socket buffer is full. The messages
+     * queued since the last write are written together, with one gathering
+     * write. Must run in the loop thread.
+     */
+    void onWritable() {
+        if (this.closed || !this.channel.isOpen()) {
+            return;
+        }
+        SharedBuffer[] gathered = this.loop.gathered();
+        ByteBuffer[] views = this.loop.views();
+        try {
+            while (true) {
+                int count;
+                synchronized (this) {
+                    count = this.pending.peek(gathered);
+                    if (count == 0) {
+                        this.flushing = false;
+                        break;
+                    }
+                }
+                // The views of the shared buffers belong to the loop
+                for (int i = 0; i < count; i++) {
+                    views[i] = this.loop.view(gathered[i]);
+                    views[i].limit(gathered[i].size())
+                            .position(i == 0 ? this.written : 0);
+                }
+                long bytes = this.channel.write(views, 0, count);
+                // Release the messages written
+                int done = 0;
+                while (done < count && !views[done].hasRemaining()) {
+                    done++;
+                }
+                this.written = done < count ? views[done].position() : 0;
+                synchronized (this) {
+                    for (int i = 0; i < done
+                            && this.pending.peek() == gathered[i]; i++) {
+                        this.pending.poll().release();
+                    }
+                }
+                this.server.metrics().flushes().record(done, bytes);
+                if (done < count) {
+                    // Wait until the channel is writable again
+                    this.key.interestOps(reads() | SelectionKey.OP_WRITE);
+                    return;
+                }
+            }
+            this.key.interestOps(reads());
+        } catch (IOException e) {
+            close();
+        } finally {
+            Arrays.fill(gathered, null);
+            Arrays.fill(views, null);
+        }
+    }
+
+    /**
+     * Read the available bytes and handle the complete lines (or frames, once
+     * the client is accepted with the framed protocol).
+     */
+    void onReadable() {
+        try {
+            int read = this.channel.read(this.readBuffer);
+            if (read < 0) {
+                close();
+                return;
+            }
+            decode();
+        } catch (IOException e) {
+            close();
+        }
+    }
+
+    /**
+     * Handle the complete lines (or frames) of the read buffer. The bytes
+     * that come after a login waiting for the cluster are kept in the buffer,
+     * to be decoded once the login is accepted or refused.
+     *
+     * @throws IOException Protocol error
+     */
+    private void decode() throws IOException {
+        this.readBuffer.flip();
+        if (this.state != State.FRAMED) {
+            this.decoder.decode(this.readBuffer, this);
+        }
+        if (this.state == State.FRAMED && !this.closed) {
+            this.frames.decode(this.readBuffer, this);
+        }
+        this.readBuffer.compact();
+    }
+
+    /**
+     * Get the read interest of the connection.
+     *
+     * @return OP_READ, or 0 while the reads are paused
+     */
+    private int reads() {
+        return this.paused ? 0 : SelectionKey.OP_READ;
+    }
+
+    /**
+     * Stop reading from the client until the cluster checks its name (or its
+     * old connection is parked). Must run in the loop thread.
+     */
+    private void pause() {
+        this.paused = true;
+        this.key.interestOps(this.key.interestOps() & ~SelectionKey.OP_READ);
+    }
+
+    /**
+     * Read from the client again, starting with the bytes kept while the
+     * reads were paused. Must run in the loop thread.
+     */
+    private void resume() {
+        if (this.closed || this.state == State.WAIT_CLAIM) {
+            // The connection is gone, or the login waits for the cluster
+            return;
+        }
+        this.paused = false;
+        this.key.interestOps(this.key.interestOps() | SelectionKey.OP_READ);
+        try {
+            decode();
+        } catch (IOException e) {
+            close();
+        }
+    }
+
+    /**
+     * Handle a protocol line.
+     *
+     * @param line Line received
+     *
+     * @return False if the connection was closed
+     */
+    @Override
+    public boolean onLine(String line) {
+        switch (this.state) {
+            case WAIT_LOGIN:
+                // Check protocol (compression is declined)
+                line = Compression.strip(line);
+                if (line.equals("LOGIN") || line.equals(Frame.LOGIN)
+                        || line.equals("RESUME")
+                        || line.equals(Frame.RESUME)) {
+                    this.framed = line.equals(Frame.LOGIN)
+                            || line.equals(Frame.RESUME);
+                    this.resume = line.equals("RESUME")
+                            || line.equals(Frame.RESUME);
+                    this.state = State.WAIT_NAME;
+                } else {
+                    sendLine("SUBMITNAME");
+                }
+                break;
+            case WAIT_NAME:
+                this.name = line;
+                this.state = State.WAIT_LANGUAGE;
+                break;
+            case WAIT_LANGUAGE:
+                this.language = line;
+                if (this.resume) {
+                    this.state = State.WAIT_TOKEN;
+                    break;
+                }
+                return login("");
+            case WAIT_TOKEN:
+                return login(line);
+            case READY:
+                // Check protocol
+                if (line.equals("MESSAGE")) {
+                    this.state = State.WAIT_MESSAGE;
+                } else if (line.equals("JOIN")) {
+                    this.state = State.WAIT_ROOM;
+                } else if (line.equals("LEAVE")) {
+                    join(RoomRegistry.LOBBY);
+                } else if (line.equals("ROOMS")) {
+                    listRooms();
+                } else if (line.equals("QUIT")) {
+                    this.quit = true;
+                    close();
+                }
+                break;
+            case WAIT_ROOM:
+                this.state = State.READY;
+                join(line);
+                break;
+            case WAIT_MESSAGE:
+                this.state = State.READY;
+                // Server Log
+                ServerLog.received(this.name, line);
+                // Forward the message
+                this.server.broadcast(this, line);
+                break;
+            default:
+                break;
+        }
+        return !this.closed;
+    }
+
+    /**
+     * Log the client in, resuming its session if the token matches a parked
+     * one (or taking it over if its old connection looks alive). Must run in
+     * the loop thread.
+     *
+     * @param token Resume token, empty for a new session
+     *
+     * @return False if the next bytes are frames, wait for the cluster or the
+     * connection was closed
+     */
+    private boolean login(String token) {
+        // Check if is an invalid value
+        if (this.name.equals("") || this.language.equals("")) {
+            sendLine("NAMEREJECTED INVALID");
+            close();
+            return false;
+        }
+        // Get back the session the client lost, if any
+        CompletableFuture<ParkedSession> taken = token.isEmpty()
+                ? CompletableFuture.completedFuture(null)
+                : this.server.resumes().take(this.name, token);
+        if (taken.isDone()) {
+            return login(token, taken.join());
+        }
+        // Wait for the old connection to be parked, in the loop thread
+        this.state = State.WAIT_CLAIM;
+        pause();
+        taken.thenAccept(parked -> this.loop.execute(() -> {
+            login(token, parked);
+            resume();
+        }));
+        return false;
+    }
+
+    /**
+     * Log the client in, with the session it resumed, if any. Must run in the
+     * loop thread.
+     *
+     * @param token Resume token, empty for a new session
+     * @param parked Parked session taken, or null
+     *
+     * @return False if the next bytes are frames, wait for the cluster or the
+     * connection was closed
+     */
+    private boolean login(String token, ParkedSession parked) {
+        if (parked != null) {
+            boolean lines = accept();
+            // The token and the room come before the messages kept
+            send(Frame.encodeReply(Frame.TOKEN, "TOKEN", token + " "
+                    + parked.getRoom().getName(), this.framed));
+            this.room = this.server.resumes().attach(parked, this,
+                    this::disconnect);
+            this.registered = true;
+            if (this.closed) {
+                // The client is gone again
+                this.server.logout(this);
+                return false;
+            }
+            return lines;
+        }
+        if (this.closed) {
+            // The client left while its old connection was closed
+            return false;
+        }
+        // Client login
+        CompletableFuture<String> login = this.server.login(this);
+        if (login.isDone()) {
+            return loggedIn(login.join());
+        }
+        // Wait for the cluster, in the loop thread
+        this.state = State.WAIT_CLAIM;
+        pause();
+        login.thenAccept(rejected -> this.loop.execute(() -> {
+            loggedIn(rejected);
+            resume();
+        }));
+        return false;
+    }
+
+    /**
+     * Accept or refuse the login of the client. Must run in the loop thread.
+     *
+     * @param rejected Why the login was refused, or null if it was accepted
+     *
+     * @return False if the next bytes are frames or the connection was closed
+     */
+    private boolean loggedIn(String rejected) {
+        if (this.closed) {
+            // The client left while the cluster checked its name
+            if (rejected == null) {
+                this.quit = true;
+                this.server.logout(this);
+            }
+            return false;
+        }
+        if (rejected != null) {
+            this.state = State.WAIT_LOGIN;
+            sendLine("NAMEREJECTED " + rejected);
+            sendLine("SUBMITNAME");
+            return true;
+        }
+        this.registered = true;
+        // Enter the lobby
+        this.room = this.server.rooms().join(this, null, RoomRegistry.LOBBY);
+        boolean lines = accept();
+        if (this.resume) {
+            send(Frame.encodeReply(Frame.TOKEN, "TOKEN",
+                    this.server.resumes().issue(this.name, this::disconnect),
+                    this.framed));
+        }
+        return lines;
+    }
+
+    /**
+     * Tell the client that it is logged in. Must run in the loop thread.
+     *
+     * @return False if the next bytes are frames
+     */
+    private boolean accept() {
+        if (this.framed) {
+            this.state = State.FRAMED;
+            sendLine(Frame.ACCEPTED);
+            return false;
+        }
+        this.state = State.READY;
+        sendLine("NAMEACCEPTED");
+        return true;
+    }
+
+    /**
+     * Handle a frame.
+     *
+     * @param type Frame type
+     * @param payload Payload buffer
+     * @param length Payload length
+     *
+     * @return False if the connection was closed
+     */
+    @Override
+    public boolean onFrame(byte type, byte[] payload, int length) {
+        // Check frame type
+        if (type == Frame.MESSAGE) {
+            String input = new String(payload, 0, length,
+                    StandardCharsets.UTF_8);
+            // Server Log
+            ServerLog.received(this.name, input);
+            // Forward the message
+            this.server.broadcast(this, input);
+        } else if (type == Frame.JOIN) {
+            join(new String(payload, 0, length, StandardCharsets.UTF_8));
+        } else if (type == Frame.LEAVE) {
+            join(RoomRegistry.LOBBY);
+        } else if (type == Frame.ROOMS) {
+            listRooms();
+        } else if (type == Frame.QUIT) {
+            this.quit = true;
+            close();
+        }
+        return !this.closed;
+    }
+
+    /**
+     * Close the connection of a client whose session is taken over by a new
+     * connection. The session is then parked, as for a lost connection.
+     */
+    private void disconnect() {
+        this.loop.execute(this::close);
+    }
+
+    /**
+     * Close the connection and remove the client from the chat. Must run in
+     * the loop thread.
+     */
+    void close() {
+        if (this.channel.isOpen()) {
+            if (this.key != null) {
+                this.key.cancel();
+            }
+            try {
+                this.channel.close();
+            } catch (IOException e) {
+            }
+            // The pending messages are kept until a parked session takes them
+            if (this.registered) {
+                this.server.logout(this);
+                // Server Log
+                ServerLog.info("left name=" + this.name);
+            }
+        }
+        synchronized (this) {
+            this.closed = true;
+            this.pending.clear();
+        }
+    }
+}
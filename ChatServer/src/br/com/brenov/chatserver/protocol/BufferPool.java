@@ -0,0 +1,113 @@
+/*
+ * GNU License.
+ */
+package br.com.brenov.chatserver.protocol;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Pool of the buffers of encoded messages. The buffers are grouped by size in
+ * powers of two, from 256 bytes up to the largest message allowed; larger
+ * messages get buffers that are not pooled. Each size keeps a bounded number
+ * of free buffers, the others are left to the garbage collector. The buffers
+ * have a view slot for each thread that writes them to channels.
+ *
+ * @author Breno Viana
+ * @version 17/10/2026
+ */
+public class BufferPool {
+
+    // Size of the smallest buffers (power of two)
+    private static final int MIN_SHIFT = 8;
+
+    // True to allocate direct buffers
+    private final boolean direct;
+    // Free buffers of each size
+    private final List<BlockingQueue<ByteBuffer>> free;
+    // Number of view slots of the buffers
+    private final int slots;
+
+    /**
+     * Construct a buffer pool.
+     *
+     * @param max Size of the largest pooled message, in bytes
+     * @param pooled Maximum number of free buffers kept of each size
+     * @param direct True to allocate direct buffers
+     * @param slots Number of view slots of the buffers
+     */
+    public BufferPool(int max, int pooled, boolean direct, int slots) {
+        this.direct = direct;
+        this.slots = slots;
+        this.free = new ArrayList<BlockingQueue<ByteBuffer>>();
+        for (int size = 1 << MIN_SHIFT; ; size <<= 1) {
+            this.free.add(new ArrayBlockingQueue<ByteBuffer>(
+                    Math.max(1, pooled)));
+            if (size >= max || size >= 1 << 30) {
+                break;
+            }
+        }
+    }
+
+    /**
+     * Get the size group of a buffer.
+     *
+     * @param size Buffer size
+     *
+     * @return Group index (may be past the largest group)
+     */
+    private static int group(int size) {
+        int shift = 32 - Integer.numberOfLeadingZeros(Math.max(size, 1) - 1);
+        return Math.max(0, shift - MIN_SHIFT);
+    }
+
+    /**
+     * Get a buffer to encode a message. The buffer is cleared, with its limit
+     * at the size of the message.
+     *
+     * @param size Message size, in bytes
+     *
+     * @return Shared buffer with one reference, owned by the caller
+     */
+    public SharedBuffer acquire(int size) {
+        int group = group(size);
+        if (group >= this.free.size()) {
+            return new SharedBuffer(allocate(size), null, this.slots);
+        }
+        ByteBuffer buffer = this.free.get(group).poll();
+        if (buffer == null) {
+            buffer = allocate(1 << (group + MIN_SHIFT));
+        }
+        buffer.clear();
+        buffer.limit(size);
+        return new SharedBuffer(buffer, this, this.slots);
+    }
+
+    /**
+     * Return a buffer to the pool.
+     *
+     * @param buffer Buffer that is no longer used
+     */
+    void recycle(ByteBuffer buffer) {
+        int group = group(buffer.capacity());
+        if (group < this.free.size()
+                && buffer.capacity() == 1 << (group + MIN_SHIFT)) {
+            this.free.get(group).offer(buffer);
+        }
+    }
+
+    /**
+     * Allocate a new buffer.
+     *
+     * @param capacity Buffer capacity
+     *
+     * @return Buffer
+     */
+    private ByteBuffer allocate(int capacity) {
+        return this.direct ? ByteBuffer.allocateDirect(capacity)
+                : ByteBuffer.allocate(capacity);
+    }
+}
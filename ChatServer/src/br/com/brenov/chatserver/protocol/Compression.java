@@ -0,0 +1,257 @@
+/*
+ * GNU License.
+ */
+package br.com.brenov.chatserver.protocol;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Per-connection compression. A client that ends its login line with
+ * " DEFLATE" ("LOGIN DEFLATE", "RESUME FRAMED DEFLATE", ...) asks for a
+ * compressed connection; if the server accepts it with "NAMEACCEPTED DEFLATE"
+ * (or "NAMEACCEPTED FRAMED DEFLATE"), every following byte, in both
+ * directions, is part of one zlib stream. Clients that do not ask, and
+ * servers that do not answer " DEFLATE", keep the connection uncompressed.
+ *
+ * Each direction keeps one deflate stream for the whole connection, so each
+ * message is compressed against the last 32 KB sent before it: the names,
+ * the protocol words and the usual words of the conversation cost a few bits
+ * after their first use. Each batch of writes ends with a sync flush, so the
+ * other side can read every message written so far.
+ *
+ * @author Breno Viana
+ * @version 17/10/2026
+ */
+public final class Compression {
+
+    // Suffix of the login and accept lines of compressed connections
+    public static final String DEFLATE = " DEFLATE";
+
+    // Size of the compressed stream buffers
+    private static final int BUFFER = 8192;
+
+    /**
+     * Not instantiable.
+     */
+    private Compression() {
+    }
+
+    /**
+     * Check if a login or accept line asks for compression.
+     *
+     * @param line Protocol line
+     *
+     * @return True if the line ends with " DEFLATE"
+     */
+    public static boolean isRequested(String line) {
+        return line.endsWith(DEFLATE);
+    }
+
+    /**
+     * Remove the compression suffix of a login or accept line.
+     *
+     * @param line Protocol line
+     *
+     * @return Line without " DEFLATE"
+     */
+    public static String strip(String line) {
+        return isRequested(line)
+                ? line.substring(0, line.length() - DEFLATE.length()) : line;
+    }
+
+    /**
+     * Compress the bytes written to a stream. Each flush ends the deflate
+     * block, so the bytes written so far can be read by the other side.
+     *
+     * @param out Stream of the connection
+     * @param level Compression level (1 to 9)
+     *
+     * @return Compressing stream, to be ended with {@link #end(OutputStream)}
+     */
+    public static OutputStream deflate(OutputStream out, int level) {
+        return new Deflating(out, new Deflater(level));
+    }
+
+    /**
+     * Decompress the bytes read from a stream. The stream is buffered, and a
+     * read returns the bytes decompressed so far instead of waiting for more
+     * (a BufferedInputStream would wait, as an inflater stream is always
+     * "available").
+     *
+     * @param in Stream of the connection
+     *
+     * @return Decompressing stream, buffered
+     */
+    public static InputStream inflate(InputStream in) {
+        return new Inflating(in);
+    }
+
+    /**
+     * Free the compression state of a stream, without writing the end of the
+     * zlib stream. Must be called by the thread that writes to the stream,
+     * once it stopped writing.
+     *
+     * @param out Stream, compressing or not
+     */
+    public static void end(OutputStream out) {
+        if (out instanceof Deflating) {
+            ((Deflating) out).end();
+        }
+    }
+
+    /**
+     * A compressing stream whose deflater is freed by {@link #end()}.
+     */
+    private static final class Deflating extends DeflaterOutputStream {
+
+        /**
+         * Construct a compressing stream that syncs on flush.
+         *
+         * @param out Stream of the connection
+         * @param deflater Deflater
+         */
+        Deflating(OutputStream out, Deflater deflater) {
+            super(out, deflater, BUFFER, true);
+        }
+
+        /**
+         * Free the deflater.
+         */
+        void end() {
+            this.def.end();
+        }
+
+        /**
+         * Write the end of the zlib stream, close the connection stream and
+         * free the deflater.
+         *
+         * @throws IOException Error on socket
+         */
+        @Override
+        public void close() throws IOException {
+            try {
+                super.close();
+            } finally {
+                end();
+            }
+        }
+    }
+
+    /**
+     * A buffered decompressing stream whose reads do not wait for more input
+     * once some bytes were decompressed.
+     */
+    private static final class Inflating extends InflaterInputStream {
+
+        // Decompressed bytes
+        private final byte[] chunk = new byte[BUFFER];
+        // Next byte of the chunk
+        private int position = 0;
+        // Number of bytes of the chunk
+        private int count = 0;
+
+        /**
+         * Construct a decompressing stream.
+         *
+         * @param in Stream of the connection
+         */
+        Inflating(InputStream in) {
+            super(in, new Inflater(), BUFFER);
+        }
+
+        /**
+         * Read a byte.
+         *
+         * @return Byte, or -1 at the end of the stream
+         *
+         * @throws IOException Error on socket, or invalid stream
+         */
+        @Override
+        public int read() throws IOException {
+            if (this.position == this.count) {
+                int read = inflate(this.chunk, 0, this.chunk.length);
+                if (read < 0) {
+                    return -1;
+                }
+                this.position = 0;
+                this.count = read;
+            }
+            return this.chunk[this.position++] & 0xff;
+        }
+
+        /**
+         * Read bytes: the bytes of the chunk, if any, or the bytes that can be
+         * decompressed with the first input available.
+         *
+         * @param b Buffer
+         * @param off Offset in the buffer
+         * @param len Maximum number of bytes
+         *
+         * @return Number of bytes read, or -1 at the end of the stream
+         *
+         * @throws IOException Error on socket, or invalid stream
+         */
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (this.position == this.count) {
+                return inflate(b, off, len);
+            }
+            int read = Math.min(len, this.count - this.position);
+            System.arraycopy(this.chunk, this.position, b, off, read);
+            this.position += read;
+            return read;
+        }
+
+        /**
+         * Decompress bytes. The end of the connection is the end of the
+         * stream, as for an uncompressed connection (the zlib stream of a
+         * connection is never finished).
+         *
+         * @param b Buffer
+         * @param off Offset in the buffer
+         * @param len Maximum number of bytes
+         *
+         * @return Number of bytes read, or -1 at the end of the stream
+         *
+         * @throws IOException Error on socket, or invalid stream
+         */
+        private int inflate(byte[] b, int off, int len) throws IOException {
+            try {
+                return super.read(b, off, len);
+            } catch (EOFException ex) {
+                return -1;
+            }
+        }
+
+        /**
+         * Get the number of bytes that can be read without blocking.
+         *
+         * @return Bytes of the chunk
+         */
+        @Override
+        public int available() {
+            return this.count - this.position;
+        }
+
+        /**
+         * Close the connection stream and free the inflater.
+         *
+         * @throws IOException Error on socket
+         */
+        @Override
+        public void close() throws IOException {
+            try {
+                super.close();
+            } finally {
+                this.inf.end();
+            }
+        }
+    }
+}
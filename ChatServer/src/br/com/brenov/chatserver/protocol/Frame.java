@@ -0,0 +1,245 @@
+/*
+ * GNU License.
+ */
+package br.com.brenov.chatserver.protocol;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Framed protocol. A client that logs in with "LOGIN FRAMED" (instead of
+ * "LOGIN") and is accepted with "NAMEACCEPTED FRAMED" stops using text lines:
+ * every following message, in both directions, is a frame made of a type byte,
+ * the payload length (4 bytes, big-endian) and the UTF-8 payload. Clients that
+ * log in with "LOGIN" keep using the line protocol.
+ *
+ * Besides the chat messages, clients may join a room ("JOIN" and the room
+ * name), go back to the lobby ("LEAVE") and list the rooms ("ROOMS"). The
+ * server answers "JOINED room" or "JOINFAILED room", and "ROOMS" followed by
+ * the rooms as "name:members"; framed clients use the frame types below.
+ *
+ * Clients that log in with "RESUME" or "RESUME FRAMED" send a resume token
+ * after their name and language (empty on the first login). Once accepted,
+ * they get "TOKEN token", or "TOKEN token room" if they got back a session
+ * they lost, with the messages sent to them meanwhile. A client that does not
+ * want its session back sends "QUIT" before it disconnects.
+ *
+ * @author Breno Viana
+ * @version 17/10/2026
+ */
+public final class Frame {
+
+    // Login line of the clients that want the framed protocol
+    public static final String LOGIN = "LOGIN FRAMED";
+    // Login confirmation of the framed clients
+    public static final String ACCEPTED = "NAMEACCEPTED FRAMED";
+    // Login line of the framed clients that may resume their session
+    public static final String RESUME = "RESUME FRAMED";
+
+    // Size of the frame header (type and length)
+    public static final int HEADER = 5;
+
+    // Chat message (client to server: text; server to client: "name: text")
+    public static final byte MESSAGE = 1;
+    // Join a room (client to server: room name)
+    public static final byte JOIN = 2;
+    // Leave the room and go back to the lobby (client to server: empty)
+    public static final byte LEAVE = 3;
+    // Room list (client to server: empty; server to client: the rooms)
+    public static final byte ROOMS = 4;
+    // Room joined (server to client: room name)
+    public static final byte JOINED = 5;
+    // Room not joined (server to client: room name)
+    public static final byte JOIN_FAILED = 6;
+    // Resume token (server to client: token, and the room if the session
+    // was resumed)
+    public static final byte TOKEN = 7;
+    // Leave the chat for good (client to server: empty)
+    public static final byte QUIT = 8;
+
+    // Prefix of the chat messages of the line protocol
+    private static final byte[] MESSAGE_PREFIX = "MESSAGE "
+            .getBytes(StandardCharsets.US_ASCII);
+
+    /**
+     * Not instantiable.
+     */
+    private Frame() {
+    }
+
+    /**
+     * Encode a frame.
+     *
+     * @param type Frame type
+     * @param payload Frame payload
+     *
+     * @return Frame bytes
+     */
+    public static byte[] encode(byte type, String payload) {
+        byte[] bytes = payload.getBytes(StandardCharsets.UTF_8);
+        byte[] frame = new byte[HEADER + bytes.length];
+        frame[0] = type;
+        frame[1] = (byte) (bytes.length >>> 24);
+        frame[2] = (byte) (bytes.length >>> 16);
+        frame[3] = (byte) (bytes.length >>> 8);
+        frame[4] = (byte) bytes.length;
+        System.arraycopy(bytes, 0, frame, HEADER, bytes.length);
+        return frame;
+    }
+
+    /**
+     * Encode a reply to a client: a frame, or a line made of the reply word
+     * and its argument.
+     *
+     * @param type Frame type
+     * @param word Reply word of the line protocol
+     * @param argument Reply argument
+     * @param framed True if the client uses the framed protocol
+     *
+     * @return Shared buffer, not pooled
+     */
+    public static SharedBuffer encodeReply(byte type, String word,
+            String argument, boolean framed) {
+        return SharedBuffer.wrap(framed ? encode(type, argument)
+                : (word + (argument.isEmpty() ? "" : " " + argument) + "\n")
+                        .getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Encode a chat message to a client into a pooled buffer, without building
+     * the message text. The text is cut so that the message line ("MESSAGE
+     * name: text") fits the maximum size the clients read: the sender name
+     * and the translation make the message longer than the text received.
+     *
+     * @param pool Buffer pool
+     * @param name Name of the client who sent the message
+     * @param text Message text
+     * @param framed True if the client uses the framed protocol
+     * @param max Maximum size of a line or frame payload, in bytes
+     *
+     * @return Shared buffer with one reference, owned by the caller
+     */
+    public static SharedBuffer encodeMessage(BufferPool pool, String name,
+            String text, boolean framed, int max) {
+        int prefix = MESSAGE_PREFIX.length + utf8Length(name) + 2;
+        text = clip(text, max - prefix);
+        int payload = utf8Length(name) + 2 + utf8Length(text);
+        SharedBuffer message = pool.acquire(framed ? HEADER + payload
+                : MESSAGE_PREFIX.length + payload + 1);
+        ByteBuffer data = message.data;
+        if (framed) {
+            data.put(MESSAGE).putInt(payload);
+        } else {
+            data.put(MESSAGE_PREFIX);
+        }
+        putUtf8(data, name);
+        data.put((byte) ':').put((byte) ' ');
+        putUtf8(data, text);
+        if (!framed) {
+            data.put((byte) '\n');
+        }
+        data.flip();
+        return message;
+    }
+
+    /**
+     * Cut a text to a maximum size in UTF-8, without splitting a character.
+     *
+     * @param text Text
+     * @param max Maximum size, in bytes
+     *
+     * @return Text, or its longest beginning that fits the size
+     */
+    static String clip(String text, int max) {
+        if (text.length() * 3 <= max) {
+            return text;
+        }
+        int length = 0;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            int size = 1;
+            if (c >= 0x80 && c < 0x800) {
+                size = 2;
+            } else if (Character.isHighSurrogate(c) && i + 1 < text.length()
+                    && Character.isLowSurrogate(text.charAt(i + 1))) {
+                size = 4;
+            } else if (c >= 0x800 && !Character.isSurrogate(c)) {
+                size = 3;
+            }
+            if (length + size > max) {
+                return text.substring(0, i);
+            }
+            length += size;
+            if (size == 4) {
+                i++;
+            }
+        }
+        return text;
+    }
+
+    /**
+     * Get the size of a text encoded in UTF-8, the same way as
+     * {@link String#getBytes(java.nio.charset.Charset)}.
+     *
+     * @param text Text
+     *
+     * @return Size in bytes
+     */
+    static int utf8Length(String text) {
+        int length = 0;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c < 0x80) {
+                length++;
+            } else if (c < 0x800) {
+                length += 2;
+            } else if (Character.isSurrogate(c)) {
+                if (Character.isHighSurrogate(c) && i + 1 < text.length()
+                        && Character.isLowSurrogate(text.charAt(i + 1))) {
+                    length += 4;
+                    i++;
+                } else {
+                    // Malformed surrogate, replaced by '?'
+                    length++;
+                }
+            } else {
+                length += 3;
+            }
+        }
+        return length;
+    }
+
+    /**
+     * Encode a text in UTF-8 into a buffer.
+     *
+     * @param buffer Buffer with room for the text
+     * @param text Text
+     */
+    static void putUtf8(ByteBuffer buffer, String text) {
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c < 0x80) {
+                buffer.put((byte) c);
+            } else if (c < 0x800) {
+                buffer.put((byte) (0xC0 | (c >> 6)));
+                buffer.put((byte) (0x80 | (c & 0x3F)));
+            } else if (Character.isSurrogate(c)) {
+                if (Character.isHighSurrogate(c) && i + 1 < text.length()
+                        && Character.isLowSurrogate(text.charAt(i + 1))) {
+                    int code = Character.toCodePoint(c, text.charAt(++i));
+                    buffer.put((byte) (0xF0 | (code >> 18)));
+                    buffer.put((byte) (0x80 | ((code >> 12) & 0x3F)));
+                    buffer.put((byte) (0x80 | ((code >> 6) & 0x3F)));
+                    buffer.put((byte) (0x80 | (code & 0x3F)));
+                } else {
+                    // Malformed surrogate
+                    buffer.put((byte) '?');
+                }
+            } else {
+                buffer.put((byte) (0xE0 | (c >> 12)));
+                buffer.put((byte) (0x80 | ((c >> 6) & 0x3F)));
+                buffer.put((byte) (0x80 | (c & 0x3F)));
+            }
+        }
+    }
+}
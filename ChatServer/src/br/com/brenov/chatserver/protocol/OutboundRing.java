@@ -0,0 +1,132 @@
+/*
+ * GNU License.
+ */
+package br.com.brenov.chatserver.protocol;
+
+/**
+ * Bounded queue of the messages waiting to be written to a client, with the
+ * time each one was queued. It is backed by arrays, so queueing a message does
+ * not allocate. The queue retains the messages it holds; it is not thread safe,
+ * the sessions guard it with their own locks.
+ *
+ * @author Breno Viana
+ * @version 17/10/2026
+ */
+public class OutboundRing {
+
+    // Queued messages
+    private final SharedBuffer[] messages;
+    // Time each message was queued (System.nanoTime)
+    private final long[] times;
+    // Index of the oldest message
+    private int head = 0;
+    // Number of queued messages
+    private int count = 0;
+
+    /**
+     * Construct a queue.
+     *
+     * @param capacity Maximum number of messages
+     */
+    public OutboundRing(int capacity) {
+        this.messages = new SharedBuffer[Math.max(1, capacity)];
+        this.times = new long[this.messages.length];
+    }
+
+    /**
+     * Queue a message, adding a reference to it.
+     *
+     * @param message Message
+     * @param time Time it was queued
+     *
+     * @return False if the queue is full
+     */
+    public boolean offer(SharedBuffer message, long time) {
+        if (this.count == this.messages.length) {
+            return false;
+        }
+        int tail = (this.head + this.count) % this.messages.length;
+        this.messages[tail] = message.retain();
+        this.times[tail] = time;
+        this.count++;
+        return true;
+    }
+
+    /**
+     * Get the oldest message, keeping it in the queue.
+     *
+     * @return Message, or null if the queue is empty
+     */
+    public SharedBuffer peek() {
+        return this.count == 0 ? null : this.messages[this.head];
+    }
+
+    /**
+     * Get the oldest messages, keeping them in the queue.
+     *
+     * @param into Array that receives the messages, oldest first
+     *
+     * @return Number of messages copied
+     */
+    public int peek(SharedBuffer[] into) {
+        int n = Math.min(this.count, into.length);
+        for (int i = 0; i < n; i++) {
+            into[i] = this.messages[(this.head + i) % this.messages.length];
+        }
+        return n;
+    }
+
+    /**
+     * Get the time the oldest message was queued.
+     *
+     * @return Time (System.nanoTime)
+     */
+    public long peekTime() {
+        return this.times[this.head];
+    }
+
+    /**
+     * Remove the oldest message. Its reference passes to the caller, who must
+     * release it.
+     *
+     * @return Message, or null if the queue is empty
+     */
+    public SharedBuffer poll() {
+        if (this.count == 0) {
+            return null;
+        }
+        SharedBuffer message = this.messages[this.head];
+        this.messages[this.head] = null;
+        this.head = (this.head + 1) % this.messages.length;
+        this.count--;
+        return message;
+    }
+
+    /**
+     * Get the number of queued messages.
+     *
+     * @return Queue depth
+     */
+    public int size() {
+        return this.count;
+    }
+
+    /**
+     * Check if the queue is empty.
+     *
+     * @return True if there are no queued messages
+     */
+    public boolean isEmpty() {
+        return this.count == 0;
+    }
+
+    /**
+     * Remove and release all the messages.
+     */
+    public void clear() {
+        SharedBuffer message;
+        while ((message = poll()) != null) {
+            message.release();
+        }
+    }
+}
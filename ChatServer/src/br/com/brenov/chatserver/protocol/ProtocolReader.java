@@ -0,0 +1,135 @@
+/*
+ * GNU License.
+ */
+package br.com.brenov.chatserver.protocol;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.ProtocolException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Reads the text lines and the frames sent by a client, from the same buffered
+ * stream, so a client may switch from lines to frames after the login. Lines
+ * and frame payloads longer than the maximum frame size are refused before
+ * they are read.
+ *
+ * @author Breno Viana
+ * @version 17/10/2026
+ */
+public class ProtocolReader {
+
+    // Buffered input stream
+    private final InputStream in;
+    // Maximum size of a line or frame payload, in bytes
+    private final int max;
+
+    // Bytes of the last line or payload
+    private byte[] buffer = new byte[256];
+    // Number of bytes of the last payload
+    private int length = 0;
+
+    /**
+     * Construct a protocol reader.
+     *
+     * @param in Buffered input stream
+     * @param max Maximum size of a line or frame payload, in bytes
+     */
+    public ProtocolReader(InputStream in, int max) {
+        this.in = in;
+        this.max = max;
+    }
+
+    /**
+     * Read a text line. Lines end with "\n" (an optional "\r" before it is
+     * removed).
+     *
+     * @return Line without the terminator, or null at the end of the stream
+     *
+     * @throws IOException Error on socket, or line too long
+     */
+    public String readLine() throws IOException {
+        int size = 0;
+        while (true) {
+            int b = this.in.read();
+            if (b < 0) {
+                if (size == 0) {
+                    return null;
+                }
+                break;
+            }
+            if (b == '\n') {
+                break;
+            }
+            if (size == this.max) {
+                throw new ProtocolException("Line longer than " + this.max
+                        + " bytes.");
+            }
+            ensure(size + 1);
+            this.buffer[size++] = (byte) b;
+        }
+        if (size > 0 && this.buffer[size - 1] == '\r') {
+            size--;
+        }
+        return new String(this.buffer, 0, size, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Read a frame. Its payload is kept until the next read.
+     *
+     * @return Frame type, or -1 at the end of the stream
+     *
+     * @throws IOException Error on socket, or frame too large
+     */
+    public int readFrame() throws IOException {
+        int type = this.in.read();
+        if (type < 0) {
+            return -1;
+        }
+        int size = 0;
+        for (int i = 0; i < Frame.HEADER - 1; i++) {
+            int b = this.in.read();
+            if (b < 0) {
+                throw new EOFException("Incomplete frame.");
+            }
+            size = (size << 8) | b;
+        }
+        if (size < 0 || size > this.max) {
+            throw new ProtocolException("Frame of " + (size & 0xFFFFFFFFL)
+                    + " bytes, the maximum is " + this.max + ".");
+        }
+        ensure(size);
+        for (int read = 0; read < size;) {
+            int n = this.in.read(this.buffer, read, size - read);
+            if (n < 0) {
+                throw new EOFException("Incomplete frame.");
+            }
+            read += n;
+        }
+        this.length = size;
+        return type;
+    }
+
+    /**
+     * Get the payload of the last frame.
+     *
+     * @return Payload decoded from UTF-8
+     */
+    public String getPayload() {
+        return new String(this.buffer, 0, this.length, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Make room in the buffer.
+     *
+     * @param size Required size
+     */
+    private void ensure(int size) {
+        if (size > this.buffer.length) {
+            this.buffer = Arrays.copyOf(this.buffer, Math.min(this.max,
+                    Math.max(size, this.buffer.length * 2)));
+        }
+    }
+}
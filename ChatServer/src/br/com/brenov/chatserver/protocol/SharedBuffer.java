@@ -0,0 +1,134 @@
+/*
+ * GNU License.
+ */
+package br.com.brenov.chatserver.protocol;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * An encoded message shared by all the recipients that receive the same bytes.
+ * The buffer is reference counted: each recipient retains it while the message
+ * waits to be written and releases it when done, and the last release returns
+ * the buffer to its pool. The shared buffer position is never changed, so the
+ * readers use the backing array or a view of their slot: each event loop owns
+ * one slot, and its view is shared by all the connections of the loop.
+ *
+ * @author Breno Viana
+ * @version 17/10/2026
+ */
+public final class SharedBuffer {
+
+    // Encoded bytes (position 0, limit at the end of the message)
+    final ByteBuffer data;
+    // Pool the buffer returns to (null if it is not pooled)
+    private final BufferPool pool;
+    // Number of references
+    private final AtomicInteger refs = new AtomicInteger(1);
+    // View of each slot (created on first use)
+    private final ByteBuffer[] views;
+
+    /**
+     * Construct a shared buffer with one reference, owned by the caller.
+     *
+     * @param data Buffer
+     * @param pool Pool the buffer returns to (null if it is not pooled)
+     * @param slots Number of view slots
+     */
+    SharedBuffer(ByteBuffer data, BufferPool pool, int slots) {
+        this.data = data;
+        this.pool = pool;
+        this.views = new ByteBuffer[slots];
+    }
+
+    /**
+     * Share bytes that are not pooled, such as protocol lines.
+     *
+     * @param bytes Encoded bytes
+     *
+     * @return Shared buffer with one reference
+     */
+    public static SharedBuffer wrap(byte[] bytes) {
+        return new SharedBuffer(ByteBuffer.wrap(bytes), null, 0);
+    }
+
+    /**
+     * Get the size of the encoded message.
+     *
+     * @return Size in bytes
+     */
+    public int size() {
+        return this.data.limit();
+    }
+
+    /**
+     * Create a view of the message, with its own position and limit.
+     *
+     * @return Buffer sharing the bytes of the message
+     */
+    public ByteBuffer view() {
+        return this.data.duplicate();
+    }
+
+    /**
+     * Get the view of a slot, created once and reused by the thread that owns
+     * the slot. Its position and limit are left as the last user set them.
+     *
+     * @param slot Slot, only used by one thread
+     *
+     * @return Buffer sharing the bytes of the message
+     */
+    public ByteBuffer view(int slot) {
+        if (slot >= this.views.length) {
+            return view();
+        }
+        ByteBuffer view = this.views[slot];
+        if (view == null) {
+            view = view();
+            this.views[slot] = view;
+        }
+        return view;
+    }
+
+    /**
+     * Write the message to a stream.
+     *
+     * @param out Output stream
+     *
+     * @throws IOException Error on socket
+     */
+    public void writeTo(OutputStream out) throws IOException {
+        if (this.data.hasArray()) {
+            out.write(this.data.array(), this.data.arrayOffset(), size());
+        } else {
+            byte[] bytes = new byte[size()];
+            view().get(bytes);
+            out.write(bytes);
+        }
+    }
+
+    /**
+     * Add a reference.
+     *
+     * @return This buffer
+     */
+    public SharedBuffer retain() {
+        this.refs.incrementAndGet();
+        return this;
+    }
+
+    /**
+     * Remove a reference. The buffer must not be used after its last
+     * reference is released.
+     */
+    public void release() {
+        int left = this.refs.decrementAndGet();
+        if (left == 0 && this.pool != null) {
+            this.pool.recycle(this.data);
+        } else if (left < 0) {
+            throw new IllegalStateException("Buffer released too many times.");
+        }
+    }
+}
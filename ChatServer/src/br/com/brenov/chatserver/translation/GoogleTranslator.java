@@ -0,0 +1,131 @@
+/*
+ * GNU License.
+ */
+package br.com.brenov.chatserver.translation;
+
+import com.google.api.client.googleapis.GoogleUtils;
+import com.google.api.client.googleapis.MethodOverride;
+import com.google.api.client.http.HttpTransport;
+import com.google.api.client.http.apache.ApacheHttpTransport;
+import com.google.api.client.json.gson.GsonFactory;
+import com.google.api.services.translate.Translate;
+import com.google.api.services.translate.model.TranslationsListResponse;
+import com.google.api.services.translate.model.TranslationsResource;
+import java.io.IOException;
+import java.security.GeneralSecurityException;
+import java.security.KeyStore;
+import java.util.ArrayList;
+import java.util.List;
+import org.apache.http.conn.params.ConnManagerParams;
+import org.apache.http.conn.params.ConnPerRouteBean;
+import org.apache.http.params.HttpConnectionParams;
+import org.apache.http.params.HttpParams;
+
+/**
+ * Google Cloud Translation API client. A single translator is created when the
+ * server starts and shared by all the chat handlers. It keeps a pool of
+ * keep-alive connections to the API, so the translations do not pay a new
+ * connection (and TLS handshake) each time. It is thread safe.
+ *
+ * @author Breno Viana
+ * @version 17/10/2026
+ */
+public class GoogleTranslator implements Translator {
+
+    // Translate service
+    private final Translate translate;
+    // API Key
+    private final String api;
+
+    /**
+     * Construct a translator that uses the Google API.
+     *
+     * @param api API Key
+     * @param connections Maximum number of pooled connections
+     *
+     * @throws GeneralSecurityException The trust store could not be loaded
+     * @throws IOException The trust store could not be read
+     */
+    public GoogleTranslator(String api, int connections)
+            throws GeneralSecurityException, IOException {
+        this(api, newTransport(GoogleUtils.getCertificateTrustStore(),
+                connections), Translate.DEFAULT_ROOT_URL);
+    }
+
+    /**
+     * Construct a translator.
+     *
+     * @param api API Key
+     * @param transport HTTP transport
+     * @param rootUrl Root URL of the translation service
+     */
+    public GoogleTranslator(String api, HttpTransport transport,
+            String rootUrl) {
+        this.api = api;
+        this.translate = new Translate.Builder(transport,
+                GsonFactory.getDefaultInstance(), null)
+                .setApplicationName("Understand Me")
+                .setRootUrl(rootUrl)
+                // Send long requests (batches) as POST
+                .setHttpRequestInitializer(new MethodOverride())
+                .build();
+    }
+
+    /**
+     * Create an HTTP transport with a pool of keep-alive connections.
+     *
+     * @param trustStore Trusted certificates
+     * @param connections Maximum number of pooled connections
+     *
+     * @return HTTP transport
+     *
+     * @throws GeneralSecurityException The trust store is invalid
+     */
+    public static HttpTransport newTransport(KeyStore trustStore,
+            int connections) throws GeneralSecurityException {
+        ApacheHttpTransport.Builder builder = new ApacheHttpTransport.Builder()
+                .trustCertificates(trustStore);
+        // All the requests go to the same host
+        HttpParams params = builder.getHttpParams();
+        ConnManagerParams.setMaxTotalConnections(params, connections);
+        ConnManagerParams.setMaxConnectionsPerRoute(params,
+                new ConnPerRouteBean(connections));
+        HttpConnectionParams.setTcpNoDelay(params, true);
+        return builder.build();
+    }
+
+    /**
+     * Translate many messages in a single request.
+     *
+     * @param inputs Messages
+     * @param source Source language
+     * @param target Target language
+     *
+     * @return Translated messages, in the same order
+     *
+     * @throws IOException Translation error
+     */
+    @Override
+    public List<String> translate(List<String> inputs, String source,
+            String target) throws IOException {
+        // Prepare to translate
+        Translate.Translations.List list = this.translate.translations()
+                .list(inputs, target);
+        list.setSource(source);
+        // Google Cloud API
+        list.setKey(this.api);
+        // Translate messages
+        TranslationsListResponse response = list.execute();
+        List<TranslationsResource> resources = response.getTranslations();
+        if (resources == null || resources.size() != inputs.size()) {
+            throw new IOException("Expected " + inputs.size()
+                    + " translations, received "
+                    + (resources == null ? 0 : resources.size()) + ".");
+        }
+        List<String> translated = new ArrayList<String>(inputs.size());
+        for (int i = 0; i < inputs.size(); i++) {
+            translated.add(resources.get(i).getTranslatedText());
+        }
+        return translated;
+    }
+}
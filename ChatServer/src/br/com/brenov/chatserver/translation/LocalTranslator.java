@@ -0,0 +1,143 @@
+/*
+ * GNU License.
+ */
+package br.com.brenov.chatserver.translation;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Properties;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Offline translator, used to test and benchmark the server without network
+ * access or an API key. Without a dictionary the translations are
+ * deterministic pseudo-translations ("[PT] hello"). With a dictionary the
+ * messages are translated word by word, keeping the unknown words.
+ *
+ * The dictionary is a properties file whose keys are the source language, the
+ * target language and the word, separated by dots ("en.pt.hello=olá").
+ *
+ * Each request may wait a fixed latency plus a random jitter, and may fail at
+ * a given rate, to simulate a remote service.
+ *
+ * @author Breno Viana
+ * @version 17/10/2026
+ */
+public class LocalTranslator implements Translator {
+
+    // Dictionary (null to pseudo-translate)
+    private final Properties dictionary;
+    // Latency of a request, in milliseconds
+    private final long latency;
+    // Maximum random latency added to a request, in milliseconds
+    private final long jitter;
+    // Rate of failed requests (0 to 1)
+    private final double failures;
+
+    /**
+     * Construct a local translator.
+     *
+     * @param dictionary Dictionary file (null to pseudo-translate)
+     * @param latency Latency of a request, in milliseconds
+     * @param jitter Maximum random latency added to a request, in milliseconds
+     * @param failures Rate of failed requests (0 to 1)
+     *
+     * @throws IOException The dictionary could not be read
+     */
+    public LocalTranslator(String dictionary, long latency, long jitter,
+            double failures) throws IOException {
+        if (dictionary == null) {
+            this.dictionary = null;
+        } else {
+            this.dictionary = new Properties();
+            try (InputStream in = new FileInputStream(dictionary)) {
+                this.dictionary.load(new InputStreamReader(in,
+                        StandardCharsets.UTF_8));
+            }
+        }
+        this.latency = latency;
+        this.jitter = jitter;
+        this.failures = failures;
+    }
+
+    /**
+     * Translate many messages in a single request.
+     *
+     * @param inputs Messages
+     * @param source Source language
+     * @param target Target language
+     *
+     * @return Translated messages, in the same order
+     *
+     * @throws IOException Simulated failure
+     */
+    @Override
+    public List<String> translate(List<String> inputs, String source,
+            String target) throws IOException {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        // Simulate the remote service
+        long wait = this.latency + (this.jitter > 0
+                ? random.nextLong(this.jitter + 1) : 0);
+        if (wait > 0) {
+            try {
+                Thread.sleep(wait);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Translation interrupted.", e);
+            }
+        }
+        if (this.failures > 0 && random.nextDouble() < this.failures) {
+            throw new IOException("Simulated translation failure.");
+        }
+        List<String> translated = new ArrayList<String>(inputs.size());
+        for (String input : inputs) {
+            translated.add(this.dictionary == null
+                    ? "[" + target.toUpperCase(Locale.ROOT) + "] " + input
+                    : lookup(input, source, target));
+        }
+        return translated;
+    }
+
+    /**
+     * Translate a message word by word with the dictionary. The spaces between
+     * the words, and the whitespace around the message, are kept.
+     *
+     * @param input Message
+     * @param source Source language
+     * @param target Target language
+     *
+     * @return Translated message
+     */
+    private String lookup(String input, String source, String target) {
+        String prefix = source.toLowerCase(Locale.ROOT) + "."
+                + target.toLowerCase(Locale.ROOT) + ".";
+        // Leading and trailing whitespace
+        int start = 0;
+        int end = input.length();
+        while (start < end && Character.isWhitespace(input.charAt(start))) {
+            start++;
+        }
+        while (end > start && Character.isWhitespace(input.charAt(end - 1))) {
+            end--;
+        }
+        StringBuilder translated = new StringBuilder(input.length());
+        translated.append(input, 0, start);
+        String[] words = input.substring(start, end).split(" ", -1);
+        for (int i = 0; i < words.length; i++) {
+            if (i > 0) {
+                translated.append(' ');
+            }
+            String found = this.dictionary.getProperty(prefix
+                    + words[i].toLowerCase(Locale.ROOT));
+            translated.append(found != null ? found : words[i]);
+        }
+        translated.append(input, end, input.length());
+        return translated.toString();
+    }
+}
@@ -0,0 +1,198 @@
+/*
+ * GNU License.
+ */
+package br.com.brenov.chatserver.translation;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Groups the translations requested at about the same time into batches, one
+ * batch for each pair of source and target languages, and translates each
+ * batch with a single request. A batch is sent when it reaches the maximum
+ * size or the maximum number of characters, or when the time window of its
+ * first message ends, so a translation waits at most one window.
+ *
+ * Translations are first looked up in an optional cache. Cached translations
+ * are returned at once, without waiting for a batch, and the new ones are
+ * added to the cache.
+ *
+ * @author Breno Viana
+ * @version 17/10/2026
+ */
+public class TranslationBatcher {
+
+    // Maximum number of messages in a request (Google API limit)
+    private static final int MAX_SIZE = 128;
+    // Maximum number of characters in a request
+    private static final int MAX_CHARS = 5000;
+
+    /**
+     * Pending translations of a pair of languages.
+     */
+    private final class Batch {
+
+        // Source language
+        private final String source;
+        // Target language
+        private final String target;
+        // Messages to be translated and their results
+        private final Map<String, CompletableFuture<String>> inputs
+                = new LinkedHashMap<String, CompletableFuture<String>>();
+        // Number of characters
+        private int chars = 0;
+
+        /**
+         * Construct a batch.
+         *
+         * @param source Source language
+         * @param target Target language
+         */
+        Batch(String source, String target) {
+            this.source = source;
+            this.target = target;
+        }
+
+        /**
+         * Translate the batch and complete its results.
+         */
+        void translate() {
+            List<String> texts = new ArrayList<String>(this.inputs.keySet());
+            try {
+                List<String> translated = translator.translate(texts,
+                        this.source, this.target);
+                for (int i = 0; i < texts.size(); i++) {
+                    if (cache != null) {
+                        cache.put(texts.get(i), this.source, this.target,
+                                translated.get(i));
+                    }
+                    this.inputs.get(texts.get(i)).complete(translated.get(i));
+                }
+            } catch (Exception e) {
+                for (CompletableFuture<String> result : this.inputs.values()) {
+                    result.completeExceptionally(e);
+                }
+            }
+        }
+    }
+
+    // Translator
+    private final Translator translator;
+    // Translation cache (null if disabled)
+    private final TranslationCache cache;
+    // Threads that send the requests
+    private final ExecutorService executor;
+    // Timer of the batch windows
+    private final ScheduledExecutorService timer;
+    // Maximum number of messages in a batch
+    private final int size;
+    // Time window of a batch, in milliseconds
+    private final long window;
+
+    // Open batches, by source and target languages
+    private final Map<String, Batch> batches = new HashMap<String, Batch>();
+
+    /**
+     * Construct a translation batcher.
+     *
+     * @param translator Translator
+     * @param cache Translation cache (null to disable)
+     * @param threads Number of threads that send the requests
+     * @param size Maximum number of messages in a batch (1 to not batch)
+     * @param window Time window of a batch, in milliseconds
+     */
+    public TranslationBatcher(Translator translator, TranslationCache cache,
+            int threads, int size, long window) {
+        this.translator = translator;
+        this.cache = cache;
+        this.size = Math.max(1, Math.min(size, MAX_SIZE));
+        this.window = window;
+        final AtomicInteger count = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(threads, r -> {
+            Thread t = new Thread(r, "translator-" + count.getAndIncrement());
+            t.setDaemon(true);
+            return t;
+        });
+        this.timer = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "translation-batcher");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /**
+     * Translate a message.
+     *
+     * @param input Message
+     * @param source Source language
+     * @param target Target language
+     *
+     * @return Translated message, available when its batch is translated
+     */
+    public CompletableFuture<String> translate(String input, String source,
+            String target) {
+        // Check the cache
+        if (this.cache != null) {
+            String cached = this.cache.get(input, source, target);
+            if (cached != null) {
+                return CompletableFuture.completedFuture(cached);
+            }
+        }
+        Batch full = null;
+        CompletableFuture<String> result;
+        synchronized (this.batches) {
+            String key = source + '\n' + target;
+            Batch batch = this.batches.get(key);
+            if (batch == null) {
+                batch = new Batch(source, target);
+                this.batches.put(key, batch);
+                // Close the batch at the end of its window
+                if (this.size > 1) {
+                    final Batch timed = batch;
+                    this.timer.schedule(() -> close(key, timed), this.window,
+                            TimeUnit.MILLISECONDS);
+                }
+            }
+            // The same message is translated only once
+            result = batch.inputs.get(input);
+            if (result == null) {
+                result = new CompletableFuture<String>();
+                batch.inputs.put(input, result);
+                batch.chars += input.length();
+            }
+            if (batch.inputs.size() >= this.size || batch.chars >= MAX_CHARS) {
+                this.batches.remove(key);
+                full = batch;
+            }
+        }
+        if (full != null) {
+            this.executor.execute(full::translate);
+        }
+        return result;
+    }
+
+    /**
+     * Close a batch whose window ended, if it was not sent yet.
+     *
+     * @param key Batch key
+     * @param batch Batch
+     */
+    private void close(String key, Batch batch) {
+        synchronized (this.batches) {
+            if (this.batches.get(key) != batch) {
+                return;
+            }
+            this.batches.remove(key);
+        }
+        this.executor.execute(batch::translate);
+    }
+}
@@ -0,0 +1,274 @@
+/*
+ * GNU License.
+ */
+package br.com.brenov.chatserver.translation;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+
+/**
+ * Bounded cache of translations, keyed by the normalized text and the source
+ * and target languages. Chat messages repeat a lot ("hi", "ok", "lol"), so the
+ * cache saves translation calls and API quota.
+ *
+ * The entries are split in segments, each one a least recently used map with
+ * its own lock, so concurrent handlers rarely wait for each other. Entries may
+ * also expire after a fixed time. Hits, misses, evictions and expirations are
+ * counted to help sizing the cache.
+ *
+ * @author Breno Viana
+ * @version 17/10/2026
+ */
+public class TranslationCache {
+
+    // Number of segments
+    private static final int SEGMENTS = 16;
+    // Whitespace sequences
+    private static final Pattern SPACES = Pattern.compile("\\s+");
+
+    /**
+     * Cache key.
+     */
+    private static final class Key {
+
+        // Normalized text
+        private final String text;
+        // Source language
+        private final String source;
+        // Target language
+        private final String target;
+        // Hash code
+        private final int hash;
+
+        /**
+         * Construct a key.
+         *
+         * @param text Text
+         * @param source Source language
+         * @param target Target language
+         */
+        Key(String text, String source, String target) {
+            this.text = SPACES.matcher(text.trim()).replaceAll(" ");
+            this.source = source;
+            this.target = target;
+            this.hash = (this.text.hashCode() * 31 + source.hashCode()) * 31
+                    + target.hashCode();
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key k = (Key) o;
+            return this.hash == k.hash && this.text.equals(k.text)
+                    && this.source.equals(k.source)
+                    && this.target.equals(k.target);
+        }
+
+        @Override
+        public int hashCode() {
+            return this.hash;
+        }
+    }
+
+    /**
+     * Cached translation.
+     */
+    private static final class Entry {
+
+        // Translated text
+        private final String translation;
+        // Expiration time (System.nanoTime), or 0 if it does not expire
+        private final long expires;
+
+        /**
+         * Construct an entry.
+         *
+         * @param translation Translated text
+         * @param expires Expiration time
+         */
+        Entry(String translation, long expires) {
+            this.translation = translation;
+            this.expires = expires;
+        }
+    }
+
+    /**
+     * Least recently used segment.
+     */
+    private final class Segment extends LinkedHashMap<Key, Entry> {
+
+        // Serialization version (segments are never serialized)
+        private static final long serialVersionUID = 1L;
+
+        // Maximum number of entries
+        private final int capacity;
+
+        /**
+         * Construct a segment.
+         *
+         * @param capacity Maximum number of entries
+         */
+        Segment(int capacity) {
+            super(16, 0.75f, true);
+            this.capacity = capacity;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Key, Entry> eldest) {
+            if (size() > this.capacity) {
+                evictions.incrementAndGet();
+                return true;
+            }
+            return false;
+        }
+    }
+
+    // Segments
+    private final Segment[] segments;
+    // Time to live, in nanoseconds (0 if the entries do not expire)
+    private final long ttl;
+
+    // Counters
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private final AtomicLong expirations = new AtomicLong();
+
+    /**
+     * Construct a translation cache.
+     *
+     * @param size Maximum number of translations
+     * @param ttl Time to live of a translation, in seconds (0 to never expire)
+     */
+    public TranslationCache(int size, long ttl) {
+        this.segments = new Segment[SEGMENTS];
+        int capacity = Math.max(1, (size + SEGMENTS - 1) / SEGMENTS);
+        for (int i = 0; i < SEGMENTS; i++) {
+            this.segments[i] = new Segment(capacity);
+        }
+        this.ttl = TimeUnit.SECONDS.toNanos(ttl);
+    }
+
+    /**
+     * Get the segment of a key.
+     *
+     * @param key Key
+     *
+     * @return Segment
+     */
+    private Segment segment(Key key) {
+        int h = key.hash ^ (key.hash >>> 16);
+        return this.segments[h & (SEGMENTS - 1)];
+    }
+
+    /**
+     * Get a cached translation.
+     *
+     * @param text Text
+     * @param source Source language
+     * @param target Target language
+     *
+     * @return Translated text, or null if it is not cached
+     */
+    public String get(String text, String source, String target) {
+        Key key = new Key(text, source, target);
+        Segment segment = segment(key);
+        Entry entry;
+        synchronized (segment) {
+            entry = segment.get(key);
+            if (entry != null && entry.expires != 0
+                    && entry.expires - System.nanoTime() < 0) {
+                segment.remove(key);
+                this.expirations.incrementAndGet();
+                entry = null;
+            }
+        }
+        if (entry == null) {
+            this.misses.incrementAndGet();
+            return null;
+        }
+        this.hits.incrementAndGet();
+        return entry.translation;
+    }
+
+    /**
+     * Add a translation to the cache.
+     *
+     * @param text Text
+     * @param source Source language
+     * @param target Target language
+     * @param translation Translated text
+     */
+    public void put(String text, String source, String target,
+            String translation) {
+        Key key = new Key(text, source, target);
+        long expires = this.ttl == 0 ? 0 : (System.nanoTime() + this.ttl) | 1;
+        Segment segment = segment(key);
+        synchronized (segment) {
+            segment.put(key, new Entry(translation, expires));
+        }
+    }
+
+    /**
+     * Get the number of cached translations.
+     *
+     * @return Number of translations
+     */
+    public int size() {
+        int size = 0;
+        for (Segment segment : this.segments) {
+            synchronized (segment) {
+                size += segment.size();
+            }
+        }
+        return size;
+    }
+
+    /**
+     * Get the number of translations found in the cache.
+     *
+     * @return Number of hits
+     */
+    public long getHits() {
+        return this.hits.get();
+    }
+
+    /**
+     * Get the number of translations not found in the cache.
+     *
+     * @return Number of misses
+     */
+    public long getMisses() {
+        return this.misses.get();
+    }
+
+    /**
+     * Get the number of translations removed to free space.
+     *
+     * @return Number of evictions
+     */
+    public long getEvictions() {
+        return this.evictions.get();
+    }
+
+    /**
+     * Get the number of translations removed because they expired.
+     *
+     * @return Number of expirations
+     */
+    public long getExpirations() {
+        return this.expirations.get();
+    }
+
+    @Override
+    public String toString() {
+        return "Translation cache: size=" + size() + ", hits=" + getHits()
+                + ", misses=" + getMisses() + ", evictions=" + getEvictions()
+                + ", expirations=" + getExpirations();
+    }
+}
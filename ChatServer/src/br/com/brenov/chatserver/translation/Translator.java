@@ -0,0 +1,49 @@
+/*
+ * GNU License.
+ */
+package br.com.brenov.chatserver.translation;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Translation service used by the server. Implementations must be thread
+ * safe: a single translator is shared by all the clients.
+ *
+ * @author Breno Viana
+ * @version 17/10/2026
+ */
+public interface Translator {
+
+    /**
+     * Translate many messages in a single request.
+     *
+     * @param inputs Messages
+     * @param source Source language
+     * @param target Target language
+     *
+     * @return Translated messages, in the same order
+     *
+     * @throws IOException Translation error
+     */
+    List<String> translate(List<String> inputs, String source, String target)
+            throws IOException;
+
+    /**
+     * Translate a message.
+     *
+     * @param input Message
+     * @param source Source language
+     * @param target Target language
+     *
+     * @return Translated message
+     *
+     * @throws IOException Translation error
+     */
+    default String translate(String input, String source, String target)
+            throws IOException {
+        return translate(Collections.singletonList(input), source, target)
+                .get(0);
+    }
+}